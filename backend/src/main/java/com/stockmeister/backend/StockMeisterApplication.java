@@ -3,6 +3,7 @@ package com.stockmeister.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -11,6 +12,7 @@ import org.springframework.core.Ordered;
 import java.util.Collections;
 
 @SpringBootApplication
+@EnableScheduling
 public class StockMeisterApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,77 @@
+package com.stockmeister.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Regions of the Hibernate second-level cache, created with a size bound and
+ * a TTL before Hibernate starts. The region names are the ones in the
+ * entities' {@code @Cache} annotations. The TTL bounds how long a copy can
+ * be stale if an invalidation is missed, e.g. a NOTIFY lost while another
+ * node was reconnecting (see ClusterCacheInvalidator).
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+@Slf4j
+public class SecondLevelCacheConfig {
+
+    static final List<String> ENTITY_REGIONS = List.of(
+            "recipes",
+            "recipes.ingredients",
+            "recipe_ingredients",
+            "users",
+            "restaurant_settings");
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${app.cache.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.ttl:PT10M}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        for (String region : ENTITY_REGIONS) {
+            createIfMissing(cacheManager, region, bounded(maxEntries, ttl));
+        }
+        createIfMissing(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(maxEntries, ttl));
+        // Timestamps decide whether a cached query result is still valid and
+        // must not be evicted before the results they guard
+        createIfMissing(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+
+        log.info("Second-level cache: {} region(s), max {} entries each, TTL {}",
+                ENTITY_REGIONS.size() + 1, maxEntries, ttl);
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+
+    // The JCache manager is shared per class loader, a second application
+    // context (tests) finds the regions already there
+    private static void createIfMissing(CacheManager cacheManager, String region,
+            CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(region) == null) {
+            cacheManager.createCache(region, configuration);
+        }
+    }
+}
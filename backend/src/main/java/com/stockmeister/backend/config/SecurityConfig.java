@@ -1,6 +1,7 @@
 package com.stockmeister.backend.config;
 
 import com.stockmeister.backend.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,10 +57,16 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async results of requests that were authorized on the original dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/health/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/uploads/**").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // Node-to-node stock calls, checked against the shared cluster token
+                        .requestMatchers("/internal/stock/**").permitAll()
 
                         .requestMatchers(HttpMethod.GET, "/api/ingredients/**")
                         .hasAnyRole("ADMIN", "CHEF", "INVENTORY_MANAGER")
@@ -100,6 +107,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/reports/**")
                         .hasAnyRole("ADMIN", "CHEF")
 
+                        .requestMatchers("/api/sync/**")
+                        .hasAnyRole("ADMIN", "CHEF", "INVENTORY_MANAGER", "WAITER")
+                        .requestMatchers("/api/kitchen/**")
+                        .hasAnyRole("ADMIN", "CHEF")
                         .requestMatchers("/api/pos/**")
                         .hasAnyRole("ADMIN", "WAITER")
                         .requestMatchers("/api/orders/**")
@@ -2,10 +2,15 @@ package com.stockmeister.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stockmeister.backend.dto.IngredientDTO;
+import com.stockmeister.backend.dto.KeysetPage;
+import com.stockmeister.backend.dto.StockLevelDTO;
+import com.stockmeister.backend.dto.StockMovementDTO;
 import com.stockmeister.backend.model.Ingredient;
 import com.stockmeister.backend.service.IngredientService;
+import com.stockmeister.backend.service.StockLedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +19,7 @@ import org.springframework.web.multipart.MultipartFile;
 import com.stockmeister.backend.dto.StockAdjustmentRequest;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +30,7 @@ import java.util.stream.Collectors;
 public class IngredientController {
 
     private final IngredientService ingredientService;
+    private final StockLedgerService stockLedgerService;
     private final ObjectMapper objectMapper;
 
     @GetMapping
@@ -118,12 +125,7 @@ public class IngredientController {
             @RequestParam(required = false, defaultValue = "1.0") BigDecimal thresholdMultiplier) {
         log.info("GET /api/ingredients/low-stock - thresholdMultiplier: {}", thresholdMultiplier);
 
-        List<Ingredient> lowStockIngredients = ingredientService.getLowStockIngredients(thresholdMultiplier);
-        List<IngredientDTO> dtos = lowStockIngredients.stream()
-                .map(IngredientDTO::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(ingredientService.getLowStockIngredientDTOs(thresholdMultiplier));
     }
 
     @GetMapping("/out-of-stock")
@@ -156,9 +158,37 @@ public class IngredientController {
         return ResponseEntity.ok(IngredientDTO.fromEntity(updatedIngredient));
     }
 
+    @PatchMapping("/{id}/stock-shards")
+    public ResponseEntity<IngredientDTO> configureStockShards(
+            @PathVariable Long id,
+            @RequestParam int shards) {
+        log.info("PATCH /api/ingredients/{}/stock-shards - shards: {}", id, shards);
+
+        Ingredient updatedIngredient = ingredientService.configureStockShards(id, shards);
+        return ResponseEntity.ok(IngredientDTO.fromEntity(updatedIngredient));
+    }
+
     @PostMapping("/stock-count")
     public ResponseEntity<Void> updateStockCount(@RequestBody List<StockAdjustmentRequest> adjustments) {
         ingredientService.updateStockCount(adjustments);
         return ResponseEntity.ok().build();
     }
+
+    @GetMapping("/{id}/stock-history")
+    public ResponseEntity<KeysetPage<StockMovementDTO, Long>> getStockHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("GET /api/ingredients/{}/stock-history - before: {}, limit: {}", id, before, limit);
+        return ResponseEntity.ok(stockLedgerService.getHistory(id, before, limit));
+    }
+
+    @GetMapping("/stock-at")
+    public ResponseEntity<KeysetPage<StockLevelDTO, Long>> getStockAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ts,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("GET /api/ingredients/stock-at - ts: {}, after: {}, limit: {}", ts, after, limit);
+        return ResponseEntity.ok(stockLedgerService.getStockAt(ts, after, limit));
+    }
 }
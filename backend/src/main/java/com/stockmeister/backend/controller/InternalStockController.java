@@ -0,0 +1,107 @@
+package com.stockmeister.backend.controller;
+
+import com.stockmeister.backend.dto.ClusterStockRequest;
+import com.stockmeister.backend.dto.ClusterStockResponse;
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.service.ClusterMembership;
+import com.stockmeister.backend.service.ClusterStockRouter;
+import com.stockmeister.backend.service.StockEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Stock operations other cluster nodes send for ingredients owned by this
+ * node. Not for clients; every call must carry the shared cluster token.
+ */
+@RestController
+@RequestMapping("/internal/stock")
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InternalStockController {
+
+    private final StockEngine stockEngine;
+    private final ClusterMembership clusterMembership;
+
+    @PostMapping("/reserve")
+    public ResponseEntity<ClusterStockResponse> reserve(
+            @RequestHeader(value = ClusterStockRouter.TOKEN_HEADER, required = false) String token,
+            @RequestBody ClusterStockRequest request) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            stockEngine.takeForPeer(request.getTxId(), "HOLD".equals(request.getOperation()),
+                    request.toAmountMap());
+            return ResponseEntity.ok(ClusterStockResponse.accepted());
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ClusterStockResponse.rejected(e.getShortages()));
+        }
+    }
+
+    @PostMapping("/settle")
+    public ResponseEntity<Void> settle(
+            @RequestHeader(value = ClusterStockRouter.TOKEN_HEADER, required = false) String token,
+            @RequestBody ClusterStockRequest request) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        stockEngine.settleForPeer(request.getTxId(), "COMMIT".equals(request.getOperation()));
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/apply")
+    public ResponseEntity<Void> apply(
+            @RequestHeader(value = ClusterStockRouter.TOKEN_HEADER, required = false) String token,
+            @RequestBody ClusterStockRequest request) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        stockEngine.applyForPeer(request.getOperation(), request.toAmountMap());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/evict")
+    public ResponseEntity<Void> evict(
+            @RequestHeader(value = ClusterStockRouter.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long id) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        stockEngine.evict(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{id}/available")
+    public ResponseEntity<Long> getAvailable(
+            @RequestHeader(value = ClusterStockRouter.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long id) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(stockEngine.getLocalAvailableMillis(id));
+    }
+
+    private boolean isAuthorized(String token) {
+        if (token == null) {
+            log.warn("Internal stock call without cluster token rejected");
+            return false;
+        }
+        return MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8),
+                clusterMembership.getToken().getBytes(StandardCharsets.UTF_8));
+    }
+}
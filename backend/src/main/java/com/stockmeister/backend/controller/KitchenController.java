@@ -0,0 +1,76 @@
+package com.stockmeister.backend.controller;
+
+import com.stockmeister.backend.dto.KitchenTicketDTO;
+import com.stockmeister.backend.dto.StationTicketsDTO;
+import com.stockmeister.backend.model.KitchenStation;
+import com.stockmeister.backend.service.KitchenTicketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket queues of the kitchen stations (GRILL, FRYER, COLD, BAR) for their
+ * displays.
+ */
+@RestController
+@RequestMapping("/api/kitchen/stations/{station}")
+@RequiredArgsConstructor
+@Slf4j
+public class KitchenController {
+
+    private final KitchenTicketService kitchenTicketService;
+
+    private static final long MAX_WAIT_MS = 25_000;
+
+    /**
+     * Open tickets of the station. With {@code since} (the version of the
+     * last response) and {@code waitMs}, the response is held until the
+     * queue changes or the wait runs out.
+     */
+    @GetMapping("/tickets")
+    public CompletableFuture<ResponseEntity<StationTicketsDTO>> getTickets(
+            @PathVariable KitchenStation station,
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        if (since == null || waitMs <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(kitchenTicketService.getTickets(station)));
+        }
+
+        return kitchenTicketService.awaitChange(station, since)
+                .completeOnTimeout(kitchenTicketService.getTickets(station),
+                        Math.min(waitMs, MAX_WAIT_MS), TimeUnit.MILLISECONDS)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Server-Sent Events with the station's open tickets, sent on connect
+     * and after every change.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTickets(@PathVariable KitchenStation station) {
+        log.info("GET /api/kitchen/stations/{}/stream - Display connected", station);
+        return kitchenTicketService.subscribe(station);
+    }
+
+    @PostMapping("/tickets/{ticketId}/bump")
+    public ResponseEntity<KitchenTicketDTO> bumpTicket(
+            @PathVariable KitchenStation station,
+            @PathVariable Long ticketId) {
+        log.info("POST /api/kitchen/stations/{}/tickets/{}/bump", station, ticketId);
+        return ResponseEntity.ok(kitchenTicketService.bump(station, ticketId));
+    }
+
+    @PostMapping("/tickets/{ticketId}/recall")
+    public ResponseEntity<KitchenTicketDTO> recallTicket(
+            @PathVariable KitchenStation station,
+            @PathVariable Long ticketId) {
+        log.info("POST /api/kitchen/stations/{}/tickets/{}/recall", station, ticketId);
+        return ResponseEntity.ok(kitchenTicketService.recall(station, ticketId));
+    }
+}
@@ -1,23 +1,54 @@
 package com.stockmeister.backend.controller;
 
+import com.stockmeister.backend.dto.BatchOrderRequestDTO;
+import com.stockmeister.backend.dto.BatchOrderResultDTO;
+import com.stockmeister.backend.dto.CartValidationDTO;
+import com.stockmeister.backend.dto.KeysetPage;
+import com.stockmeister.backend.dto.OrderFilter;
 import com.stockmeister.backend.dto.OrderRequestDTO;
 import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.dto.OrderTicketDTO;
+import com.stockmeister.backend.dto.ProductAvailabilityDTO;
 import com.stockmeister.backend.dto.RecipeDTO;
+import com.stockmeister.backend.model.OrderDocument;
 import com.stockmeister.backend.model.OrderStatus;
 import com.stockmeister.backend.model.PaymentMethod;
 import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.service.ActiveOrderBoard;
+import com.stockmeister.backend.service.CartValidationService;
+import com.stockmeister.backend.service.IdempotencyService;
+import com.stockmeister.backend.service.MenuAvailabilityIndex;
+import com.stockmeister.backend.service.OrderDocumentService;
+import com.stockmeister.backend.service.OrderExportService;
+import com.stockmeister.backend.service.OrderIntakeService;
 import com.stockmeister.backend.service.OrderService;
+import com.stockmeister.backend.service.PosBootstrapService;
 import com.stockmeister.backend.service.RecipeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/pos")
@@ -28,19 +59,91 @@ public class POSController {
 
     private final OrderService orderService;
     private final RecipeService recipeService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectProvider<OrderIntakeService> orderIntakeService;
+    private final OrderExportService orderExportService;
+    private final OrderDocumentService orderDocumentService;
+    private final ActiveOrderBoard activeOrderBoard;
+    private final MenuAvailabilityIndex menuAvailabilityIndex;
+    private final CartValidationService cartValidationService;
+    private final PosBootstrapService posBootstrapService;
 
+    private static final long MAX_TICKET_WAIT_MS = 25_000;
+
+    /**
+     * With async intake enabled, a {@code Prefer: respond-async} header
+     * queues the order and returns 202 with a ticket to poll instead.
+     */
     @PostMapping("/orders")
-    public ResponseEntity<OrderResponseDTO> createOrder(
-            @Valid @RequestBody OrderRequestDTO orderRequest) {
+    public ResponseEntity<?> createOrder(
+            @Valid @RequestBody OrderRequestDTO orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         log.info("POST /api/pos/orders - Creating order for table: {}",
                 orderRequest.getTableNumber());
 
-        OrderResponseDTO order = orderService.placeOrder(orderRequest);
+        OrderIntakeService intake = orderIntakeService.getIfAvailable();
+        if (intake != null && prefer != null && prefer.contains("respond-async")) {
+            if (idempotencyKey != null && orderRequest.getClientOrderId() == null) {
+                orderRequest.setClientOrderId(idempotencyKey);
+            }
+            OrderTicketDTO ticket = intake.submit(orderRequest);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pos/orders/tickets/" + ticket.getTicketId()))
+                    .body(ticket);
+        }
+
+        OrderResponseDTO order = idempotencyKey == null
+                ? orderService.placeOrder(orderRequest)
+                : idempotencyService.execute("order-place", idempotencyKey, orderRequest,
+                        OrderResponseDTO.class, () -> orderService.placeOrder(orderRequest));
 
         log.info("Order {} created successfully", order.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
+    @PostMapping("/orders/batch")
+    public ResponseEntity<List<BatchOrderResultDTO>> createOrders(
+            @Valid @RequestBody BatchOrderRequestDTO batchRequest) {
+        log.info("POST /api/pos/orders/batch - Submitting {} order(s)", batchRequest.getOrders().size());
+        List<BatchOrderResultDTO> results = orderService.placeOrders(batchRequest.getOrders());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Checks a cart against current stock without placing it or reserving
+     * anything. The returned stock version changes whenever stock does.
+     */
+    @PostMapping("/cart/validate")
+    public ResponseEntity<CartValidationDTO> validateCart(@Valid @RequestBody OrderRequestDTO cart) {
+        log.info("POST /api/pos/cart/validate - Validating cart of {} line(s)", cart.getItems().size());
+        return ResponseEntity.ok(cartValidationService.validate(cart));
+    }
+
+    /**
+     * Ticket of an asynchronously submitted order. With {@code waitMs} the
+     * response is held (without a request thread) until the order has been
+     * processed or the wait runs out.
+     */
+    @GetMapping("/orders/tickets/{ticketId}")
+    public CompletableFuture<ResponseEntity<OrderTicketDTO>> getOrderTicket(
+            @PathVariable String ticketId,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        OrderIntakeService intake = orderIntakeService.getIfAvailable();
+        if (intake == null) {
+            throw new RuntimeException("Order ticket not found with id: " + ticketId);
+        }
+
+        OrderTicketDTO ticket = intake.getTicket(ticketId);
+        if (ticket.isDone() || waitMs <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(ticket));
+        }
+
+        return intake.awaitTicket(ticketId)
+                .completeOnTimeout(ticket, Math.min(waitMs, MAX_TICKET_WAIT_MS), TimeUnit.MILLISECONDS)
+                .thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/orders")
     public ResponseEntity<List<OrderResponseDTO>> getAllOrders() {
         log.info("GET /api/pos/orders - Fetching all orders");
@@ -48,9 +151,75 @@ public class POSController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/orders/history")
+    public ResponseEntity<KeysetPage<OrderResponseDTO, String>> getOrderHistory(
+            OrderFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("GET /api/pos/orders/history - filter: {}, limit: {}", filter, limit);
+        return ResponseEntity.ok(orderService.getOrderHistory(filter, cursor, limit));
+    }
+
+    /**
+     * Streams all orders created in {@code [from, to)} with their items, as
+     * NDJSON (one order per line) or CSV (one item per line), optionally
+     * gzipped.
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("GET /api/pos/orders/export - from: {}, to: {}, format: {}, gzip: {}", from, to, format, gzip);
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid export format: " + format);
+        }
+
+        String extension = exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+        if (gzip) {
+            extension += ".gz";
+            contentType = new MediaType("application", "gzip");
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                orderExportService.export(from, to, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                orderExportService.export(from, to, exportFormat, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + extension + "\"")
+                .body(body);
+    }
+
+    /**
+     * Completed and cancelled orders are served from their stored document
+     * with an ETag, so If-None-Match is answered with 304 by Spring.
+     */
     @GetMapping("/orders/{id}")
-    public ResponseEntity<OrderResponseDTO> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<?> getOrderById(@PathVariable Long id) {
         log.info("GET /api/pos/orders/{} - Fetching order", id);
+        Optional<OrderDocument> document = orderDocumentService.find(id);
+        if (document.isPresent()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(document.get().getEtag())
+                    .cacheControl(orderDocumentService.cacheControl())
+                    .body(document.get().getBody());
+        }
         OrderResponseDTO order = orderService.getOrderById(id);
         return ResponseEntity.ok(order);
     }
@@ -62,6 +231,18 @@ public class POSController {
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Server-Sent Events for kitchen displays: a snapshot of the active
+     * orders, then one event per change. Reconnecting with Last-Event-ID
+     * resumes after that event.
+     */
+    @GetMapping(value = "/orders/active/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActiveOrders(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("GET /api/pos/orders/active/stream - Last-Event-ID: {}", lastEventId);
+        return activeOrderBoard.subscribe(lastEventId);
+    }
+
     @GetMapping("/orders/status/{status}")
     public ResponseEntity<List<OrderResponseDTO>> getOrdersByStatus(
             @PathVariable OrderStatus status) {
@@ -84,11 +265,15 @@ public class POSController {
             @PathVariable Long id,
             @RequestParam PaymentMethod paymentMethod,
             @RequestParam(required = false) BigDecimal amountReceived,
-            @RequestParam(required = false) BigDecimal tip) {
+            @RequestParam(required = false) BigDecimal tip,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/pos/orders/{}/pay - Completing payment via {}",
                 id, paymentMethod);
-        OrderResponseDTO order = orderService.completePayment(
-                id, paymentMethod, amountReceived, tip);
+        OrderResponseDTO order = idempotencyKey == null
+                ? orderService.completePayment(id, paymentMethod, amountReceived, tip)
+                : idempotencyService.execute("order-pay", idempotencyKey,
+                        Arrays.asList(id, paymentMethod, amountReceived, tip), OrderResponseDTO.class,
+                        () -> orderService.completePayment(id, paymentMethod, amountReceived, tip));
         return ResponseEntity.ok(order);
     }
 
@@ -106,17 +291,50 @@ public class POSController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Startup bundle for terminals, served from pre-rendered bytes (gzipped
+     * when the client accepts it). Revalidate with If-None-Match.
+     */
+    @GetMapping("/bootstrap")
+    public ResponseEntity<byte[]> getBootstrap(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("GET /api/pos/bootstrap - Fetching bootstrap bundle");
+        PosBootstrapService.Bundle bundle = posBootstrapService.getBundle();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.eTag(bundle.getGzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(bundle.getGzipped());
+        }
+        return response.eTag(bundle.getEtag()).body(bundle.getJson());
+    }
+
     @GetMapping("/products")
     public ResponseEntity<List<RecipeDTO>> getMenuProducts() {
         log.info("GET /api/pos/products - Fetching menu products");
 
-        List<Recipe> recipes = recipeService.getAllRecipesWithIngredients();
+        return ResponseEntity.ok(recipeService.getMenuProducts());
+    }
 
-        List<RecipeDTO> products = recipes.stream()
-                .map(RecipeDTO::fromEntityWithIngredients)
-                .collect(Collectors.toList());
+    @GetMapping("/products/availability")
+    public ResponseEntity<List<ProductAvailabilityDTO>> getProductAvailability() {
+        log.info("GET /api/pos/products/availability - Fetching availability of all products");
+        return ResponseEntity.ok(menuAvailabilityIndex.getAll());
+    }
 
-        return ResponseEntity.ok(products);
+    /**
+     * Server-Sent Events for POS terminals: a snapshot of all products, then
+     * one event whenever a product runs out of stock or is back in stock.
+     */
+    @GetMapping(value = "/products/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductAvailability() {
+        log.info("GET /api/pos/products/availability/stream - Subscribing to availability changes");
+        return menuAvailabilityIndex.subscribe();
     }
 
     @GetMapping("/products/{id}")
@@ -34,11 +34,13 @@ public class RecipeController {
             @RequestParam(required = false) String search) {
         log.info("GET /api/recipes - withIngredients: {}, search: {}", withIngredients, search);
 
+        if (withIngredients && (search == null || search.isEmpty())) {
+            return ResponseEntity.ok(recipeService.getMenuProducts());
+        }
+
         List<Recipe> recipes;
         if (search != null && !search.isEmpty()) {
             recipes = recipeService.searchRecipesByName(search);
-        } else if (withIngredients) {
-            recipes = recipeService.getAllRecipesWithIngredients();
         } else {
             recipes = recipeService.getAllRecipes();
         }
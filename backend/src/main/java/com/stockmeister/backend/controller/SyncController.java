@@ -0,0 +1,48 @@
+package com.stockmeister.backend.controller;
+
+import com.stockmeister.backend.dto.CatalogChangesDTO;
+import com.stockmeister.backend.service.CatalogSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Slf4j
+public class SyncController {
+
+    // Same roles as GET /api/ingredients/** and GET /api/recipes/**
+    private static final Set<String> INGREDIENT_READERS = Set.of("ROLE_ADMIN", "ROLE_CHEF", "ROLE_INVENTORY_MANAGER");
+    private static final Set<String> RECIPE_READERS = Set.of("ROLE_ADMIN", "ROLE_CHEF", "ROLE_WAITER");
+
+    private final CatalogSyncService catalogSyncService;
+
+    /**
+     * Ingredients and recipes changed after {@code since}; without it, or
+     * with a watermark too old to be served as a delta, a full snapshot.
+     * Callers only get the sections their role may read.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<CatalogChangesDTO> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        log.info("GET /api/sync/changes - since: {}, limit: {}", since, limit);
+
+        boolean withIngredients = hasAnyRole(authentication, INGREDIENT_READERS);
+        boolean withRecipes = hasAnyRole(authentication, RECIPE_READERS);
+        return ResponseEntity.ok(catalogSyncService.getChanges(since, limit, withIngredients, withRecipes));
+    }
+
+    private static boolean hasAnyRole(Authentication authentication, Set<String> roles) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(roles::contains);
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockmeister.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderRequestDTO {
+
+    @NotEmpty(message = "Batch must have at least one order")
+    @Size(max = 500, message = "Batch must have at most 500 orders")
+    @Valid
+    private List<OrderRequestDTO> orders;
+}
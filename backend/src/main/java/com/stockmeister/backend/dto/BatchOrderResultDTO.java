@@ -0,0 +1,32 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResultDTO {
+
+    private String clientOrderId;
+    private Outcome outcome;
+
+    // Set for CREATED, and for DUPLICATE when the first order is known
+    private Long orderId;
+
+    private List<StockShortage> shortages;
+    private String message;
+
+    public enum Outcome {
+        CREATED,
+        DUPLICATE,
+        SHORTAGE,
+        INVALID
+    }
+}
@@ -0,0 +1,38 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Dry run of an order against current stock. A line is feasible if it fits
+ * together with all lines before it; shortages cover the whole cart, as
+ * placing the order would report them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartValidationDTO {
+
+    private long stockVersion;
+    private boolean valid;
+    private List<Line> lines;
+    private List<StockShortage> shortages;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private int index;
+        private Long recipeId;
+        private String recipeName;
+        private Integer quantity;
+        private boolean feasible;
+    }
+}
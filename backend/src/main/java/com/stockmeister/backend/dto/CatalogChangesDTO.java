@@ -0,0 +1,45 @@
+package com.stockmeister.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of catalogue changes. Recipes always carry their complete
+ * ingredient lines, which replace the client's lines of that recipe. With
+ * {@code full} set the page is a complete snapshot without tombstones and
+ * the client drops everything it had before. The next request passes
+ * {@code watermark} as {@code since}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangesDTO {
+
+    private long watermark;
+    private boolean full;
+    private boolean hasMore;
+    private List<IngredientDTO> ingredients;
+    private List<RecipeDTO> recipes;
+    private List<Tombstone> deleted;
+
+    public enum EntityType {
+        INGREDIENT,
+        RECIPE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tombstone {
+        private EntityType type;
+        private Long id;
+        private LocalDateTime deletedAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Node-to-node stock call. Amounts are milli-units keyed by ingredient id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterStockRequest {
+
+    private String txId;
+
+    private String operation;
+
+    private Map<Long, Long> amounts;
+
+    public static ClusterStockRequest of(String txId, String operation, StockAmountMap amounts) {
+        Map<Long, Long> map = new HashMap<>(amounts.size() * 2);
+        amounts.forEach(map::put);
+        return new ClusterStockRequest(txId, operation, map);
+    }
+
+    public StockAmountMap toAmountMap() {
+        StockAmountMap map = new StockAmountMap(amounts.size());
+        amounts.forEach(map::add);
+        return map;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Answer of the owning node to a reservation; {@code shortages} is only set
+ * when it was rejected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterStockResponse {
+
+    private boolean accepted;
+
+    private List<Shortage> shortages;
+
+    public static ClusterStockResponse accepted() {
+        return new ClusterStockResponse(true, List.of());
+    }
+
+    public static ClusterStockResponse rejected(List<StockShortage> shortages) {
+        return new ClusterStockResponse(false, shortages.stream()
+                .map(s -> new Shortage(s.getIngredientId(), s.getIngredientName(), s.getUnit(),
+                        s.getRequired(), s.getAvailable()))
+                .collect(Collectors.toList()));
+    }
+
+    public List<StockShortage> toShortages() {
+        return shortages.stream()
+                .map(s -> new StockShortage(s.getIngredientId(), s.getIngredientName(), s.getUnit(),
+                        s.getRequired(), s.getAvailable()))
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Shortage {
+        private Long ingredientId;
+        private String ingredientName;
+        private String unit;
+        private BigDecimal required;
+        private BigDecimal available;
+    }
+}
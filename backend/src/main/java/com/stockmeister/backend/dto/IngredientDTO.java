@@ -21,6 +21,7 @@ public class IngredientDTO {
     private String category;
     private String unit;
     private BigDecimal currentStock;
+    private Integer stockShards;
     private BigDecimal minimumStock;
     private BigDecimal unitPrice;
     private String supplier;
@@ -39,6 +40,7 @@ public class IngredientDTO {
                 .category(entity.getCategory())
                 .unit(entity.getUnit())
                 .currentStock(entity.getCurrentStock())
+                .stockShards(entity.getStockShards())
                 .minimumStock(entity.getMinimumStock())
                 .unitPrice(entity.getUnitPrice())
                 .supplier(entity.getSupplier())
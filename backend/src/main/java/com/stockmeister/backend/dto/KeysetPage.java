@@ -0,0 +1,22 @@
+package com.stockmeister.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. Pass {@code nextCursor} back to get
+ * the following page; it is null on the last page. {@code C} is the cursor
+ * type: an id, or an opaque string for cursors over several columns.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T, C> {
+
+    private List<T> items;
+
+    private C nextCursor;
+}
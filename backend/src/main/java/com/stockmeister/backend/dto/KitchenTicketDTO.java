@@ -0,0 +1,39 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.model.KitchenStation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The items of one order that a single kitchen station prepares.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenTicketDTO {
+
+    private Long id;
+    private Long orderId;
+    private String tableNumber;
+    private KitchenStation station;
+    private List<Item> items;
+    private String orderNotes;
+    private LocalDateTime createdAt;
+    private LocalDateTime bumpedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String recipeName;
+        private Integer quantity;
+        private String notes;
+    }
+}
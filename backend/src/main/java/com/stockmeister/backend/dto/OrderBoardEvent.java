@@ -0,0 +1,34 @@
+package com.stockmeister.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderBoardEvent {
+
+    private long sequence;
+    private Type type;
+    private Long orderId;
+
+    // The order's current state, for CREATED and STATUS_CHANGED
+    private OrderResponseDTO order;
+
+    // All active orders, for SNAPSHOT
+    private List<OrderResponseDTO> orders;
+
+    public enum Type {
+        SNAPSHOT,
+        CREATED,
+        STATUS_CHANGED,
+        REMOVED
+    }
+}
@@ -0,0 +1,36 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.model.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order history filters; all optional and combined with AND. {@code from}
+ * is inclusive, {@code to} exclusive. {@code customerName} matches any part
+ * of the name, ignoring case.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFilter {
+
+    private OrderStatus status;
+    private PaymentMethod paymentMethod;
+    private Long waiterId;
+    private String tableNumber;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    private String customerName;
+}
@@ -1,5 +1,6 @@
 package com.stockmeister.backend.dto;
 
+import com.stockmeister.backend.model.KitchenStation;
 import com.stockmeister.backend.model.OrderItem;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,6 +21,7 @@ public class OrderItemResponseDTO {
     private String recipeName;
     private String recipeImagePath;
     private boolean sendToKitchen;
+    private KitchenStation station;
     private Integer quantity;
     private BigDecimal unitPrice;
     private BigDecimal itemTotal;
@@ -33,11 +35,13 @@ public class OrderItemResponseDTO {
         String imagePath = null;
         Long recipeId = null;
         boolean sendToKitchen = true;
+        KitchenStation station = null;
 
         if (entity.getRecipe() != null) {
             imagePath = entity.getRecipe().getImagePath();
             recipeId = entity.getRecipe().getId();
             sendToKitchen = entity.getRecipe().isSendToKitchen();
+            station = entity.getRecipe().getStation();
         }
 
         return OrderItemResponseDTO.builder()
@@ -46,6 +50,7 @@ public class OrderItemResponseDTO {
                 .recipeName(entity.getRecipeName())
                 .recipeImagePath(imagePath)
                 .sendToKitchen(sendToKitchen)
+                .station(station)
                 .quantity(entity.getQuantity())
                 .unitPrice(entity.getUnitPrice())
                 .itemTotal(entity.calculateItemTotal())
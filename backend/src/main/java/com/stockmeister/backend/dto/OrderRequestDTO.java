@@ -5,12 +5,14 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -37,4 +39,10 @@ public class OrderRequestDTO {
     private BigDecimal amountReceived;
 
     private String notes;
+
+    // Set by POS terminals; required for batch submission.
+    @Size(max = 100, message = "Client order id must be at most 100 characters")
+    private String clientOrderId;
+
+    private LocalDateTime clientCreatedAt;
 }
@@ -0,0 +1,38 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTicketDTO {
+
+    private String ticketId;
+    private Status status;
+    private Long orderId;
+    private List<StockShortage> shortages;
+    private String message;
+    private LocalDateTime queuedAt;
+    private LocalDateTime completedAt;
+
+    public boolean isDone() {
+        return status != Status.QUEUED;
+    }
+
+    public enum Status {
+        QUEUED,
+        CREATED,
+        DUPLICATE,
+        SHORTAGE,
+        INVALID,
+        FAILED
+    }
+}
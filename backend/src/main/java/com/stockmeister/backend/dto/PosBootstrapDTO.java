@@ -0,0 +1,29 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.model.RestaurantSettings;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything a POS terminal needs to start, in one response. Products
+ * carry no cost figures; unavailableProductIds lists the products that
+ * are out of stock ("86'd") when the bundle was built.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PosBootstrapDTO {
+
+    private long version;
+    private LocalDateTime generatedAt;
+    private RestaurantSettings settings;
+    private List<String> categories;
+    private List<RecipeDTO> products;
+    private List<Long> unavailableProductIds;
+}
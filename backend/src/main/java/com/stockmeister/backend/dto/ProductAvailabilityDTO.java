@@ -0,0 +1,21 @@
+package com.stockmeister.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAvailabilityDTO {
+
+    private Long recipeId;
+    private String name;
+    private int maxQuantity;
+
+    public boolean isAvailable() {
+        return maxQuantity > 0;
+    }
+}
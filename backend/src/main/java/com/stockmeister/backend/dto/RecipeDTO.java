@@ -1,5 +1,6 @@
 package com.stockmeister.backend.dto;
 
+import com.stockmeister.backend.model.KitchenStation;
 import com.stockmeister.backend.model.Recipe;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,6 +26,7 @@ public class RecipeDTO {
     private String imagePath;
     private String category;
     private boolean sendToKitchen;
+    private KitchenStation station;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -47,6 +49,7 @@ public class RecipeDTO {
                 .imagePath(entity.getImagePath())
                 .category(entity.getCategory())
                 .sendToKitchen(entity.isSendToKitchen())
+                .station(entity.getStation())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .ingredients(new ArrayList<>())
@@ -90,6 +93,7 @@ public class RecipeDTO {
                 .imagePath(entity.getImagePath())
                 .category(entity.getCategory())
                 .sendToKitchen(entity.isSendToKitchen())
+                .station(entity.getStation())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .ingredients(ingredientDTOs)
@@ -0,0 +1,24 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.model.KitchenStation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Open tickets of a station, oldest first. {@code version} goes up with
+ * every change and is passed back as {@code since} when long-polling.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationTicketsDTO {
+
+    private KitchenStation station;
+    private long version;
+    private List<KitchenTicketDTO> tickets;
+}
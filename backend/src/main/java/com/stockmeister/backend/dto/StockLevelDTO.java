@@ -0,0 +1,22 @@
+package com.stockmeister.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelDTO {
+
+    private Long ingredientId;
+    private String name;
+    private String unit;
+    private BigDecimal stock;
+    private LocalDateTime asOf;
+}
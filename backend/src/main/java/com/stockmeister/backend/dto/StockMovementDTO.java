@@ -0,0 +1,40 @@
+package com.stockmeister.backend.dto;
+
+import com.stockmeister.backend.model.StockMovement;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.util.StockAmount;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDTO {
+
+    private Long id;
+    private Long ingredientId;
+    private BigDecimal delta;
+    private StockMovementCause causeType;
+    private Long causeId;
+    private LocalDateTime createdAt;
+
+    public static StockMovementDTO fromEntity(StockMovement entity) {
+        if (entity == null)
+            return null;
+
+        return StockMovementDTO.builder()
+                .id(entity.getId())
+                .ingredientId(entity.getIngredientId())
+                .delta(StockAmount.toDecimal(entity.getDelta()))
+                .causeType(entity.getCauseType())
+                .causeId(entity.getCauseId())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.stockmeister.backend.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the asynchronous order intake queue has no free slot. Reported
+ * as 429 with a Retry-After hint.
+ */
+@Getter
+public class IntakeQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IntakeQueueFullException(int capacity, long retryAfterSeconds) {
+        super("Order intake queue is full (" + capacity + " orders waiting), retry in "
+                + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,377 @@
+package com.stockmeister.backend.journal;
+
+import com.stockmeister.backend.util.StockAmountMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of stock changes in memory-mapped segment files.
+ *
+ * Entries have a fixed size of {@value #ENTRY_SIZE} bytes:
+ * type (1), padding (3), CRC32 of the remaining bytes (4), transaction
+ * sequence (8), ingredient id (8), delta in milli-units (8). A segment is
+ * full after {@code segmentEntries} entries and the next one is created. An
+ * entry with type 0 or a bad checksum marks the end of the written part, so
+ * a torn write at crash time simply ends the journal.
+ *
+ * {@link #sync} makes everything appended up to a position durable. Callers
+ * that wait at the same time share one {@code force()} (group commit).
+ */
+public final class StockJournal implements Closeable {
+
+    public static final int ENTRY_SIZE = 32;
+
+    public static final byte DELTA = 1;
+    public static final byte COMMIT = 2;
+    public static final byte ABORT = 3;
+
+    private static final String SEGMENT_PREFIX = "stock-journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentEntries;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Segment> unforced = new ArrayList<>();
+    private Segment current;
+    private long position;
+
+    private final Object syncMonitor = new Object();
+    private boolean syncing;
+    private long durablePosition;
+
+    public StockJournal(Path directory, int segmentEntries) {
+        this.directory = directory;
+        this.segmentEntries = segmentEntries;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(StockJournal::isSegment).sorted().toList()) {
+                    Segment segment = Segment.open(file, segmentEntries);
+                    segments.add(segment);
+                    position += segment.entries;
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.add(Segment.open(segmentPath(0), segmentEntries));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open stock journal in " + directory, e);
+        }
+        current = segments.get(segments.size() - 1);
+        durablePosition = position;
+    }
+
+    /**
+     * Appends one entry and returns the position to pass to {@link #sync}.
+     */
+    public long append(byte type, long seq, long ingredientId, long delta) {
+        appendLock.lock();
+        try {
+            if (current.entries == segmentEntries) {
+                roll();
+            }
+            current.write(type, seq, ingredientId, delta);
+            if (unforced.isEmpty() || unforced.get(unforced.size() - 1) != current) {
+                unforced.add(current);
+            }
+            return ++position;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every entry up to {@code upTo} is on disk.
+     */
+    public void sync(long upTo) {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (syncing && durablePosition < upTo) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for stock journal sync", e);
+                    }
+                }
+                if (durablePosition >= upTo) {
+                    return;
+                }
+                syncing = true;
+            }
+
+            long target = 0;
+            try {
+                target = forceUnforced();
+            } finally {
+                synchronized (syncMonitor) {
+                    durablePosition = Math.max(durablePosition, target);
+                    syncing = false;
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads every valid entry from the oldest segment on.
+     */
+    public void replay(EntryConsumer consumer) {
+        appendLock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.forEach(consumer);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Sums up the deltas of all transactions after {@code checkpoint}: those
+     * with a COMMIT marker into {@link Recovery#getCommitted()}, those without
+     * any marker per transaction into {@link Recovery#getInDoubt()}. Aborted
+     * transactions are skipped.
+     */
+    public Recovery recover(long checkpoint) {
+        Map<Long, Boolean> outcomes = new HashMap<>();
+        long[] maxSeq = { checkpoint };
+        replay((type, seq, ingredientId, delta) -> {
+            maxSeq[0] = Math.max(maxSeq[0], seq);
+            if (seq > checkpoint && type != DELTA) {
+                outcomes.put(seq, type == COMMIT);
+            }
+        });
+
+        Recovery recovery = new Recovery();
+        replay((type, seq, ingredientId, delta) -> {
+            if (type != DELTA || seq <= checkpoint) {
+                return;
+            }
+            Boolean outcome = outcomes.get(seq);
+            if (outcome == null) {
+                recovery.inDoubt.computeIfAbsent(seq, key -> new StockAmountMap()).add(ingredientId, delta);
+            } else if (outcome) {
+                recovery.committed.add(ingredientId, delta);
+                recovery.replayed++;
+            }
+        });
+        recovery.maxSeq = maxSeq[0];
+        return recovery;
+    }
+
+    /**
+     * Deletes the closed segments whose entries all belong to transactions
+     * up to {@code seq}. The segment being written is kept.
+     */
+    public int deleteSegmentsUpTo(long seq) {
+        appendLock.lock();
+        try {
+            int deleted = 0;
+            while (segments.size() > 1 && segments.get(0).maxSeq <= seq && !unforced.contains(segments.get(0))) {
+                segments.remove(0).delete();
+                deleted++;
+            }
+            return deleted;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Drops all segments and starts an empty one, after their content has
+     * been checkpointed elsewhere.
+     */
+    public void reset() {
+        appendLock.lock();
+        try {
+            long nextIndex = current.index + 1;
+            for (Segment segment : segments) {
+                segment.delete();
+            }
+            segments.clear();
+            unforced.clear();
+            current = Segment.open(segmentPath(nextIndex), segmentEntries);
+            segments.add(current);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reset stock journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        appendLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        forceUnforced();
+    }
+
+    private long forceUnforced() {
+        List<Segment> toForce;
+        long target;
+        appendLock.lock();
+        try {
+            target = position;
+            toForce = new ArrayList<>(unforced);
+        } finally {
+            appendLock.unlock();
+        }
+
+        for (Segment segment : toForce) {
+            segment.buffer.force();
+        }
+
+        appendLock.lock();
+        try {
+            // Closed segments are complete once forced; the current one may
+            // have received entries during the force and stays listed.
+            unforced.removeIf(segment -> segment != current && toForce.contains(segment));
+        } finally {
+            appendLock.unlock();
+        }
+        return target;
+    }
+
+    private void roll() {
+        try {
+            current = Segment.open(segmentPath(current.index + 1), segmentEntries);
+            segments.add(current);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create stock journal segment", e);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    public static final class Recovery {
+        private final StockAmountMap committed = new StockAmountMap();
+        private final Map<Long, StockAmountMap> inDoubt = new HashMap<>();
+        private long maxSeq;
+        private long replayed;
+
+        public StockAmountMap getCommitted() {
+            return committed;
+        }
+
+        public Map<Long, StockAmountMap> getInDoubt() {
+            return inDoubt;
+        }
+
+        public long getMaxSeq() {
+            return maxSeq;
+        }
+
+        public long getReplayed() {
+            return replayed;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(byte type, long seq, long ingredientId, long delta);
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long index;
+        private final MappedByteBuffer buffer;
+        private int entries;
+        private long maxSeq;
+
+        private Segment(Path file, long index, MappedByteBuffer buffer) {
+            this.file = file;
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, int segmentEntries) throws IOException {
+            String name = file.getFileName().toString();
+            long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentEntries * ENTRY_SIZE);
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            Segment segment = new Segment(file, index, buffer);
+            segment.forEach((type, seq, ingredientId, delta) -> {
+                segment.entries++;
+                segment.maxSeq = Math.max(segment.maxSeq, seq);
+            });
+            return segment;
+        }
+
+        void write(byte type, long seq, long ingredientId, long delta) {
+            int offset = entries * ENTRY_SIZE;
+            buffer.putLong(offset + 8, seq);
+            buffer.putLong(offset + 16, ingredientId);
+            buffer.putLong(offset + 24, delta);
+            buffer.putInt(offset + 4, checksum(buffer, offset));
+            // The type byte is written last; a non-zero type means the entry is complete.
+            buffer.put(offset, type);
+            entries++;
+            maxSeq = Math.max(maxSeq, seq);
+        }
+
+        void forEach(EntryConsumer consumer) {
+            int capacity = buffer.capacity() / ENTRY_SIZE;
+            for (int i = 0; i < capacity; i++) {
+                int offset = i * ENTRY_SIZE;
+                byte type = buffer.get(offset);
+                if (type == 0 || buffer.getInt(offset + 4) != checksum(buffer, offset)) {
+                    return;
+                }
+                consumer.accept(type, buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                        buffer.getLong(offset + 24));
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete stock journal segment " + file, e);
+            }
+        }
+
+        private static int checksum(MappedByteBuffer buffer, int offset) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(offset + 8, ENTRY_SIZE - 8));
+            return (int) crc.getValue();
+        }
+    }
+}
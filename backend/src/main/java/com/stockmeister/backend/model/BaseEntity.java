@@ -1,11 +1,14 @@
 package com.stockmeister.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.stockmeister.backend.util.ChangeSequence;
 import jakarta.persistence.*;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @MappedSuperclass
 @Getter
@@ -24,14 +27,39 @@ public abstract class BaseEntity {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Sync watermark, see ChangeSequence. Null for rows not written
+    // through JPA since the column was added.
+    @JsonIgnore
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        createdAt = now();
+        updatedAt = createdAt;
+        changeSeq = ChangeSequence.next();
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = now();
+        changeSeq = ChangeSequence.next();
+    }
+
+    /**
+     * Current time at the precision the timestamp columns store, so the
+     * entity carries the same value as its row; keyset cursors built from
+     * it would otherwise land just after the row itself.
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Gives the entity a new change sequence even if none of its own columns
+     * changed, e.g. when only its child rows were replaced.
+     */
+    public void markChanged() {
+        changeSeq = ChangeSequence.next();
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A backend node taking part in cluster mode. Every node refreshes its own
+ * row on each heartbeat; rows that stop being refreshed drop out of the
+ * ownership ring.
+ */
+@Entity
+@Table(name = "cluster_nodes")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ClusterNode {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "base_url", nullable = false)
+    private String baseUrl;
+
+    @Column(name = "last_heartbeat", nullable = false)
+    private LocalDateTime lastHeartbeat;
+}
@@ -0,0 +1,41 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored response of a request made with an Idempotency-Key header. Written
+ * in the same transaction as the request's own changes, so a retry either
+ * finds the response or finds nothing was done.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "responseBody")
+public class IdempotencyRecord {
+
+    // Scope and client key, e.g. "order-pay:<key>"
+    @Id
+    @Column(name = "record_key", length = 200)
+    private String recordKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -4,13 +4,20 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 
+// Deliberately not in the second-level cache: current_stock is changed with
+// plain SQL on every order (IngredientStockRepository), so a cached copy
+// would serve stale stock.
 @Entity
-@Table(name = "ingredients")
+@Table(name = "ingredients", indexes = {
+        @Index(name = "idx_ingredients_change_seq", columnList = "change_seq")
+})
+@DynamicUpdate
 @Getter
 @Setter
 @Builder
@@ -32,6 +39,11 @@ public class Ingredient extends BaseEntity {
     @Column(name = "current_stock", precision = 10, scale = 3)
     private BigDecimal currentStock;
 
+    // Number of ingredient_stock_shards rows holding the stock; null when the
+    // stock lives in current_stock only. See StockShardService.
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+
     @Column(name = "minimum_stock", precision = 10, scale = 3)
     private BigDecimal minimumStock;
 
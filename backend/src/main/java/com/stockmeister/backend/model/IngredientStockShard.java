@@ -0,0 +1,36 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-counter of a sharded ingredient's stock. The stock of a sharded
+ * ingredient is the sum of its shards; {@code ingredients.current_stock} is a
+ * periodically folded copy of that sum.
+ */
+@Entity
+@Table(name = "ingredient_stock_shards", uniqueConstraints = @UniqueConstraint(name = "uk_ingredient_stock_shard", columnNames = {
+        "ingredient_id", "shard_index" }))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class IngredientStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ingredient_id", nullable = false)
+    private Long ingredientId;
+
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+
+    @Column(nullable = false, precision = 10, scale = 3)
+    private BigDecimal amount;
+}
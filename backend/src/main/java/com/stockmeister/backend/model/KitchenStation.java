@@ -0,0 +1,8 @@
+package com.stockmeister.backend.model;
+
+public enum KitchenStation {
+    GRILL,
+    FRYER,
+    COLD,
+    BAR
+}
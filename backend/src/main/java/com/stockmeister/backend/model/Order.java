@@ -4,20 +4,28 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_payment_created_id", columnList = "payment_method, created_at, id"),
+        @Index(name = "idx_orders_waiter_created_id", columnList = "waiter_id, created_at, id"),
+        @Index(name = "idx_orders_table_created_id", columnList = "table_number, created_at, id")
+})
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = "orderItems")
+@ToString(exclude = { "orderItems", "stockConsumption" })
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Order extends BaseEntity {
 
@@ -89,6 +97,20 @@ public class Order extends BaseEntity {
     @Column(length = 500)
     private String notes;
 
+    // Exact stock the order took when it was placed, packed with
+    // StockAmountMap.toBytes(). Null for orders placed before it existed.
+    @JsonIgnore
+    @Column(name = "stock_consumption")
+    private byte[] stockConsumption;
+
+    // Id and time assigned by the POS terminal, used to recognise orders
+    // that an offline terminal submits again.
+    @Column(name = "client_order_id", length = 100, unique = true)
+    private String clientOrderId;
+
+    @Column(name = "client_created_at")
+    private LocalDateTime clientCreatedAt;
+
     public void addOrderItem(OrderItem orderItem) {
         if (orderItem != null) {
             orderItems.add(orderItem);
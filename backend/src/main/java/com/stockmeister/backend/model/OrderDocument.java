@@ -0,0 +1,37 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The JSON response of a completed or cancelled order, rendered once when
+ * the order is finalized. Reads of the order serve these bytes instead of
+ * loading the order with its items, recipes and waiter.
+ */
+@Entity
+@Table(name = "order_documents")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "body")
+public class OrderDocument {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // UTF-8 JSON of the OrderResponseDTO
+    @Column(name = "body", nullable = false)
+    private byte[] body;
+
+    // Strong ETag of the body, including quotes
+    @Column(name = "etag", nullable = false, length = 48)
+    private String etag;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,6 +1,8 @@
 package com.stockmeister.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -11,7 +13,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "recipes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipes")
+@Table(name = "recipes", indexes = {
+        @Index(name = "idx_recipes_change_seq", columnList = "change_seq")
+})
 @Getter
 @Setter
 @Builder
@@ -44,7 +50,14 @@ public class Recipe extends BaseEntity {
     @Builder.Default
     private boolean sendToKitchen = true;
 
+    // Station whose display gets this recipe's items. Kitchen items without
+    // one go to app.kitchen.default-station.
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private KitchenStation station;
+
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipes.ingredients")
     @Builder.Default
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "recipe" })
     private List<RecipeIngredient> ingredients = new ArrayList<>();
@@ -3,6 +3,8 @@ package com.stockmeister.backend.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
@@ -10,6 +12,8 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe_ingredients")
 @Table(name = "recipe_ingredients", uniqueConstraints = @UniqueConstraint(name = "uk_recipe_ingredient", columnNames = {
         "recipe_id", "ingredient_id" }))
 @Getter
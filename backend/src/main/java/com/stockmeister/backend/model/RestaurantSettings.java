@@ -1,9 +1,13 @@
 package com.stockmeister.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurant_settings")
 @Table(name = "restaurant_settings")
 @Getter
 @Setter
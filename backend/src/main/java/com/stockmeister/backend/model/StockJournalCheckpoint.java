@@ -0,0 +1,32 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last journal transaction whose stock changes have been written to the
+ * ingredients table. Updated in the same transaction as those changes, so
+ * replay after a crash starts exactly after it.
+ */
+@Entity
+@Table(name = "stock_journal_checkpoints")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockJournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_id", length = 100)
+    private String journalId;
+
+    @Column(name = "applied_seq", nullable = false)
+    private long appliedSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only stock ledger. The delta is signed and stored
+ * in milli-units; the cause id points at the order, waste record or recipe
+ * that caused the change, if any. Rows are never updated or deleted.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movement_ingredient_id", columnList = "ingredient_id, id"),
+        @Index(name = "idx_stock_movement_ingredient_time", columnList = "ingredient_id, created_at"),
+        @Index(name = "idx_stock_movement_time", columnList = "created_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ingredient_id", nullable = false)
+    private Long ingredientId;
+
+    @Column(nullable = false)
+    private long delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cause_type", nullable = false, length = 30)
+    private StockMovementCause causeType;
+
+    @Column(name = "cause_id")
+    private Long causeId;
+
+    // Set when the change went through the stock journal; lets replay tell
+    // whether a transaction without an outcome marker was committed.
+    @Column(name = "journal_seq")
+    private Long journalSeq;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
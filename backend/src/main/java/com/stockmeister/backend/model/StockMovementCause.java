@@ -0,0 +1,12 @@
+package com.stockmeister.backend.model;
+
+public enum StockMovementCause {
+    OPENING_BALANCE,
+    RECIPE_SALE,
+    ORDER_PAYMENT,
+    ORDER_CANCELLED,
+    WASTE,
+    WASTE_DELETED,
+    ADJUSTMENT,
+    STOCK_COUNT
+}
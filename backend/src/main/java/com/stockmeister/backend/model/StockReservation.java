@@ -0,0 +1,41 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock set aside for an order that has not been paid yet. One row per order
+ * and ingredient; the amount is stored in milli-units. Rows are removed when
+ * the order is completed (turned into a deduction), cancelled or expires.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservation_order", columnList = "order_id"),
+        @Index(name = "idx_stock_reservation_ingredient", columnList = "ingredient_id")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "ingredient_id", nullable = false)
+    private Long ingredientId;
+
+    @Column(nullable = false)
+    private long amount;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,37 @@
+package com.stockmeister.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock level of one ingredient including every movement created before
+ * {@code asOf}, in milli-units. Point-in-time queries start from the nearest
+ * snapshot and only replay the movements after it.
+ */
+@Entity
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshot_ingredient_time", columnList = "ingredient_id, as_of")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ingredient_id", nullable = false)
+    private Long ingredientId;
+
+    @Column(nullable = false)
+    private long level;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+}
@@ -0,0 +1,14 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    List<ClusterNode> findByLastHeartbeatAfterOrderByNodeId(LocalDateTime since);
+}
@@ -1,6 +1,7 @@
 package com.stockmeister.backend.repository;
 
 import com.stockmeister.backend.model.Ingredient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,7 +12,8 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
+public interface IngredientRepository extends JpaRepository<Ingredient, Long>, IngredientStockRepository,
+        IngredientShardRepository {
 
        Optional<Ingredient> findByNameIgnoreCase(String name);
 
@@ -42,4 +44,11 @@ public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
        List<Ingredient> findByCategoryAndIsActiveTrue(String category);
 
        List<Ingredient> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
+
+       List<Ingredient> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+       @Query("SELECT i FROM Ingredient i " +
+                     "WHERE i.changeSeq > :since AND i.changeSeq < :until " +
+                     "ORDER BY i.changeSeq")
+       List<Ingredient> findChanged(@Param("since") long since, @Param("until") long until, Pageable pageable);
 }
\ No newline at end of file
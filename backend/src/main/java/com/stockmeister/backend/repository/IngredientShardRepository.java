@@ -0,0 +1,45 @@
+package com.stockmeister.backend.repository;
+
+import java.util.Map;
+
+/**
+ * JDBC access to ingredient_stock_shards. All amounts are milli-units.
+ */
+public interface IngredientShardRepository {
+
+    /**
+     * Shard count per sharded ingredient.
+     */
+    Map<Long, Integer> findShardCounts();
+
+    /**
+     * Takes the amount from one shard if that shard alone holds enough.
+     */
+    boolean deductFromShard(long ingredientId, int shardIndex, long amount);
+
+    /**
+     * Locks all shards of the ingredient and takes the amount starting at
+     * {@code preferredShard}, borrowing from its siblings. Without
+     * {@code floorAtZero} nothing is changed and false is returned when the
+     * shards together hold less than the amount.
+     */
+    boolean deductAcrossShards(long ingredientId, int preferredShard, long amount, boolean floorAtZero);
+
+    boolean addToShard(long ingredientId, int shardIndex, long amount);
+
+    /**
+     * Replaces the ingredient's shards with {@code shardCount} rows that
+     * together hold {@code level}, or the current level when it is null.
+     */
+    void splitIntoShards(long ingredientId, int shardCount, Long level);
+
+    /**
+     * Moves the sum of the shards back into current_stock and drops them.
+     */
+    void mergeShards(long ingredientId);
+
+    /**
+     * Copies the shard sums into current_stock of every sharded ingredient.
+     */
+    int foldShardedStock();
+}
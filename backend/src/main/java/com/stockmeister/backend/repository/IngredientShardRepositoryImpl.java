@@ -0,0 +1,159 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.util.StockAmount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class IngredientShardRepositoryImpl implements IngredientShardRepository {
+
+    private static final String DEDUCT_SHARD_SQL = "UPDATE ingredient_stock_shards " +
+            "SET amount = amount - ? " +
+            "WHERE ingredient_id = ? AND shard_index = ? AND amount >= ?";
+
+    private static final String ADD_SHARD_SQL = "UPDATE ingredient_stock_shards " +
+            "SET amount = amount + ? " +
+            "WHERE ingredient_id = ? AND shard_index = ?";
+
+    private static final String SET_SHARD_SQL = "UPDATE ingredient_stock_shards " +
+            "SET amount = ? " +
+            "WHERE ingredient_id = ? AND shard_index = ?";
+
+    private static final String LOCK_SHARDS_SQL = "SELECT shard_index, amount FROM ingredient_stock_shards " +
+            "WHERE ingredient_id = ? ORDER BY shard_index FOR UPDATE";
+
+    private static final String FOLD_SQL = "UPDATE ingredients " +
+            "SET current_stock = (SELECT COALESCE(SUM(s.amount), 0) FROM ingredient_stock_shards s " +
+            "WHERE s.ingredient_id = ingredients.id) " +
+            "WHERE stock_shards IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, Integer> findShardCounts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_shards FROM ingredients WHERE stock_shards IS NOT NULL",
+                rs -> {
+                    counts.put(rs.getLong("id"), rs.getInt("stock_shards"));
+                });
+        return counts;
+    }
+
+    @Override
+    public boolean deductFromShard(long ingredientId, int shardIndex, long amount) {
+        return jdbcTemplate.update(DEDUCT_SHARD_SQL,
+                StockAmount.toDecimal(amount), ingredientId, shardIndex, StockAmount.toDecimal(amount)) > 0;
+    }
+
+    @Override
+    public boolean deductAcrossShards(long ingredientId, int preferredShard, long amount, boolean floorAtZero) {
+        List<long[]> shards = lockShards(ingredientId);
+        if (shards.isEmpty()) {
+            return false;
+        }
+
+        long total = 0;
+        for (long[] shard : shards) {
+            total += shard[1];
+        }
+        if (total < amount && !floorAtZero) {
+            return false;
+        }
+
+        long remaining = amount;
+        int start = Math.floorMod(preferredShard, shards.size());
+        List<Object[]> updates = new ArrayList<>();
+
+        for (int n = 0; n < shards.size() && remaining > 0; n++) {
+            long[] shard = shards.get((start + n) % shards.size());
+            long taken = Math.min(remaining, Math.max(shard[1], 0));
+            if (taken > 0) {
+                remaining -= taken;
+                updates.add(new Object[] { StockAmount.toDecimal(shard[1] - taken), ingredientId, (int) shard[0] });
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_SHARD_SQL, updates);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addToShard(long ingredientId, int shardIndex, long amount) {
+        return jdbcTemplate.update(ADD_SHARD_SQL, StockAmount.toDecimal(amount), ingredientId, shardIndex) > 0;
+    }
+
+    @Override
+    public void splitIntoShards(long ingredientId, int shardCount, Long level) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Marking the row first takes its lock, so plain deductions still in
+        // flight finish before the level is read and later ones are refused.
+        jdbcTemplate.update("UPDATE ingredients SET stock_shards = ?, updated_at = ? WHERE id = ?",
+                shardCount, now, ingredientId);
+        long total = level != null ? level : lockedLevel(ingredientId);
+
+        jdbcTemplate.update("DELETE FROM ingredient_stock_shards WHERE ingredient_id = ?", ingredientId);
+
+        long share = total / shardCount;
+        List<Object[]> rows = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            long amount = i == 0 ? total - share * (shardCount - 1) : share;
+            rows.add(new Object[] { ingredientId, i, StockAmount.toDecimal(amount) });
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO ingredient_stock_shards (ingredient_id, shard_index, amount) VALUES (?, ?, ?)",
+                rows);
+
+        jdbcTemplate.update("UPDATE ingredients SET current_stock = ? WHERE id = ?",
+                StockAmount.toDecimal(total), ingredientId);
+    }
+
+    @Override
+    public void mergeShards(long ingredientId) {
+        long total = lockedLevel(ingredientId);
+
+        jdbcTemplate.update("UPDATE ingredients SET current_stock = ?, stock_shards = NULL, updated_at = ? WHERE id = ?",
+                StockAmount.toDecimal(total), Timestamp.valueOf(LocalDateTime.now()), ingredientId);
+        jdbcTemplate.update("DELETE FROM ingredient_stock_shards WHERE ingredient_id = ?", ingredientId);
+    }
+
+    @Override
+    public int foldShardedStock() {
+        return jdbcTemplate.update(FOLD_SQL);
+    }
+
+    // Shard sum with all shards locked, or current_stock if there are none.
+    private long lockedLevel(long ingredientId) {
+        List<long[]> shards = lockShards(ingredientId);
+        if (shards.isEmpty()) {
+            BigDecimal stock = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(current_stock, 0) FROM ingredients WHERE id = ?", BigDecimal.class, ingredientId);
+            return StockAmount.toMillis(stock);
+        }
+
+        long total = 0;
+        for (long[] shard : shards) {
+            total += shard[1];
+        }
+        return total;
+    }
+
+    // Rows of [shard_index, amount in milli-units], locked in index order.
+    private List<long[]> lockShards(long ingredientId) {
+        return jdbcTemplate.query(LOCK_SHARDS_SQL,
+                (rs, rowNum) -> new long[] {
+                        rs.getInt("shard_index"),
+                        StockAmount.toMillis(rs.getBigDecimal("amount")) },
+                ingredientId);
+    }
+}
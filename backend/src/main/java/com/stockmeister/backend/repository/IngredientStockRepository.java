@@ -0,0 +1,40 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.util.StockAmountMap;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IngredientStockRepository {
+
+    /**
+     * Applies all deductions in one JDBC batch. Each row is only updated while
+     * it still holds enough stock; the ids of rows that were not updated are
+     * returned. Like the other updates here, rows of sharded ingredients are
+     * skipped and reported as not updated.
+     */
+    List<Long> deductStock(StockAmountMap amounts);
+
+    List<Long> restoreStock(StockAmountMap amounts);
+
+    /**
+     * Deducts stock that was already set aside by a reservation. The level is
+     * floored at zero instead of rejecting the row, because a manual
+     * correction may have lowered it after the reservation was taken.
+     */
+    List<Long> consumeStock(StockAmountMap amounts);
+
+    /**
+     * Current level per ingredient; the shard sum for sharded ingredients.
+     */
+    Map<Long, BigDecimal> findCurrentStock(Collection<Long> ids);
+
+    /**
+     * Locks the ingredient row until the transaction ends and returns its
+     * level as stored in the database, before any pending entity changes are
+     * flushed.
+     */
+    BigDecimal lockCurrentStock(Long id);
+}
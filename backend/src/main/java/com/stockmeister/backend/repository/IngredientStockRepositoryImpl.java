@@ -0,0 +1,139 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class IngredientStockRepositoryImpl implements IngredientStockRepository {
+
+    private static final String DEDUCT_SQL = "UPDATE ingredients " +
+            "SET current_stock = current_stock - ?, updated_at = ? " +
+            "WHERE id = ? AND current_stock >= ? AND stock_shards IS NULL";
+
+    private static final String RESTORE_SQL = "UPDATE ingredients " +
+            "SET current_stock = COALESCE(current_stock, 0) + ?, updated_at = ? " +
+            "WHERE id = ? AND stock_shards IS NULL";
+
+    private static final String CONSUME_SQL = "UPDATE ingredients " +
+            "SET current_stock = GREATEST(COALESCE(current_stock, 0) - ?, 0), updated_at = ? " +
+            "WHERE id = ? AND stock_shards IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public List<Long> deductStock(StockAmountMap amounts) {
+        if (amounts.isEmpty()) {
+            return List.of();
+        }
+
+        // Rows are always touched in ascending id order so concurrent batches
+        // lock them in the same order and cannot deadlock each other.
+        long[] ids = amounts.sortedKeys();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] counts = jdbcTemplate.batchUpdate(DEDUCT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                BigDecimal amount = StockAmount.toDecimal(amounts.get(ids[i]));
+                ps.setBigDecimal(1, amount);
+                ps.setTimestamp(2, now);
+                ps.setLong(3, ids[i]);
+                ps.setBigDecimal(4, amount);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.length;
+            }
+        });
+
+        return failedIds(ids, counts);
+    }
+
+    @Override
+    public List<Long> restoreStock(StockAmountMap amounts) {
+        return applyRelative(RESTORE_SQL, amounts);
+    }
+
+    @Override
+    public List<Long> consumeStock(StockAmountMap amounts) {
+        return applyRelative(CONSUME_SQL, amounts);
+    }
+
+    @Override
+    public Map<Long, BigDecimal> findCurrentStock(Collection<Long> ids) {
+        Map<Long, BigDecimal> stock = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stock;
+        }
+
+        namedParameterJdbcTemplate.query(
+                "SELECT i.id, COALESCE((SELECT SUM(s.amount) FROM ingredient_stock_shards s " +
+                        "WHERE s.ingredient_id = i.id), i.current_stock, 0) AS current_stock " +
+                        "FROM ingredients i WHERE i.id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    stock.put(rs.getLong("id"), rs.getBigDecimal("current_stock"));
+                });
+        return stock;
+    }
+
+    @Override
+    public BigDecimal lockCurrentStock(Long id) {
+        jdbcTemplate.query("SELECT id FROM ingredients WHERE id = ? FOR UPDATE", rs -> {
+        }, id);
+        return findCurrentStock(List.of(id)).getOrDefault(id, BigDecimal.ZERO);
+    }
+
+    private List<Long> applyRelative(String sql, StockAmountMap amounts) {
+        if (amounts.isEmpty()) {
+            return List.of();
+        }
+
+        long[] ids = amounts.sortedKeys();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setBigDecimal(1, StockAmount.toDecimal(amounts.get(ids[i])));
+                ps.setTimestamp(2, now);
+                ps.setLong(3, ids[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.length;
+            }
+        });
+
+        return failedIds(ids, counts);
+    }
+
+    private static List<Long> failedIds(long[] ids, int[] counts) {
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                failed.add(ids[i]);
+            }
+        }
+        return failed;
+    }
+}
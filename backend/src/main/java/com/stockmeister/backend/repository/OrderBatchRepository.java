@@ -0,0 +1,14 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.Order;
+
+import java.util.List;
+
+public interface OrderBatchRepository {
+
+    /**
+     * Inserts new orders and their items with JDBC batching and assigns the
+     * generated ids to the given entities. The entities stay detached.
+     */
+    void insertBatch(List<Order> orders);
+}
@@ -0,0 +1,122 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.BaseEntity;
+import com.stockmeister.backend.model.Order;
+import com.stockmeister.backend.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class OrderBatchRepositoryImpl implements OrderBatchRepository {
+
+    private static final String INSERT_ORDER_SQL = "INSERT INTO orders " +
+            "(table_number, customer_name, status, subtotal, tax_rate, tax_amount, tip, total_amount, " +
+            "payment_method, amount_received, change_amount, waiter_id, notes, stock_consumption, " +
+            "client_order_id, client_created_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM_SQL = "INSERT INTO order_items " +
+            "(order_id, recipe_id, recipe_name, quantity, unit_price, item_notes, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = BaseEntity.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_ORDER_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setString(1, order.getTableNumber());
+                        ps.setString(2, order.getCustomerName());
+                        ps.setString(3, order.getStatus().name());
+                        ps.setBigDecimal(4, order.getSubtotal());
+                        ps.setBigDecimal(5, order.getTaxRate());
+                        ps.setBigDecimal(6, order.getTaxAmount());
+                        ps.setBigDecimal(7, order.getTip());
+                        ps.setBigDecimal(8, order.getTotalAmount());
+                        ps.setString(9, order.getPaymentMethod() != null ? order.getPaymentMethod().name() : null);
+                        setDecimal(ps, 10, order.getAmountReceived());
+                        setDecimal(ps, 11, order.getChangeAmount());
+                        ps.setLong(12, order.getWaiter().getId());
+                        ps.setString(13, order.getNotes());
+                        ps.setBytes(14, order.getStockConsumption());
+                        ps.setString(15, order.getClientOrderId());
+                        if (order.getClientCreatedAt() != null) {
+                            ps.setTimestamp(16, Timestamp.valueOf(order.getClientCreatedAt()));
+                        } else {
+                            ps.setNull(16, Types.TIMESTAMP);
+                        }
+                        ps.setTimestamp(17, timestamp);
+                        ps.setTimestamp(18, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            order.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
+            items.addAll(order.getOrderItems());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderItem item = items.get(i);
+                ps.setLong(1, item.getOrder().getId());
+                ps.setLong(2, item.getRecipe().getId());
+                ps.setString(3, item.getRecipeName());
+                ps.setInt(4, item.getQuantity());
+                ps.setBigDecimal(5, item.getUnitPrice());
+                ps.setString(6, item.getItemNotes());
+                ps.setTimestamp(7, timestamp);
+                ps.setTimestamp(8, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    private static void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value != null) {
+            ps.setBigDecimal(index, value);
+        } else {
+            ps.setNull(index, Types.NUMERIC);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.OrderDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderDocumentRepository extends JpaRepository<OrderDocument, Long> {
+
+    List<OrderDocument> findAllByOrderIdIn(Collection<Long> orderIds);
+}
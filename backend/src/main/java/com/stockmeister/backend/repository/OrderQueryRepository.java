@@ -0,0 +1,16 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.dto.OrderFilter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderQueryRepository {
+
+    /**
+     * Ids of the newest orders matching the filter, ordered by
+     * {@code (createdAt, id)} descending and starting strictly after the
+     * given cursor position (no cursor for the first page).
+     */
+    List<Long> findPageIds(OrderFilter filter, LocalDateTime beforeCreatedAt, Long beforeId, int limit);
+}
@@ -0,0 +1,68 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.dto.OrderFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OrderQueryRepositoryImpl implements OrderQueryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The row comparison on (created_at, id) lets the database walk the
+    // matching composite index backwards from the cursor and stop after
+    // the limit, however deep the page is.
+    @Override
+    public List<Long> findPageIds(OrderFilter filter, LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT o.id FROM orders o WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+
+        if (filter.getStatus() != null) {
+            sql.append(" AND o.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getPaymentMethod() != null) {
+            sql.append(" AND o.payment_method = ?");
+            args.add(filter.getPaymentMethod().name());
+        }
+        if (filter.getWaiterId() != null) {
+            sql.append(" AND o.waiter_id = ?");
+            args.add(filter.getWaiterId());
+        }
+        if (filter.getTableNumber() != null && !filter.getTableNumber().isBlank()) {
+            sql.append(" AND o.table_number = ?");
+            args.add(filter.getTableNumber());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        if (filter.getCustomerName() != null && !filter.getCustomerName().isBlank()) {
+            sql.append(" AND LOWER(o.customer_name) LIKE ? ESCAPE '!'");
+            args.add("%" + escapeLike(filter.getCustomerName().toLowerCase()) + "%");
+        }
+        if (beforeCreatedAt != null && beforeId != null) {
+            sql.append(" AND (o.created_at, o.id) < (?, ?)");
+            args.add(Timestamp.valueOf(beforeCreatedAt));
+            args.add(beforeId);
+        }
+
+        sql.append(" ORDER BY o.created_at DESC, o.id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
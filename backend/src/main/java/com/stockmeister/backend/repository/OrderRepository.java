@@ -3,18 +3,22 @@ package com.stockmeister.backend.repository;
 import com.stockmeister.backend.model.Order;
 import com.stockmeister.backend.model.OrderStatus;
 import com.stockmeister.backend.model.PaymentMethod;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderBatchRepository,
+              OrderQueryRepository {
 
        List<Order> findByTableNumber(String tableNumber);
 
@@ -34,6 +38,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                      "WHERE o.id = :id")
        Optional<Order> findByIdWithItems(@Param("id") Long id);
 
+       /**
+        * Locks the order row until the transaction ends. Status changes that
+        * settle the order's stock take this lock first, so they never run
+        * against a status another transaction is about to change.
+        */
+       @Lock(LockModeType.PESSIMISTIC_WRITE)
+       @Query("SELECT o FROM Order o WHERE o.id = :id")
+       Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
        @Query("SELECT DISTINCT o FROM Order o " +
                      "LEFT JOIN FETCH o.orderItems oi " +
                      "LEFT JOIN FETCH oi.recipe " +
@@ -76,4 +89,19 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                      "WHERE o.status NOT IN ('COMPLETED', 'CANCELLED') " +
                      "ORDER BY o.createdAt ASC")
        List<Order> findActiveOrdersWithItems();
+
+       @Query("SELECT DISTINCT o FROM Order o " +
+                     "LEFT JOIN FETCH o.orderItems oi " +
+                     "LEFT JOIN FETCH oi.recipe " +
+                     "LEFT JOIN FETCH o.waiter " +
+                     "WHERE o.id IN :ids")
+       List<Order> findAllByIdInWithItems(@Param("ids") Collection<Long> ids);
+
+       /**
+        * Orders already placed under the given client ids as {@code [clientOrderId, id]}.
+        */
+       @Query("SELECT o.clientOrderId, o.id FROM Order o WHERE o.clientOrderId IN :clientOrderIds")
+       List<Object[]> findIdsByClientOrderIds(@Param("clientOrderIds") Collection<String> clientOrderIds);
+
+       boolean existsByClientOrderId(String clientOrderId);
 }
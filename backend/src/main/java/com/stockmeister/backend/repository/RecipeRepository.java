@@ -1,11 +1,16 @@
 package com.stockmeister.backend.repository;
 
 import com.stockmeister.backend.model.Recipe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,7 +37,23 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
                      "WHERE r.isActive = true")
        List<Recipe> findAllWithIngredients();
 
+       @Query("SELECT DISTINCT r " +
+                     "FROM Recipe r " +
+                     "LEFT JOIN FETCH r.ingredients ri " +
+                     "LEFT JOIN FETCH ri.ingredient " +
+                     "WHERE r.id IN :ids")
+       List<Recipe> findAllByIdWithIngredients(@Param("ids") Collection<Long> ids);
+
+       @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
        List<Recipe> findAllByIsActiveTrue();
 
+       @Query("SELECT r FROM Recipe r " +
+                     "WHERE r.changeSeq > :since AND r.changeSeq < :until " +
+                     "ORDER BY r.changeSeq")
+       List<Recipe> findChanged(@Param("since") long since, @Param("until") long until, Pageable pageable);
+
+       @Query("SELECT MAX(r.changeSeq) FROM Recipe r")
+       Long findMaxChangeSeq();
+
        List<Recipe> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
 }
\ No newline at end of file
@@ -1,9 +1,21 @@
 package com.stockmeister.backend.repository;
 
 import com.stockmeister.backend.model.RestaurantSettings;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface RestaurantSettingsRepository extends JpaRepository<RestaurantSettings, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<RestaurantSettings> findFirstByOrderByIdAsc();
+
+    @Query("SELECT MAX(s.changeSeq) FROM RestaurantSettings s")
+    Long findMaxChangeSeq();
 }
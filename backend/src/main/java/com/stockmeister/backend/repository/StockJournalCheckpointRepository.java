@@ -0,0 +1,9 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.StockJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockJournalCheckpointRepository extends JpaRepository<StockJournalCheckpoint, String> {
+}
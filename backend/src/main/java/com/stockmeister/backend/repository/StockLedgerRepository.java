@@ -0,0 +1,38 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.util.StockAmountMap;
+
+import java.time.LocalDateTime;
+
+public interface StockLedgerRepository {
+
+    /**
+     * Appends one movement per ingredient in a single JDBC batch; each delta
+     * is the amount multiplied by {@code sign}.
+     */
+    void appendMovements(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId,
+            Long journalSeq);
+
+    default void appendMovements(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId) {
+        appendMovements(amounts, sign, cause, causeId, null);
+    }
+
+    /**
+     * Writes an opening balance for every ingredient that has no movement
+     * yet, so the ledger sums up to the current level. Returns the row count.
+     */
+    int insertOpeningBalances();
+
+    /**
+     * Snapshots every ingredient that had movements since the previous
+     * snapshot run, up to (excluding) {@code cutoff}. Returns the row count.
+     */
+    int takeSnapshots(LocalDateTime cutoff);
+
+    /**
+     * Level of the ingredient after all movements created at or before
+     * {@code timestamp}, in milli-units.
+     */
+    long findLevelAt(long ingredientId, LocalDateTime timestamp);
+}
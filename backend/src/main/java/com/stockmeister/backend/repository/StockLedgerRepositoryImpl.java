@@ -0,0 +1,150 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StockLedgerRepositoryImpl implements StockLedgerRepository {
+
+    private static final String INSERT_MOVEMENT_SQL = "INSERT INTO stock_movements " +
+            "(ingredient_id, delta, cause_type, cause_id, journal_seq, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String OPENING_BALANCE_SQL = "INSERT INTO stock_movements " +
+            "(ingredient_id, delta, cause_type, cause_id, created_at) " +
+            "SELECT i.id, CAST(ROUND(COALESCE((SELECT SUM(s.amount) FROM ingredient_stock_shards s " +
+            "WHERE s.ingredient_id = i.id), i.current_stock, 0) * 1000) AS BIGINT), ?, NULL, ? " +
+            "FROM ingredients i " +
+            "WHERE NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.ingredient_id = i.id)";
+
+    private static final String LATEST_SNAPSHOTS_SQL = "SELECT s.ingredient_id, s.level FROM stock_snapshots s " +
+            "WHERE s.as_of = (SELECT MAX(s2.as_of) FROM stock_snapshots s2 " +
+            "WHERE s2.ingredient_id = s.ingredient_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendMovements(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId,
+            Long journalSeq) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+
+        long[] ids = amounts.sortedKeys();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids[i]);
+                ps.setLong(2, sign * amounts.get(ids[i]));
+                ps.setString(3, cause.name());
+                if (causeId != null) {
+                    ps.setLong(4, causeId);
+                } else {
+                    ps.setNull(4, Types.BIGINT);
+                }
+                if (journalSeq != null) {
+                    ps.setLong(5, journalSeq);
+                } else {
+                    ps.setNull(5, Types.BIGINT);
+                }
+                ps.setTimestamp(6, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.length;
+            }
+        });
+    }
+
+    @Override
+    public int insertOpeningBalances() {
+        return jdbcTemplate.update(OPENING_BALANCE_SQL,
+                StockMovementCause.OPENING_BALANCE.name(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Override
+    public int takeSnapshots(LocalDateTime cutoff) {
+        // Every earlier run covered all movements before its own cutoff, so
+        // the latest snapshot of an ingredient plus the movements since the
+        // previous run's cutoff gives its level at the new cutoff.
+        Timestamp previous = jdbcTemplate.queryForObject(
+                "SELECT MAX(as_of) FROM stock_snapshots", Timestamp.class);
+        Timestamp from = previous != null ? previous : new Timestamp(0L);
+        Timestamp until = Timestamp.valueOf(cutoff);
+        if (!from.before(until)) {
+            return 0;
+        }
+
+        Map<Long, Long> levels = new HashMap<>();
+        jdbcTemplate.query(LATEST_SNAPSHOTS_SQL, rs -> {
+            levels.put(rs.getLong(1), rs.getLong(2));
+        });
+
+        List<long[]> snapshots = new ArrayList<>();
+        jdbcTemplate.query("SELECT ingredient_id, SUM(delta) FROM stock_movements " +
+                "WHERE created_at >= ? AND created_at < ? GROUP BY ingredient_id",
+                rs -> {
+                    long ingredientId = rs.getLong(1);
+                    snapshots.add(new long[] { ingredientId, levels.getOrDefault(ingredientId, 0L) + rs.getLong(2) });
+                }, from, until);
+
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO stock_snapshots (ingredient_id, level, as_of) VALUES (?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, snapshots.get(i)[0]);
+                        ps.setLong(2, snapshots.get(i)[1]);
+                        ps.setTimestamp(3, until);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return snapshots.size();
+                    }
+                });
+        return snapshots.size();
+    }
+
+    @Override
+    public long findLevelAt(long ingredientId, LocalDateTime timestamp) {
+        Timestamp at = Timestamp.valueOf(timestamp);
+
+        List<Object[]> snapshot = jdbcTemplate.query(
+                "SELECT level, as_of FROM stock_snapshots WHERE ingredient_id = ? AND as_of <= ? " +
+                        "ORDER BY as_of DESC LIMIT 1",
+                (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getTimestamp(2) },
+                ingredientId, at);
+
+        long level = 0L;
+        Timestamp from = new Timestamp(0L);
+        if (!snapshot.isEmpty()) {
+            level = (Long) snapshot.get(0)[0];
+            from = (Timestamp) snapshot.get(0)[1];
+        }
+
+        Long replayed = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(delta), 0) FROM stock_movements " +
+                        "WHERE ingredient_id = ? AND created_at >= ? AND created_at <= ?",
+                Long.class, ingredientId, from, at);
+        return level + (replayed != null ? replayed : 0L);
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockLedgerRepository {
+
+    List<StockMovement> findByIngredientIdOrderByIdDesc(Long ingredientId, Pageable pageable);
+
+    List<StockMovement> findByIngredientIdAndIdLessThanOrderByIdDesc(Long ingredientId, Long beforeId,
+            Pageable pageable);
+
+    @Query("SELECT DISTINCT m.journalSeq FROM StockMovement m WHERE m.journalSeq IN :seqs")
+    List<Long> findJournalSeqsIn(@Param("seqs") Collection<Long> seqs);
+}
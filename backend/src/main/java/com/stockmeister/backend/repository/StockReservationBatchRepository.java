@@ -0,0 +1,14 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.util.StockAmountMap;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface StockReservationBatchRepository {
+
+    /**
+     * Inserts the reservation rows of several orders in a single JDBC batch.
+     */
+    void insertBatch(Map<Long, StockAmountMap> amountsByOrder, LocalDateTime expiresAt);
+}
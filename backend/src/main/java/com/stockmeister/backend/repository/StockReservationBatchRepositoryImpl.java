@@ -0,0 +1,32 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StockReservationBatchRepositoryImpl implements StockReservationBatchRepository {
+
+    private static final String INSERT_RESERVATION_SQL = "INSERT INTO stock_reservations " +
+            "(order_id, ingredient_id, amount, expires_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(Map<Long, StockAmountMap> amountsByOrder, LocalDateTime expiresAt) {
+        Timestamp expiry = Timestamp.valueOf(expiresAt);
+        List<Object[]> rows = new ArrayList<>();
+        amountsByOrder.forEach((orderId, amounts) -> amounts.forEach((ingredientId, millis) ->
+                rows.add(new Object[] { orderId, ingredientId, millis, expiry })));
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_RESERVATION_SQL, rows);
+        }
+    }
+}
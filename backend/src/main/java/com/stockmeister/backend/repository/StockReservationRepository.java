@@ -0,0 +1,43 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long>,
+        StockReservationBatchRepository {
+
+    List<StockReservation> findByOrderId(Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.expiresAt = :expiresAt WHERE r.orderId = :orderId")
+    int updateExpiresAt(@Param("orderId") Long orderId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Outstanding reservations per ingredient as {@code [ingredientId, sum]}.
+     */
+    @Query("SELECT r.ingredientId, SUM(r.amount) FROM StockReservation r GROUP BY r.ingredientId")
+    List<Object[]> sumAmountsByIngredient();
+
+    @Query("SELECT r.ingredientId, SUM(r.amount) FROM StockReservation r " +
+            "WHERE r.ingredientId IN :ids GROUP BY r.ingredientId")
+    List<Object[]> sumAmountsByIngredient(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Earliest expiry per order as {@code [orderId, expiresAt]}.
+     */
+    @Query("SELECT r.orderId, MIN(r.expiresAt) FROM StockReservation r GROUP BY r.orderId")
+    List<Object[]> findExpiryPerOrder();
+}
@@ -1,5 +1,6 @@
 package com.stockmeister.backend.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,8 +38,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt;
         final String username;
 
-        log.info("JWT Filter - Request: {} {}", request.getMethod(), request.getRequestURI());
-        log.info("JWT Filter - Auth Header: {}",
+        log.debug("JWT Filter - Request: {} {}", request.getMethod(), request.getRequestURI());
+        log.debug("JWT Filter - Auth Header: {}",
                 authHeader != null ? authHeader.substring(0, Math.min(30, authHeader.length())) + "..." : "NULL");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -50,13 +51,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            username = jwtUtil.extractUsername(jwt);
+            // Verified once; username, expiry and role all come from these claims
+            Claims claims = jwtUtil.parseToken(jwt);
+            username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
-                    String role = jwtUtil.extractRole(jwt);
+                if (jwtUtil.validateToken(claims, userDetails)) {
+                    String role = claims.get("role", String.class);
                     List<SimpleGrantedAuthority> authorities = List.of(
                             new SimpleGrantedAuthority("ROLE_" + role));
 
@@ -69,7 +72,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                     SecurityContextHolder.getContext().setAuthentication(authToken);
 
-                    log.info("JWT Auth successful for user: {} with role: ROLE_{}", username, role);
+                    log.debug("JWT Auth successful for user: {} with role: ROLE_{}", username, role);
                 }
             }
         } catch (Exception e) {
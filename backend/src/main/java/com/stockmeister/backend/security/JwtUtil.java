@@ -1,17 +1,26 @@
 package com.stockmeister.backend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -23,9 +32,53 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Verified claims by SHA-256 of the token, so the cache holds no bearer
+    // tokens. Each entry expires with its token; lookups take no lock.
+    private Cache<String, VerifiedClaims> verified;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        if (claimsCacheSize > 0) {
+            verified = Caffeine.newBuilder()
+                    .maximumSize(claimsCacheSize)
+                    .expireAfter(new UntilTokenExpires())
+                    .build();
+        }
+    }
+
+    /**
+     * Claims of a token whose signature and expiry have been checked. A
+     * token is verified once and then served from the cache until it
+     * expires. Throws a JwtException for invalid or expired tokens.
+     */
+    public Claims parseToken(String token) {
+        if (claimsCacheSize <= 0) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String key = hash(token);
+        VerifiedClaims entry = verified.getIfPresent(key);
+        if (entry != null) {
+            return entry.claims;
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        // Tokens without exp are not cached, they would never leave
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt != null) {
+            verified.put(key, new VerifiedClaims(claims, expiresAt.getTime()));
+        }
+        return claims;
     }
 
     public String extractUsername(String token) {
@@ -41,20 +94,12 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     public String generateToken(String username, String role) {
@@ -69,21 +114,53 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims);
     }
 
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !isExpired(parseToken(token));
         } catch (Exception e) {
             return false;
         }
     }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedClaims(Claims claims, long expiresAt) {
+    }
+
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedClaims> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedClaims value, long currentTime) {
+            long remaining = value.expiresAt - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,274 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.OrderBoardEvent;
+import com.stockmeister.backend.dto.OrderBoardEvent.Type;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.repository.OrderRepository;
+import com.stockmeister.backend.util.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory board of active orders for kitchen displays. Order changes are
+ * applied after their transaction commits and pushed to subscribers as
+ * numbered events (CREATED, STATUS_CHANGED, REMOVED), so displays no longer
+ * poll the database. The last {@code app.orders.board.replay-size} events
+ * are kept: a client reconnecting with Last-Event-ID gets what it missed,
+ * or a SNAPSHOT of the whole board if that is too far back.
+ *
+ * Each display has its own queue of up to
+ * {@code app.orders.board.subscriber-queue} events, sent in sequence order
+ * by a sender thread of its own while events are pending, so a slow display
+ * holds up neither the request that changed an order nor the other
+ * displays. A display that falls further behind is disconnected and catches
+ * up through Last-Event-ID when it reconnects. The board only sees orders
+ * changed on this node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveOrderBoard {
+
+    private final OrderRepository orderRepository;
+
+    @Value("${app.orders.board.replay-size:1000}")
+    private int replaySize;
+
+    @Value("${app.orders.board.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+
+    @Value("${app.orders.board.subscriber-queue:256}")
+    private int subscriberQueue;
+
+    // Guarded by this
+    private final Map<Long, OrderResponseDTO> orders = new LinkedHashMap<>();
+    private final ArrayDeque<OrderBoardEvent> replay = new ArrayDeque<>();
+    // Starts at the boot time, so event ids of an earlier run are never
+    // mistaken for ids of this one
+    private long sequence = System.currentTimeMillis() * 1000;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger senderCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "order-board-sender-" + senderCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        List<OrderResponseDTO> active = orderRepository.findActiveOrdersWithItems().stream()
+                .map(OrderResponseDTO::fromEntityWithItems)
+                .toList();
+        synchronized (this) {
+            active.forEach(order -> orders.putIfAbsent(order.getId(), order));
+        }
+        log.info("Order board loaded with {} active order(s)", active.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Puts the order's new state on the board once the current transaction
+     * commits. Completed and cancelled orders are taken off.
+     */
+    public void orderChanged(OrderResponseDTO order) {
+        AfterCommit.run(() -> apply(order));
+    }
+
+    public void orderRemoved(Long orderId) {
+        AfterCommit.run(() -> remove(orderId));
+    }
+
+    /**
+     * Opens an event stream. It starts with the events after
+     * {@code lastEventId}, or with a snapshot of the board.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(emitterTimeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        synchronized (this) {
+            List<OrderBoardEvent> initial = eventsSince(lastEventId);
+            subscribers.add(subscriber);
+            // Bounded by the replay buffer, so not counted against the queue
+            initial.forEach(event -> subscriber.offer(toSse(event), true));
+        }
+        log.debug("Order board subscriber added ({} open)", subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * The events after {@code lastEventId} if they are all still in the
+     * replay buffer, otherwise a single SNAPSHOT.
+     */
+    synchronized List<OrderBoardEvent> eventsSince(Long lastEventId) {
+        long oldest = replay.isEmpty() ? sequence : replay.getFirst().getSequence() - 1;
+        if (lastEventId != null && lastEventId >= oldest && lastEventId <= sequence) {
+            return replay.stream()
+                    .filter(event -> event.getSequence() > lastEventId)
+                    .toList();
+        }
+
+        List<OrderResponseDTO> snapshot = new ArrayList<>(orders.values());
+        snapshot.sort(Comparator.comparing(OrderResponseDTO::getCreatedAt,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return List.of(OrderBoardEvent.builder()
+                .sequence(sequence)
+                .type(Type.SNAPSHOT)
+                .orders(snapshot)
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.board.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("heartbeat"), false);
+        }
+    }
+
+    private synchronized void apply(OrderResponseDTO order) {
+        if (OrderDocumentService.isFinal(order.getStatus())) {
+            remove(order.getId());
+            return;
+        }
+
+        OrderResponseDTO current = orders.get(order.getId());
+        // Commits of concurrent transactions can arrive out of order
+        if (current != null && current.getUpdatedAt() != null && order.getUpdatedAt() != null
+                && order.getUpdatedAt().isBefore(current.getUpdatedAt())) {
+            return;
+        }
+
+        orders.put(order.getId(), order);
+        publish(OrderBoardEvent.builder()
+                .type(current == null ? Type.CREATED : Type.STATUS_CHANGED)
+                .orderId(order.getId())
+                .order(order));
+    }
+
+    private synchronized void remove(Long orderId) {
+        if (orders.remove(orderId) != null) {
+            publish(OrderBoardEvent.builder()
+                    .type(Type.REMOVED)
+                    .orderId(orderId));
+        }
+    }
+
+    // Called with the lock held, so events are numbered and queued for
+    // sending in the same order.
+    private void publish(OrderBoardEvent.OrderBoardEventBuilder builder) {
+        OrderBoardEvent event = builder.sequence(++sequence).build();
+        replay.addLast(event);
+        if (replay.size() > replaySize) {
+            replay.removeFirst();
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(toSse(event), false);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(OrderBoardEvent event) {
+        return SseEmitter.event()
+                .id(Long.toString(event.getSequence()))
+                .name(event.getType().name().toLowerCase(Locale.ROOT))
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Order board subscriber dropped: {}", e.getMessage());
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    // Events waiting for one display. At most one sender thread drains it at
+    // a time, so the display gets them in the order they were offered.
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event, boolean unbounded) {
+            boolean full;
+            synchronized (this) {
+                full = !unbounded && pending.size() >= subscriberQueue;
+                if (full) {
+                    pending.clear();
+                } else {
+                    pending.addLast(event);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            }
+
+            if (full) {
+                drop(this, new IllegalStateException(
+                        "Order board subscriber is more than " + subscriberQueue + " events behind"));
+            } else {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = pending.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    drop(this, e);
+                    return;
+                }
+            }
+        }
+    }
+}
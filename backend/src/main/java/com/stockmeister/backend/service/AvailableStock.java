@@ -0,0 +1,59 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import com.stockmeister.backend.util.StockAmount;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of the available amounts of some ingredients, taken by
+ * {@link StockEngine#snapshot}. Amounts are milli-units (see
+ * {@link StockAmount}).
+ */
+public final class AvailableStock {
+
+    @Getter
+    private final long version;
+    private final long[] ingredientIds;
+    private final long[] available;
+    private final String[] names;
+    private final String[] units;
+
+    AvailableStock(long version, long[] ingredientIds, long[] available, String[] names, String[] units) {
+        this.version = version;
+        this.ingredientIds = ingredientIds;
+        this.available = available;
+        this.names = names;
+        this.units = units;
+    }
+
+    public long availableMillis(long ingredientId) {
+        return available[indexOf(ingredientId)];
+    }
+
+    /**
+     * The shortage {@link StockEngine#reserve} would report if the amount were
+     * reserved against this snapshot, or null if it fits.
+     */
+    public StockShortage shortage(long ingredientId, long requiredMillis) {
+        int index = indexOf(ingredientId);
+        if (available[index] >= requiredMillis) {
+            return null;
+        }
+        return new StockShortage(
+                ingredientId,
+                names[index],
+                units[index],
+                StockAmount.toDecimal(requiredMillis),
+                StockAmount.toDecimal(available[index]));
+    }
+
+    private int indexOf(long ingredientId) {
+        int index = Arrays.binarySearch(ingredientIds, ingredientId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ingredient " + ingredientId + " is not part of the snapshot");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,86 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.CartValidationDTO;
+import com.stockmeister.backend.dto.OrderItemRequestDTO;
+import com.stockmeister.backend.dto.OrderRequestDTO;
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks a cart against stock without placing it. Runs outside any
+ * transaction: BOMs come from {@link RecipeBomCache} and stock from a
+ * {@link AvailableStock}, so no database row is read or locked for stock
+ * and nothing is reserved. Placing the order checks again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartValidationService {
+
+    private final RecipeBomCache recipeBomCache;
+    private final StockEngine stockEngine;
+
+    public CartValidationDTO validate(OrderRequestDTO cart) {
+        List<OrderItemRequestDTO> items = cart.getItems();
+        Map<Long, RecipeBom> bomMap = recipeBomCache.getAll(items.stream()
+                .map(OrderItemRequestDTO::getRecipeId)
+                .collect(Collectors.toSet()));
+
+        StockAmountMap requiredAmounts = new StockAmountMap();
+        for (OrderItemRequestDTO item : items) {
+            RecipeBom bom = bomMap.get(item.getRecipeId());
+            if (bom == null) {
+                throw new RuntimeException("Recipe not found with id: " + item.getRecipeId());
+            }
+            bom.addRequirements(item.getQuantity(), requiredAmounts);
+        }
+
+        AvailableStock snapshot = stockEngine.snapshot(requiredAmounts.sortedKeys());
+
+        List<CartValidationDTO.Line> lines = new ArrayList<>(items.size());
+        StockAmountMap runningAmounts = new StockAmountMap();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemRequestDTO item = items.get(i);
+            RecipeBom bom = bomMap.get(item.getRecipeId());
+            bom.addRequirements(item.getQuantity(), runningAmounts);
+
+            boolean feasible = true;
+            for (int j = 0; j < bom.size() && feasible; j++) {
+                long ingredientId = bom.ingredientIdAt(j);
+                feasible = runningAmounts.get(ingredientId) <= snapshot.availableMillis(ingredientId);
+            }
+            lines.add(CartValidationDTO.Line.builder()
+                    .index(i)
+                    .recipeId(item.getRecipeId())
+                    .recipeName(bom.getName())
+                    .quantity(item.getQuantity())
+                    .feasible(feasible)
+                    .build());
+        }
+
+        List<StockShortage> shortages = new ArrayList<>();
+        for (long ingredientId : requiredAmounts.sortedKeys()) {
+            StockShortage shortage = snapshot.shortage(ingredientId, requiredAmounts.get(ingredientId));
+            if (shortage != null) {
+                shortages.add(shortage);
+            }
+        }
+
+        log.debug("Cart of {} line(s) validated at stock version {}: {} shortage(s)",
+                items.size(), snapshot.getVersion(), shortages.size());
+        return CartValidationDTO.builder()
+                .stockVersion(snapshot.getVersion())
+                .valid(shortages.isEmpty())
+                .lines(lines)
+                .shortages(shortages)
+                .build();
+    }
+}
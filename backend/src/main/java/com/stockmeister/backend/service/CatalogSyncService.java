@@ -0,0 +1,158 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.CatalogChangesDTO;
+import com.stockmeister.backend.dto.CatalogChangesDTO.EntityType;
+import com.stockmeister.backend.dto.CatalogChangesDTO.Tombstone;
+import com.stockmeister.backend.dto.IngredientDTO;
+import com.stockmeister.backend.dto.RecipeDTO;
+import com.stockmeister.backend.model.BaseEntity;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.RecipeRepository;
+import com.stockmeister.backend.util.ChangeSequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Delta sync of ingredients and recipes by change sequence (see
+ * {@link ChangeSequence}). A page holds the rows changed after the
+ * client's watermark, in sequence order, with soft-deleted rows as
+ * tombstones. Range scans run on the change_seq indexes.
+ *
+ * Rows changed within the settle delay are held back to the next request,
+ * so a transaction that took its sequence earlier but commits later, or a
+ * node with a slightly late clock, is not skipped. Watermarks older than
+ * the tombstone retention get a full snapshot instead: tombstones past
+ * that age are never sent again. Stock levels are not catalogue changes;
+ * the ingredient stock in a page is as of the time of the request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CatalogSyncService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final IngredientRepository ingredientRepository;
+    private final RecipeRepository recipeRepository;
+
+    @Value("${app.sync.settle-delay:PT5S}")
+    private Duration settleDelay;
+
+    @Value("${app.sync.tombstone-retention:P30D}")
+    private Duration tombstoneRetention;
+
+    public CatalogChangesDTO getChanges(Long since, int limit, boolean withIngredients, boolean withRecipes) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long now = System.currentTimeMillis();
+        long until = ChangeSequence.at(now - settleDelay.toMillis());
+
+        if (since == null || since < ChangeSequence.at(now - tombstoneRetention.toMillis())) {
+            return snapshot(until, withIngredients, withRecipes);
+        }
+        if (since >= until) {
+            return CatalogChangesDTO.builder()
+                    .watermark(since)
+                    .ingredients(List.of())
+                    .recipes(List.of())
+                    .deleted(List.of())
+                    .build();
+        }
+
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<BaseEntity> changed = new ArrayList<>();
+        if (withIngredients) {
+            changed.addAll(ingredientRepository.findChanged(since, until, page));
+        }
+        if (withRecipes) {
+            changed.addAll(recipeRepository.findChanged(since, until, page));
+        }
+        changed.sort(Comparator.comparing(BaseEntity::getChangeSeq));
+
+        boolean hasMore = changed.size() > pageSize;
+        long watermark = until;
+        if (hasMore) {
+            // Rows sharing the last sequence stay on this page, the
+            // watermark must not fall between them
+            int end = pageSize;
+            watermark = changed.get(end - 1).getChangeSeq();
+            while (end < changed.size() && changed.get(end).getChangeSeq() == watermark) {
+                end++;
+            }
+            changed = changed.subList(0, end);
+        }
+
+        List<IngredientDTO> ingredients = new ArrayList<>();
+        List<Long> recipeIds = new ArrayList<>();
+        List<Tombstone> deleted = new ArrayList<>();
+        for (BaseEntity entity : changed) {
+            if (entity instanceof Ingredient ingredient) {
+                if (ingredient.isActive()) {
+                    ingredients.add(IngredientDTO.fromEntity(ingredient));
+                } else {
+                    deleted.add(tombstone(EntityType.INGREDIENT, ingredient.getId(), ingredient.getDeletedAt()));
+                }
+            } else if (entity instanceof Recipe recipe) {
+                if (recipe.isActive()) {
+                    recipeIds.add(recipe.getId());
+                } else {
+                    deleted.add(tombstone(EntityType.RECIPE, recipe.getId(), recipe.getDeletedAt()));
+                }
+            }
+        }
+
+        List<RecipeDTO> recipes = recipeIds.isEmpty() ? List.of()
+                : recipeRepository.findAllByIdWithIngredients(recipeIds).stream()
+                        .sorted(Comparator.comparing(BaseEntity::getChangeSeq))
+                        .map(RecipeDTO::fromEntityWithIngredients)
+                        .toList();
+
+        log.debug("Catalogue changes since {}: {} ingredient(s), {} recipe(s), {} tombstone(s), more: {}",
+                since, ingredients.size(), recipes.size(), deleted.size(), hasMore);
+        return CatalogChangesDTO.builder()
+                .watermark(watermark)
+                .hasMore(hasMore)
+                .ingredients(ingredients)
+                .recipes(recipes)
+                .deleted(deleted)
+                .build();
+    }
+
+    private CatalogChangesDTO snapshot(long watermark, boolean withIngredients, boolean withRecipes) {
+        List<IngredientDTO> ingredients = withIngredients
+                ? ingredientRepository.findAllByIsActiveTrue().stream().map(IngredientDTO::fromEntity).toList()
+                : List.of();
+        List<RecipeDTO> recipes = withRecipes
+                ? recipeRepository.findAllWithIngredients().stream().map(RecipeDTO::fromEntityWithIngredients).toList()
+                : List.of();
+
+        log.info("Full catalogue sync: {} ingredient(s), {} recipe(s)", ingredients.size(), recipes.size());
+        return CatalogChangesDTO.builder()
+                .watermark(watermark)
+                .full(true)
+                .ingredients(ingredients)
+                .recipes(recipes)
+                .deleted(List.of())
+                .build();
+    }
+
+    private static Tombstone tombstone(EntityType type, Long id, LocalDateTime deletedAt) {
+        return Tombstone.builder()
+                .type(type)
+                .id(id)
+                .deletedAt(deletedAt)
+                .build();
+    }
+}
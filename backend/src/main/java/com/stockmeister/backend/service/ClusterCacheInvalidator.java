@@ -0,0 +1,219 @@
+package com.stockmeister.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the second-level caches of all cluster nodes consistent. Every
+ * insert, update or delete of a cached entity sends a NOTIFY from inside its
+ * transaction, so PostgreSQL delivers it only if and when the transaction
+ * commits. Each node LISTENs on its own connection and evicts the entity,
+ * the collections it owns or appears in, and all cached query results.
+ *
+ * A node that loses its listening connection cannot know what it missed
+ * and clears all regions when it is back.
+ *
+ * Every change received from another node is also published as a
+ * {@link ClusterEntityChangedEvent} for the node-local caches built from
+ * entities, such as {@link RecipeBomCache}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterCacheInvalidator
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String CHANNEL = "l2_cache_invalidation";
+    private static final int POLL_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Notifications of this node are skipped, its own Hibernate session
+    // factory has already updated the cache
+    private final String origin = UUID.randomUUID().toString();
+
+    private final Map<String, List<String>> ownedCollections = new HashMap<>();
+    private final Map<String, List<String>> containingCollections = new HashMap<>();
+
+    private final ExecutorService listener = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SessionFactoryImplementor sessionFactory;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        if (!(sessionFactory.getJdbcServices().getDialect() instanceof PostgreSQLDialect)) {
+            log.warn("Second-level cache invalidation needs PostgreSQL LISTEN/NOTIFY, other nodes' caches may be stale for up to app.cache.ttl and their compiled recipes until restart");
+            return;
+        }
+
+        sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+            if (!collection.hasCache()) {
+                return;
+            }
+            ownedCollections.computeIfAbsent(collection.getOwnerEntityPersister().getEntityName(),
+                    name -> new ArrayList<>()).add(collection.getRole());
+            if (collection.getAttributeMapping().getElementDescriptor() instanceof EntityValuedModelPart element) {
+                String elementEntity = element.getEntityMappingType().getEntityName();
+                containingCollections.computeIfAbsent(elementEntity,
+                        name -> new ArrayList<>()).add(collection.getRole());
+            }
+        });
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+
+        running = true;
+        listener.execute(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listener.shutdownNow();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        notifyChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        notifyChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        notifyChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Runs during the flush, on the transaction's own connection
+    private void notifyChanged(EventSource session, EntityPersister persister, Object id) {
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        String payload = origin + "|" + persister.getEntityName() + "|" + id;
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, CHANNEL);
+                statement.setString(2, payload);
+                statement.execute();
+            }
+        });
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                sessionFactory.getCache().evictAllRegions();
+                eventPublisher.publishEvent(ClusterEntityChangedEvent.resync());
+                log.info("Listening for second-level cache invalidations on '{}'", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(origin)) {
+            return;
+        }
+        String entityName = parts[1];
+        Long id = Long.valueOf(parts[2]);
+
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(entityName, id);
+        for (String role : ownedCollections.getOrDefault(entityName, List.of())) {
+            cache.evictCollectionData(role, id);
+        }
+        // The owner of the changed element is not in the payload
+        for (String role : containingCollections.getOrDefault(entityName, List.of())) {
+            cache.evictCollectionData(role);
+        }
+        cache.evictQueryRegions();
+        log.debug("Evicted {}#{} after a change on another node", entityName, id);
+
+        eventPublisher.publishEvent(new ClusterEntityChangedEvent(entityName, id));
+    }
+}
@@ -0,0 +1,30 @@
+package com.stockmeister.backend.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@link ClusterCacheInvalidator} when another cluster node has
+ * committed a change to a cached entity, so node-local caches derived from it
+ * can be dropped too. A resync event (no entity) means changes may have been
+ * missed and everything should be reloaded.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ClusterEntityChangedEvent {
+
+    private final String entityName;
+    private final Long id;
+
+    public static ClusterEntityChangedEvent resync() {
+        return new ClusterEntityChangedEvent(null, null);
+    }
+
+    public boolean isResync() {
+        return entityName == null;
+    }
+
+    public boolean isOf(Class<?> entityClass) {
+        return entityClass.getName().equals(entityName);
+    }
+}
@@ -0,0 +1,128 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.ClusterNode;
+import com.stockmeister.backend.repository.ClusterNodeRepository;
+import com.stockmeister.backend.util.ConsistentHashRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cluster membership through the {@code cluster_nodes} table. Each node
+ * upserts its own row on every heartbeat and rebuilds the ownership ring from
+ * the rows that were refreshed within the node timeout. All nodes see the same
+ * rows, so they converge on the same ring within one heartbeat.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterMembership {
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${app.cluster.advertise-url:}")
+    private String configuredAdvertiseUrl;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Getter
+    @Value("${app.cluster.token:}")
+    private String token;
+
+    @Value("${app.cluster.node-timeout-ms:10000}")
+    private long nodeTimeoutMs;
+
+    @Value("${app.cluster.virtual-nodes:64}")
+    private int virtualNodes;
+
+    @Getter
+    private String nodeId;
+    private String advertiseUrl;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, String> baseUrls = Map.of();
+
+    @PostConstruct
+    public void join() {
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException("app.cluster.token must be set when cluster mode is enabled");
+        }
+        advertiseUrl = configuredAdvertiseUrl.isBlank()
+                ? "http://localhost:" + serverPort
+                : configuredAdvertiseUrl;
+        nodeId = configuredNodeId.isBlank() ? advertiseUrl : configuredNodeId;
+
+        heartbeat();
+        log.info("Joined cluster as {} ({}), {} live node(s)", nodeId, advertiseUrl, baseUrls.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-ms:2000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        clusterNodeRepository.save(ClusterNode.builder()
+                .nodeId(nodeId)
+                .baseUrl(advertiseUrl)
+                .lastHeartbeat(now)
+                .build());
+
+        Map<String, String> live = new LinkedHashMap<>();
+        for (ClusterNode node : clusterNodeRepository.findByLastHeartbeatAfterOrderByNodeId(
+                now.minusNanos(nodeTimeoutMs * 1_000_000L))) {
+            live.put(node.getNodeId(), node.getBaseUrl());
+        }
+        live.putIfAbsent(nodeId, advertiseUrl);
+
+        if (ring == null || !live.keySet().equals(baseUrls.keySet())) {
+            ConsistentHashRing newRing = new ConsistentHashRing(live.keySet(), virtualNodes);
+            baseUrls = live;
+            ring = newRing;
+            log.info("Cluster topology changed: {}", live.keySet());
+            eventPublisher.publishEvent(new ClusterTopologyChangedEvent(newRing, nodeId));
+        } else {
+            baseUrls = live;
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        try {
+            clusterNodeRepository.deleteById(nodeId);
+            log.info("Left cluster as {}", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove cluster node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String ownerOf(long ingredientId) {
+        return ring.ownerOf(ingredientId);
+    }
+
+    public boolean isLocal(String owner) {
+        return nodeId.equals(owner);
+    }
+
+    public String baseUrlOf(String owner) {
+        String baseUrl = baseUrls.get(owner);
+        if (baseUrl == null) {
+            throw new RuntimeException("Cluster node unavailable: " + owner);
+        }
+        return baseUrl;
+    }
+}
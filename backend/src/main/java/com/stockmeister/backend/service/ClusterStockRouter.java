@@ -0,0 +1,158 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.ClusterStockRequest;
+import com.stockmeister.backend.dto.ClusterStockResponse;
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Sends the stock operations for ingredients owned by other nodes to those
+ * nodes' {@code /internal/stock} endpoints. A remote reservation is a
+ * two-step call: {@link #reserve} takes the amounts on the owner and
+ * {@link #settle} commits or rolls them back once the local transaction has
+ * finished. Owners roll back reservations that are never settled.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterStockRouter {
+
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    private final ClusterMembership clusterMembership;
+    private final RestClient restClient;
+
+    public ClusterStockRouter(ClusterMembership clusterMembership,
+            @Value("${app.cluster.request-timeout-ms:2000}") int requestTimeoutMs) {
+        this.clusterMembership = clusterMembership;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(requestTimeoutMs);
+        requestFactory.setReadTimeout(requestTimeoutMs);
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    public String ownerOf(long ingredientId) {
+        return clusterMembership.ownerOf(ingredientId);
+    }
+
+    public boolean isLocal(String nodeId) {
+        return clusterMembership.isLocal(nodeId);
+    }
+
+    public boolean isLocalOwner(long ingredientId) {
+        return isLocal(ownerOf(ingredientId));
+    }
+
+    /**
+     * Splits amounts by owning node, in node id order.
+     */
+    public Map<String, StockAmountMap> partition(StockAmountMap amounts) {
+        Map<String, StockAmountMap> parts = new TreeMap<>();
+        amounts.forEach((ingredientId, millis) -> parts
+                .computeIfAbsent(ownerOf(ingredientId), key -> new StockAmountMap())
+                .add(ingredientId, millis));
+        return parts;
+    }
+
+    /**
+     * Reserves the amounts on their owner and returns the id to settle them
+     * with. Throws {@link InsufficientStockException} if the owner rejects them.
+     */
+    public String reserve(String nodeId, StockAmountMap amounts, boolean hold) {
+        String txId = UUID.randomUUID().toString();
+        ClusterStockRequest request = ClusterStockRequest.of(txId, hold ? "HOLD" : "DEDUCT", amounts);
+
+        ClusterStockResponse response;
+        try {
+            response = restClient.post()
+                    .uri(clusterMembership.baseUrlOf(nodeId) + "/internal/stock/reserve")
+                    .header(TOKEN_HEADER, clusterMembership.getToken())
+                    .body(request)
+                    .retrieve()
+                    .onStatus(status -> status.value() == HttpStatus.CONFLICT.value(), (req, res) -> {
+                    })
+                    .body(ClusterStockResponse.class);
+        } catch (RestClientException e) {
+            throw unavailable(nodeId, e);
+        }
+
+        if (response == null || !response.isAccepted()) {
+            throw new InsufficientStockException(response != null ? response.toShortages() : null);
+        }
+        return txId;
+    }
+
+    public void settle(String nodeId, String txId, boolean committed) {
+        ClusterStockRequest request = new ClusterStockRequest(txId, committed ? "COMMIT" : "ROLLBACK", null);
+        try {
+            post(nodeId, "/internal/stock/settle", request);
+        } catch (RuntimeException e) {
+            // The owner rolls back unsettled reservations on its own; a lost
+            // commit is corrected by the next overwrite or reload.
+            log.error("Could not settle stock transaction {} on node {}: {}", txId, nodeId, e.getMessage());
+        }
+    }
+
+    public void apply(String nodeId, String settlement, StockAmountMap amounts) {
+        try {
+            post(nodeId, "/internal/stock/apply", ClusterStockRequest.of(null, settlement, amounts));
+        } catch (RuntimeException e) {
+            log.error("Could not apply stock {} on node {}: {}", settlement, nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Makes the owner reload the ingredient from the database on next use.
+     */
+    public void evict(String nodeId, long ingredientId) {
+        try {
+            post(nodeId, "/internal/stock/" + ingredientId + "/evict", null);
+        } catch (RuntimeException e) {
+            log.error("Could not evict ingredient {} on node {}: {}", ingredientId, nodeId, e.getMessage());
+        }
+    }
+
+    public long getAvailableMillis(String nodeId, long ingredientId) {
+        try {
+            Long available = restClient.get()
+                    .uri(clusterMembership.baseUrlOf(nodeId) + "/internal/stock/" + ingredientId + "/available")
+                    .header(TOKEN_HEADER, clusterMembership.getToken())
+                    .retrieve()
+                    .body(Long.class);
+            return available != null ? available : 0L;
+        } catch (RestClientException e) {
+            throw unavailable(nodeId, e);
+        }
+    }
+
+    private void post(String nodeId, String path, ClusterStockRequest request) {
+        try {
+            RestClient.RequestBodySpec spec = restClient.post()
+                    .uri(clusterMembership.baseUrlOf(nodeId) + path)
+                    .header(TOKEN_HEADER, clusterMembership.getToken());
+            if (request != null) {
+                spec.body(request);
+            }
+            spec.retrieve().toBodilessEntity();
+        } catch (RestClientException e) {
+            throw unavailable(nodeId, e);
+        }
+    }
+
+    private static RuntimeException unavailable(String nodeId, RestClientException cause) {
+        return new RuntimeException("Stock owner node unavailable: " + nodeId + " (" + cause.getMessage() + ")", cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.util.ConsistentHashRing;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@link ClusterMembership} whenever the set of live nodes
+ * changes and ingredient ownership has moved.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ClusterTopologyChangedEvent {
+
+    private final ConsistentHashRing ring;
+    private final String localNodeId;
+
+    public boolean isOwnedLocally(long ingredientId) {
+        return localNodeId.equals(ring.ownerOf(ingredientId));
+    }
+}
@@ -0,0 +1,283 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmeister.backend.model.IdempotencyRecord;
+import com.stockmeister.backend.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key.
+ *
+ * Responses are kept in the idempotency_keys table, written in the same
+ * transaction as the request itself, with a bounded LRU in front of it. A
+ * duplicate that arrives while the first request is still running waits for
+ * its result instead of executing a second time. Failed requests are not
+ * stored, so the client can retry them with the same key.
+ *
+ * Metrics: idempotency.requests (tag result = executed, cache_hit,
+ * store_hit, joined, conflict) and idempotency.duplicates.avoided.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 150;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.wait-timeout:PT30S}")
+    private Duration waitTimeout;
+
+    private final Map<String, StoredResponse> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final Map<String, CompletableFuture<StoredResponse>> inflight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter cacheHits;
+    private final Counter storeHits;
+    private final Counter joined;
+    private final Counter conflicts;
+    private final Counter duplicatesAvoided;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        this.executed = requests(meterRegistry, "executed");
+        this.cacheHits = requests(meterRegistry, "cache_hit");
+        this.storeHits = requests(meterRegistry, "store_hit");
+        this.joined = requests(meterRegistry, "joined");
+        this.conflicts = requests(meterRegistry, "conflict");
+        this.duplicatesAvoided = Counter.builder("idempotency.duplicates.avoided")
+                .description("Repeated requests answered without executing them again")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("idempotency.cache.size", Tags.empty(), cache);
+    }
+
+    /**
+     * Returns the stored response for {@code scope} and {@code key}, or runs
+     * {@code action} and stores its response. {@code request} identifies the
+     * request body; reusing a key for a different request is rejected.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String recordKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse cached = cached(recordKey);
+        if (cached != null) {
+            countDuplicate(cacheHits);
+            return read(cached, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> own = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inflight.putIfAbsent(recordKey, own);
+        if (running != null) {
+            log.info("Waiting for in-flight request with idempotency key {}", recordKey);
+            StoredResponse response = await(running, recordKey);
+            countDuplicate(joined);
+            return read(response, requestHash, responseType);
+        }
+
+        try {
+            StoredResponse response = load(recordKey);
+            if (response != null) {
+                countDuplicate(storeHits);
+            } else {
+                response = executeOnce(recordKey, requestHash, action);
+            }
+
+            cache(recordKey, response);
+            own.complete(response);
+            return read(response, requestHash, responseType);
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(recordKey, own);
+        }
+    }
+
+    // The response row commits together with the request's changes. If
+    // another node inserted the same key first, this transaction is rolled
+    // back and the other node's response is returned.
+    private StoredResponse executeOnce(String recordKey, String requestHash, Supplier<?> action) {
+        try {
+            StoredResponse response = transactionTemplate.execute(status -> {
+                Object result = action.get();
+                LocalDateTime now = LocalDateTime.now();
+                StoredResponse stored = new StoredResponse(requestHash, write(result), now.plus(ttl));
+
+                idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .recordKey(recordKey)
+                        .requestHash(stored.requestHash)
+                        .responseBody(stored.body)
+                        .createdAt(now)
+                        .expiresAt(stored.expiresAt)
+                        .build());
+                return stored;
+            });
+            executed.increment();
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            StoredResponse winner = load(recordKey);
+            if (winner == null) {
+                throw e;
+            }
+            log.info("Idempotency key {} was stored concurrently by another node", recordKey);
+            countDuplicate(conflicts);
+            return winner;
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running, String recordKey) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Request failed for idempotency key: " + recordKey, e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("A request with this " + HEADER
+                    + " already exists and is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for idempotency key: " + recordKey, e);
+        }
+    }
+
+    private StoredResponse load(String recordKey) {
+        return idempotencyRecordRepository.findById(recordKey)
+                .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(record -> new StoredResponse(
+                        record.getRequestHash(), record.getResponseBody(), record.getExpiresAt()))
+                .orElse(null);
+    }
+
+    private StoredResponse cached(String recordKey) {
+        synchronized (cache) {
+            StoredResponse response = cache.get(recordKey);
+            if (response != null && !response.expiresAt.isAfter(LocalDateTime.now())) {
+                cache.remove(recordKey);
+                return null;
+            }
+            return response;
+        }
+    }
+
+    private void cache(String recordKey, StoredResponse response) {
+        synchronized (cache) {
+            cache.put(recordKey, response);
+        }
+    }
+
+    private <T> T read(StoredResponse response, String requestHash, Class<T> responseType) {
+        if (!response.requestHash.equals(requestHash)) {
+            throw new RuntimeException(HEADER + " already exists for a different request");
+        }
+        try {
+            return objectMapper.readValue(response.body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read stored response: " + e.getMessage(), e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to store response: " + e.getMessage(), e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(write(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void countDuplicate(Counter outcome) {
+        outcome.increment();
+        duplicatesAvoided.increment();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests made with an Idempotency-Key header")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-ms:3600000}")
+    public void deleteExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} expired idempotency key(s)", deleted);
+        }
+    }
+
+    private static class StoredResponse {
+        private final String requestHash;
+        private final String body;
+        private final LocalDateTime expiresAt;
+
+        StoredResponse(String requestHash, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.stockmeister.backend.service;
 
+import com.stockmeister.backend.dto.IngredientDTO;
 import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovementCause;
 import com.stockmeister.backend.repository.IngredientRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
@@ -26,6 +29,10 @@ import java.util.UUID;
 public class IngredientService {
 
     private final IngredientRepository ingredientRepository;
+    private final StockEngine stockEngine;
+    private final StockShardService stockShardService;
+    private final StockLedgerService stockLedgerService;
+    private final ObjectProvider<StockJournalService> stockJournalService;
 
     private static final String UPLOAD_DIR = "uploads/ingredients/";
 
@@ -70,6 +77,14 @@ public class IngredientService {
         return ingredientRepository.findLowStockIngredientsWithMultiplier(multiplier);
     }
 
+    // Mapped inside the shared execution, callers never share managed entities
+    @SingleFlight(ttlMillis = 1000)
+    public List<IngredientDTO> getLowStockIngredientDTOs(BigDecimal multiplier) {
+        return getLowStockIngredients(multiplier).stream()
+                .map(IngredientDTO::fromEntity)
+                .toList();
+    }
+
     public List<Ingredient> getOutOfStockIngredients() {
         log.info("Fetching out of stock ingredients");
         return ingredientRepository.findOutOfStockIngredients();
@@ -100,6 +115,9 @@ public class IngredientService {
         }
 
         Ingredient savedIngredient = ingredientRepository.save(ingredient);
+        stockLedgerService.recordOverwrite(savedIngredient.getId(), BigDecimal.ZERO,
+                savedIngredient.getCurrentStock(), StockMovementCause.OPENING_BALANCE);
+        stockEngine.overwrite(savedIngredient);
         log.info("Successfully created ingredient with id: {}", savedIngredient.getId());
         return savedIngredient;
     }
@@ -112,6 +130,9 @@ public class IngredientService {
     @Transactional
     public Ingredient updateIngredient(Long id, Ingredient updatedIngredient, MultipartFile image) {
         log.info("Updating ingredient with id: {}", id);
+        if (updatedIngredient.getCurrentStock() != null) {
+            drainStockJournal();
+        }
 
         Ingredient existingIngredient = ingredientRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Ingredient not found with id: " + id));
@@ -145,6 +166,7 @@ public class IngredientService {
                 existingIngredient.setUnitPrice(newPrice);
 
                 Ingredient savedIngredient = ingredientRepository.save(existingIngredient);
+                syncStockEngine(savedIngredient, updatedIngredient);
 
                 if (recipeService != null) {
                     recipeService.recalculateCostsForIngredient(id);
@@ -181,7 +203,45 @@ public class IngredientService {
             existingIngredient.setImagePath(null);
         }
 
-        return ingredientRepository.save(existingIngredient);
+        Ingredient savedIngredient = ingredientRepository.save(existingIngredient);
+        syncStockEngine(savedIngredient, updatedIngredient);
+        return savedIngredient;
+    }
+
+    private void syncStockEngine(Ingredient savedIngredient, Ingredient updatedIngredient) {
+        if (updatedIngredient.getCurrentStock() != null) {
+            overwriteStock(savedIngredient, StockMovementCause.ADJUSTMENT);
+        } else {
+            stockEngine.describe(savedIngredient);
+        }
+    }
+
+    private void overwriteStock(Ingredient savedIngredient, StockMovementCause cause) {
+        // Read (and lock) the stored level before the new one is flushed, so
+        // the ledger gets the exact difference even under concurrent orders.
+        BigDecimal previous = ingredientRepository.lockCurrentStock(savedIngredient.getId());
+        ingredientRepository.flush();
+        stockShardService.resplit(savedIngredient);
+        stockEngine.overwrite(savedIngredient);
+        stockLedgerService.recordOverwrite(savedIngredient.getId(), previous,
+                savedIngredient.getCurrentStock(), cause);
+    }
+
+    // Journaled changes that are not yet in the table would otherwise be
+    // applied on top of the overwritten level. Runs before any row is locked.
+    private void drainStockJournal() {
+        StockJournalService journal = stockJournalService.getIfAvailable();
+        if (journal != null) {
+            journal.drain();
+        }
+    }
+
+    @Transactional
+    public Ingredient configureStockShards(Long id, int shards) {
+        log.info("Configuring {} stock shard(s) for ingredient id: {}", shards, id);
+        stockShardService.configureShards(id, shards);
+        return ingredientRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Ingredient not found with id: " + id));
     }
 
     @Transactional
@@ -206,6 +266,7 @@ public class IngredientService {
     @Transactional
     public Ingredient updateStock(Long id, BigDecimal newStock) {
         log.info("Quick stock update for ingredient id: {} -> new stock: {}", id, newStock);
+        drainStockJournal();
 
         Ingredient ingredient = ingredientRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Ingredient not found with id: " + id));
@@ -218,6 +279,7 @@ public class IngredientService {
         ingredient.setCurrentStock(newStock != null ? newStock : BigDecimal.ZERO);
 
         Ingredient savedIngredient = ingredientRepository.save(ingredient);
+        overwriteStock(savedIngredient, StockMovementCause.ADJUSTMENT);
         log.info("Stock updated for '{}': {} -> {}", ingredient.getName(), oldStock, newStock);
 
         return savedIngredient;
@@ -276,6 +338,7 @@ public class IngredientService {
 
     @Transactional
     public void updateStockCount(List<StockAdjustmentRequest> adjustments) {
+        drainStockJournal();
         adjustments.forEach(adjustment -> {
             Ingredient ingredient = ingredientRepository.findById(adjustment.getIngredientId())
                     .orElseThrow(() -> new RuntimeException(
@@ -283,6 +346,7 @@ public class IngredientService {
 
             ingredient.setCurrentStock(adjustment.getPhysicalCount());
             ingredientRepository.save(ingredient);
+            overwriteStock(ingredient, StockMovementCause.STOCK_COUNT);
         });
     }
 }
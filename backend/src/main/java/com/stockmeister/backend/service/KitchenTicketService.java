@@ -0,0 +1,362 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.KitchenTicketDTO;
+import com.stockmeister.backend.dto.OrderItemResponseDTO;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.dto.StationTicketsDTO;
+import com.stockmeister.backend.model.KitchenStation;
+import com.stockmeister.backend.model.Order;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.repository.OrderRepository;
+import com.stockmeister.backend.util.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-station ticket queues for kitchen displays. When an order is placed,
+ * its kitchen items are split by {@link KitchenStation} into one ticket per
+ * station. Each station's display follows its queue over SSE or long-poll,
+ * bumps tickets when they are done and can recall recently bumped ones.
+ *
+ * Queues live in memory and are rebuilt from PENDING and IN_PROCESS orders
+ * on startup; bump state does not survive a restart. Metrics:
+ * kitchen.station.queue.depth, kitchen.station.ticket.oldest.age and
+ * kitchen.station.ticket.time (open until bumped), all tagged by station.
+ */
+@Service
+@Slf4j
+public class KitchenTicketService {
+
+    private final OrderRepository orderRepository;
+    private final Map<KitchenStation, StationQueue> stations = new EnumMap<>(KitchenStation.class);
+
+    // Starts at the boot time, so a display still showing tickets of an
+    // earlier run cannot bump a different ticket with the same id
+    private final AtomicLong ticketIds = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kitchen-ticket-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.kitchen.default-station:GRILL}")
+    private KitchenStation defaultStation;
+
+    @Value("${app.kitchen.recall-size:20}")
+    private int recallSize;
+
+    @Value("${app.kitchen.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+
+    public KitchenTicketService(OrderRepository orderRepository, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+
+        for (KitchenStation station : KitchenStation.values()) {
+            String tag = station.name().toLowerCase(Locale.ROOT);
+            StationQueue queue = new StationQueue(station, Timer.builder("kitchen.station.ticket.time")
+                    .description("Time from order placement until the station bumped its ticket")
+                    .tag("station", tag)
+                    .register(meterRegistry));
+            stations.put(station, queue);
+
+            Gauge.builder("kitchen.station.queue.depth", queue, StationQueue::depth)
+                    .description("Open tickets at the station")
+                    .tag("station", tag)
+                    .register(meterRegistry);
+            Gauge.builder("kitchen.station.ticket.oldest.age", queue, StationQueue::oldestAgeSeconds)
+                    .description("Age of the oldest open ticket at the station")
+                    .tag("station", tag)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        int routed = 0;
+        for (Order order : orderRepository.findActiveOrdersWithItems()) {
+            if (order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.IN_PROCESS) {
+                route(OrderResponseDTO.fromEntityWithItems(order));
+                routed++;
+            }
+        }
+        log.info("Kitchen ticket queues loaded from {} open order(s)", routed);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        stations.values().forEach(queue -> queue.emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * Sends the order's kitchen items to their stations once the current
+     * transaction commits.
+     */
+    public void orderPlaced(OrderResponseDTO order) {
+        AfterCommit.run(() -> route(order));
+    }
+
+    /**
+     * Takes a cancelled or deleted order's tickets off all stations once the
+     * current transaction commits.
+     */
+    public void orderCancelled(Long orderId) {
+        AfterCommit.run(() -> stations.values().forEach(queue -> queue.removeOrder(orderId)));
+    }
+
+    public StationTicketsDTO getTickets(KitchenStation station) {
+        return stations.get(station).state();
+    }
+
+    /**
+     * Completes with the station's tickets as soon as its version differs
+     * from {@code since}; right away if it already does.
+     */
+    public CompletableFuture<StationTicketsDTO> awaitChange(KitchenStation station, long since) {
+        return stations.get(station).awaitChange(since);
+    }
+
+    /**
+     * Opens an event stream that sends the station's open tickets now and
+     * after every change.
+     */
+    public SseEmitter subscribe(KitchenStation station) {
+        return stations.get(station).subscribe();
+    }
+
+    public KitchenTicketDTO bump(KitchenStation station, Long ticketId) {
+        return stations.get(station).bump(ticketId);
+    }
+
+    public KitchenTicketDTO recall(KitchenStation station, Long ticketId) {
+        return stations.get(station).recall(ticketId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.kitchen.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (StationQueue queue : stations.values()) {
+            if (queue.emitters.isEmpty()) {
+                continue;
+            }
+            List<SseEmitter> targets = List.copyOf(queue.emitters);
+            sender.execute(() -> {
+                for (SseEmitter emitter : targets) {
+                    try {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        queue.drop(emitter, e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void route(OrderResponseDTO order) {
+        Map<KitchenStation, List<KitchenTicketDTO.Item>> itemsByStation = new EnumMap<>(KitchenStation.class);
+        for (OrderItemResponseDTO item : order.getItems()) {
+            KitchenStation station = item.getStation() != null ? item.getStation()
+                    : item.isSendToKitchen() ? defaultStation : null;
+            if (station == null) {
+                continue;
+            }
+            itemsByStation.computeIfAbsent(station, key -> new ArrayList<>()).add(KitchenTicketDTO.Item.builder()
+                    .recipeName(item.getRecipeName())
+                    .quantity(item.getQuantity())
+                    .notes(item.getItemNotes())
+                    .build());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        itemsByStation.forEach((station, items) -> stations.get(station).add(KitchenTicketDTO.builder()
+                .id(ticketIds.incrementAndGet())
+                .orderId(order.getId())
+                .tableNumber(order.getTableNumber())
+                .station(station)
+                .items(items)
+                .orderNotes(order.getNotes())
+                .createdAt(now)
+                .build()));
+    }
+
+    /**
+     * One station: open tickets by id (oldest first), recently bumped
+     * tickets for recall, and the displays waiting for changes.
+     */
+    private final class StationQueue {
+
+        private final KitchenStation station;
+        private final Timer ticketTime;
+
+        // Guarded by this
+        private final TreeMap<Long, KitchenTicketDTO> open = new TreeMap<>();
+        private final ArrayDeque<KitchenTicketDTO> bumped = new ArrayDeque<>();
+        private final List<CompletableFuture<StationTicketsDTO>> waiters = new ArrayList<>();
+        private long version = System.currentTimeMillis() * 1000;
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private StationQueue(KitchenStation station, Timer ticketTime) {
+            this.station = station;
+            this.ticketTime = ticketTime;
+        }
+
+        synchronized void add(KitchenTicketDTO ticket) {
+            // An order placed while the queues were loading arrives twice
+            if (containsOrder(ticket.getOrderId())) {
+                return;
+            }
+            open.put(ticket.getId(), ticket);
+            changed();
+        }
+
+        synchronized KitchenTicketDTO bump(Long ticketId) {
+            KitchenTicketDTO ticket = open.remove(ticketId);
+            if (ticket == null) {
+                throw new RuntimeException("Kitchen ticket not found with id: " + ticketId);
+            }
+
+            KitchenTicketDTO done = ticket.toBuilder().bumpedAt(LocalDateTime.now()).build();
+            bumped.addFirst(done);
+            if (bumped.size() > recallSize) {
+                bumped.removeLast();
+            }
+            ticketTime.record(Duration.between(ticket.getCreatedAt(), done.getBumpedAt()));
+            changed();
+            return done;
+        }
+
+        synchronized KitchenTicketDTO recall(Long ticketId) {
+            Iterator<KitchenTicketDTO> iterator = bumped.iterator();
+            while (iterator.hasNext()) {
+                KitchenTicketDTO ticket = iterator.next();
+                if (ticket.getId().equals(ticketId)) {
+                    iterator.remove();
+                    KitchenTicketDTO recalled = ticket.toBuilder().bumpedAt(null).build();
+                    open.put(recalled.getId(), recalled);
+                    changed();
+                    return recalled;
+                }
+            }
+            throw new RuntimeException("Bumped kitchen ticket not found with id: " + ticketId);
+        }
+
+        synchronized void removeOrder(Long orderId) {
+            bumped.removeIf(ticket -> orderId.equals(ticket.getOrderId()));
+            if (open.values().removeIf(ticket -> orderId.equals(ticket.getOrderId()))) {
+                changed();
+            }
+        }
+
+        synchronized StationTicketsDTO state() {
+            return StationTicketsDTO.builder()
+                    .station(station)
+                    .version(version)
+                    .tickets(List.copyOf(open.values()))
+                    .build();
+        }
+
+        synchronized CompletableFuture<StationTicketsDTO> awaitChange(long since) {
+            if (since != version) {
+                return CompletableFuture.completedFuture(state());
+            }
+            // Waits that timed out are completed by the caller
+            waiters.removeIf(CompletableFuture::isDone);
+            CompletableFuture<StationTicketsDTO> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        synchronized SseEmitter subscribe() {
+            SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+            emitter.onCompletion(() -> emitters.remove(emitter));
+            emitter.onTimeout(() -> emitters.remove(emitter));
+            emitter.onError(error -> emitters.remove(emitter));
+
+            emitters.add(emitter);
+            StationTicketsDTO current = state();
+            sender.execute(() -> send(emitter, current));
+            return emitter;
+        }
+
+        synchronized int depth() {
+            return open.size();
+        }
+
+        synchronized double oldestAgeSeconds() {
+            if (open.isEmpty()) {
+                return 0;
+            }
+            LocalDateTime oldest = open.firstEntry().getValue().getCreatedAt();
+            return Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+        }
+
+        private boolean containsOrder(Long orderId) {
+            return open.values().stream().anyMatch(ticket -> orderId.equals(ticket.getOrderId()))
+                    || bumped.stream().anyMatch(ticket -> orderId.equals(ticket.getOrderId()));
+        }
+
+        // Called with the lock held, so states are queued for sending in
+        // version order.
+        private void changed() {
+            version++;
+            StationTicketsDTO current = state();
+
+            waiters.forEach(waiter -> waiter.complete(current));
+            waiters.clear();
+
+            if (!emitters.isEmpty()) {
+                List<SseEmitter> targets = List.copyOf(emitters);
+                sender.execute(() -> targets.forEach(emitter -> send(emitter, current)));
+            }
+        }
+
+        private void send(SseEmitter emitter, StationTicketsDTO state) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(state.getVersion()))
+                        .name("tickets")
+                        .data(state, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                drop(emitter, e);
+            }
+        }
+
+        private void drop(SseEmitter emitter, Exception e) {
+            if (emitters.remove(emitter)) {
+                log.debug("Display of station {} dropped: {}", station, e.getMessage());
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.ProductAvailabilityDTO;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.repository.RecipeRepository;
+import com.stockmeister.backend.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Max sellable quantity of every active recipe, kept in memory for POS
+ * terminals. {@link StockEngine} reports each ingredient whose stock
+ * changed; a reverse index from ingredient to recipes limits the
+ * recomputation to the recipes using it. Changes are collected for
+ * {@code app.pos.availability.debounce-ms} and applied by one worker
+ * thread, so a busy order path only pays for marking ingredients dirty.
+ *
+ * Subscribers get a snapshot on connect, then an event whenever a recipe
+ * runs out ("86'd") or can be sold again. Quantities may lag the stock
+ * engine by the debounce delay; placing an order still checks the stock
+ * itself. A periodic full recompute covers ingredients owned by other
+ * cluster nodes, whose changes this node does not see; recipes edited on
+ * other nodes arrive as {@link ClusterEntityChangedEvent}s.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuAvailabilityIndex {
+
+    public static final String OUT_OF_STOCK = "out_of_stock";
+    public static final String BACK_IN_STOCK = "back_in_stock";
+
+    private final RecipeRepository recipeRepository;
+    private final StockEngine stockEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.pos.availability.debounce-ms:50}")
+    private long debounceMs;
+
+    @Value("${app.pos.availability.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+
+    // Guarded by this
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<Long>> recipesByIngredient = new HashMap<>();
+
+    private final Set<Long> dirtyIngredients = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "menu-availability");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void register() {
+        stockEngine.addChangeListener(this::ingredientChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Recipe> recipes = recipeRepository.findAllWithIngredients();
+        synchronized (this) {
+            entries.clear();
+            recipesByIngredient.clear();
+            for (Recipe recipe : recipes) {
+                put(RecipeBom.compile(recipe));
+            }
+        }
+        recompute(entryIds());
+        log.info("Menu availability index loaded for {} recipe(s)", recipes.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * Max sellable quantity of the recipe, or null if it is not on the menu.
+     */
+    public synchronized Integer getMaxQuantity(Long recipeId) {
+        Entry entry = entries.get(recipeId);
+        return entry != null ? entry.maxQuantity : null;
+    }
+
+    public synchronized List<ProductAvailabilityDTO> getAll() {
+        List<ProductAvailabilityDTO> all = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            all.add(entry.toDto());
+        }
+        all.sort(Comparator.comparing(ProductAvailabilityDTO::getRecipeId));
+        return all;
+    }
+
+    /**
+     * Re-reads the recipe after the current transaction commits: created or
+     * edited recipes are (re)indexed, deleted ones are dropped.
+     */
+    public void recipeChanged(Long recipeId) {
+        AfterCommit.run(() -> worker.execute(() -> reload(recipeId)));
+    }
+
+    @EventListener
+    public void onClusterEntityChanged(ClusterEntityChangedEvent event) {
+        if (event.isOf(Recipe.class)) {
+            recipeChanged(event.getId());
+        } else if (event.isResync()) {
+            worker.execute(this::load);
+        }
+    }
+
+    /**
+     * Opens an event stream that starts with a snapshot of all recipes.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+
+        // On the worker, so no transition is sent before the snapshot
+        // or lost between the two
+        worker.execute(() -> {
+            emitters.add(emitter);
+            send(emitter, "snapshot", getAll());
+        });
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.pos.availability.refresh-ms:60000}")
+    public void refresh() {
+        worker.execute(() -> recompute(entryIds()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.pos.availability.heartbeat-ms:15000}")
+    public void heartbeat() {
+        worker.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(emitter, e);
+                }
+            }
+        });
+    }
+
+    private void ingredientChanged(long ingredientId) {
+        dirtyIngredients.add(ingredientId);
+        if (flushScheduled.compareAndSet(false, true)) {
+            worker.schedule(this::flush, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        flushScheduled.set(false);
+
+        Set<Long> recipeIds = new HashSet<>();
+        synchronized (this) {
+            for (Iterator<Long> iterator = dirtyIngredients.iterator(); iterator.hasNext(); ) {
+                Set<Long> recipes = recipesByIngredient.get(iterator.next());
+                iterator.remove();
+                if (recipes != null) {
+                    recipeIds.addAll(recipes);
+                }
+            }
+        }
+        recompute(recipeIds);
+    }
+
+    private void reload(Long recipeId) {
+        // Compiled here rather than taken from RecipeBomCache, which may
+        // still hold the old lines until the editing thread evicts them
+        Recipe recipe = recipeRepository.findByIdWithIngredients(recipeId).orElse(null);
+        if (recipe == null || !recipe.isActive()) {
+            synchronized (this) {
+                remove(recipeId);
+            }
+            return;
+        }
+
+        RecipeBom bom = RecipeBom.compile(recipe);
+        synchronized (this) {
+            remove(recipeId);
+            put(bom);
+        }
+        recompute(List.of(recipeId));
+    }
+
+    // Stock is read outside the lock, so order placement never waits for
+    // a recompute.
+    private void recompute(Collection<Long> recipeIds) {
+        List<ProductAvailabilityDTO> outOfStock = new ArrayList<>();
+        List<ProductAvailabilityDTO> backInStock = new ArrayList<>();
+
+        for (Long recipeId : recipeIds) {
+            RecipeBom bom;
+            synchronized (this) {
+                Entry entry = entries.get(recipeId);
+                if (entry == null) {
+                    continue;
+                }
+                bom = entry.bom;
+            }
+
+            int maxQuantity;
+            try {
+                maxQuantity = bom.maxPortions(stockEngine::getAvailableMillis);
+            } catch (RuntimeException e) {
+                log.debug("Availability of recipe {} could not be computed: {}", recipeId, e.getMessage());
+                maxQuantity = 0;
+            }
+
+            synchronized (this) {
+                Entry entry = entries.get(recipeId);
+                if (entry == null || entry.bom != bom) {
+                    continue;
+                }
+                boolean wasAvailable = entry.maxQuantity > 0;
+                entry.maxQuantity = maxQuantity;
+                if (wasAvailable && maxQuantity <= 0) {
+                    outOfStock.add(entry.toDto());
+                } else if (!wasAvailable && maxQuantity > 0 && entry.computed) {
+                    backInStock.add(entry.toDto());
+                }
+                entry.computed = true;
+            }
+        }
+
+        for (SseEmitter emitter : emitters) {
+            outOfStock.forEach(product -> send(emitter, OUT_OF_STOCK, product));
+            backInStock.forEach(product -> send(emitter, BACK_IN_STOCK, product));
+        }
+        if (!outOfStock.isEmpty() || !backInStock.isEmpty()) {
+            log.info("Menu availability changed: {} recipe(s) out of stock, {} back in stock",
+                    outOfStock.size(), backInStock.size());
+            eventPublisher.publishEvent(new MenuChangedEvent("availability changed"));
+        }
+    }
+
+    // Called with the lock held
+    private void put(RecipeBom bom) {
+        entries.put(bom.getRecipeId(), new Entry(bom));
+        for (int i = 0; i < bom.size(); i++) {
+            recipesByIngredient.computeIfAbsent(bom.ingredientIdAt(i), id -> new HashSet<>())
+                    .add(bom.getRecipeId());
+        }
+    }
+
+    // Called with the lock held
+    private void remove(Long recipeId) {
+        Entry entry = entries.remove(recipeId);
+        if (entry == null) {
+            return;
+        }
+        for (int i = 0; i < entry.bom.size(); i++) {
+            Set<Long> recipes = recipesByIngredient.get(entry.bom.ingredientIdAt(i));
+            if (recipes != null && recipes.remove(recipeId) && recipes.isEmpty()) {
+                recipesByIngredient.remove(entry.bom.ingredientIdAt(i));
+            }
+        }
+    }
+
+    private synchronized List<Long> entryIds() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            drop(emitter, e);
+        }
+    }
+
+    private void drop(SseEmitter emitter, Exception e) {
+        if (emitters.remove(emitter)) {
+            log.debug("Availability subscriber dropped: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Entry {
+        private final RecipeBom bom;
+        private int maxQuantity;
+        // False until the first computation, which reports no transition
+        private boolean computed;
+
+        private Entry(RecipeBom bom) {
+            this.bom = bom;
+        }
+
+        private ProductAvailabilityDTO toDto() {
+            return ProductAvailabilityDTO.builder()
+                    .recipeId(bom.getRecipeId())
+                    .name(bom.getName())
+                    .maxQuantity(maxQuantity)
+                    .build();
+        }
+    }
+}
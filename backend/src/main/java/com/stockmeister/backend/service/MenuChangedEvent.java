@@ -0,0 +1,16 @@
+package com.stockmeister.backend.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published whenever something in the POS bootstrap bundle may have
+ * changed: a recipe, the restaurant settings or whether a product can be
+ * sold at all. See {@link PosBootstrapService}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class MenuChangedEvent {
+
+    private final String reason;
+}
@@ -0,0 +1,119 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.model.OrderDocument;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.repository.OrderDocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pre-rendered responses of finalized orders. A completed or cancelled
+ * order does not change any more, so its JSON is written once, in the
+ * transaction that finalizes it, and served as-is afterwards with a strong
+ * ETag. Orders finalized before documents existed have none and keep going
+ * through the entity path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class OrderDocumentService {
+
+    private final OrderDocumentRepository orderDocumentRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.orders.documents.max-age:P30D}")
+    private Duration maxAge;
+
+    public static boolean isFinal(OrderStatus status) {
+        return status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED;
+    }
+
+    /**
+     * Stores the document of a finalized order, replacing an older one if
+     * the order was reopened and finalized again. Active orders are ignored.
+     */
+    @Transactional
+    public void store(OrderResponseDTO order) {
+        if (!isFinal(order.getStatus())) {
+            return;
+        }
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render order document: " + e.getMessage(), e);
+        }
+
+        orderDocumentRepository.save(OrderDocument.builder()
+                .orderId(order.getId())
+                .body(body)
+                .etag(etag(body))
+                .createdAt(LocalDateTime.now())
+                .build());
+        log.debug("Stored document for order {} ({} bytes)", order.getId(), body.length);
+    }
+
+    /**
+     * Drops the document of an order that is active again or deleted.
+     */
+    @Transactional
+    public void remove(Long orderId) {
+        orderDocumentRepository.deleteById(orderId);
+    }
+
+    public Optional<OrderDocument> find(Long orderId) {
+        return orderDocumentRepository.findById(orderId);
+    }
+
+    public Map<Long, OrderDocument> findAll(Collection<Long> orderIds) {
+        return orderDocumentRepository.findAllByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(OrderDocument::getOrderId, Function.identity()));
+    }
+
+    public OrderResponseDTO read(OrderDocument document) {
+        try {
+            return objectMapper.readValue(document.getBody(), OrderResponseDTO.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read order document: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cache-Control for served documents. Private, because the API needs a
+     * login; long-lived, because the document only changes if an order is
+     * reopened, and the ETag catches that on revalidation.
+     */
+    public CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePrivate();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockmeister.backend.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * One order item row of an export, with the columns of its order repeated.
+ * Reused for every row of a result set, so an export keeps no rows around.
+ * Item fields are null for orders without items.
+ */
+public class OrderExportRow {
+
+    long orderId;
+    LocalDateTime createdAt;
+    String tableNumber;
+    String customerName;
+    String status;
+    String paymentMethod;
+    String waiterName;
+    BigDecimal subtotal;
+    BigDecimal taxAmount;
+    BigDecimal tip;
+    BigDecimal totalAmount;
+
+    Long itemId;
+    String recipeName;
+    Integer quantity;
+    BigDecimal unitPrice;
+    String itemNotes;
+
+    void read(ResultSet rs) throws SQLException {
+        orderId = rs.getLong("order_id");
+        Timestamp created = rs.getTimestamp("created_at");
+        createdAt = created != null ? created.toLocalDateTime() : null;
+        tableNumber = rs.getString("table_number");
+        customerName = rs.getString("customer_name");
+        status = rs.getString("status");
+        paymentMethod = rs.getString("payment_method");
+        waiterName = rs.getString("waiter_name");
+        subtotal = rs.getBigDecimal("subtotal");
+        taxAmount = rs.getBigDecimal("tax_amount");
+        tip = rs.getBigDecimal("tip");
+        totalAmount = rs.getBigDecimal("total_amount");
+
+        long item = rs.getLong("item_id");
+        itemId = rs.wasNull() ? null : item;
+        recipeName = rs.getString("recipe_name");
+        int qty = rs.getInt("quantity");
+        quantity = rs.wasNull() ? null : qty;
+        unitPrice = rs.getBigDecimal("unit_price");
+        itemNotes = rs.getString("item_notes");
+    }
+}
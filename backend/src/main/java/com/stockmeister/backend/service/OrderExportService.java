@@ -0,0 +1,92 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams orders and their items in creation order to an output stream.
+ * Rows come from a forward-only JDBC cursor and are written as they are
+ * read, so memory use does not depend on the size of the export. The
+ * transaction is needed for PostgreSQL to honour the fetch size.
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class OrderExportService {
+
+    private static final int FETCH_SIZE = 2000;
+
+    private static final String EXPORT_SQL = "SELECT o.id AS order_id, o.created_at, o.table_number, " +
+            "o.customer_name, o.status, o.payment_method, u.username AS waiter_name, o.subtotal, " +
+            "o.tax_amount, o.tip, o.total_amount, i.id AS item_id, i.recipe_name, i.quantity, " +
+            "i.unit_price, i.item_notes " +
+            "FROM orders o " +
+            "LEFT JOIN users u ON u.id = o.waiter_id " +
+            "LEFT JOIN order_items i ON i.order_id = o.id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    public OrderExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes all orders created in {@code [from, to)} (either bound optional)
+     * and returns the number of orders written. The stream is flushed but
+     * not closed.
+     */
+    public long export(LocalDateTime from, LocalDateTime to, Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(EXPORT_SQL).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY o.created_at, o.id, i.id");
+
+        long started = System.currentTimeMillis();
+        try {
+            OrderExportWriter writer = OrderExportWriter.create(format, out, objectMapper.getFactory());
+            OrderExportRow row = new OrderExportRow();
+
+            streamingJdbcTemplate.query(sql.toString(), rs -> {
+                row.read(rs);
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+
+            writer.finish();
+            log.info("Exported {} order(s) as {} in {} ms", writer.getOrderCount(), format,
+                    System.currentTimeMillis() - started);
+            return writer.getOrderCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
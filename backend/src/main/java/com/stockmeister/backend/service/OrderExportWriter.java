@@ -0,0 +1,179 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes export rows, ordered by order, to a stream as they arrive.
+ * NDJSON has one line per order with its items nested; CSV has one line per
+ * item with the order columns repeated.
+ */
+abstract class OrderExportWriter {
+
+    protected final Writer out;
+    private long orderCount;
+    private long lastOrderId = -1;
+
+    protected OrderExportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static OrderExportWriter create(OrderExportService.Format format, OutputStream out, JsonFactory jsonFactory)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(out, jsonFactory);
+            case CSV -> new Csv(out);
+        };
+    }
+
+    void write(OrderExportRow row) throws IOException {
+        boolean newOrder = row.orderId != lastOrderId;
+        if (newOrder) {
+            if (lastOrderId != -1) {
+                endOrder();
+            }
+            lastOrderId = row.orderId;
+            orderCount++;
+        }
+        writeRow(row, newOrder);
+    }
+
+    void finish() throws IOException {
+        if (lastOrderId != -1) {
+            endOrder();
+        }
+        out.flush();
+    }
+
+    long getOrderCount() {
+        return orderCount;
+    }
+
+    protected abstract void writeRow(OrderExportRow row, boolean newOrder) throws IOException;
+
+    protected void endOrder() throws IOException {
+    }
+
+    private static class Ndjson extends OrderExportWriter {
+
+        private final JsonGenerator json;
+
+        Ndjson(OutputStream out, JsonFactory jsonFactory) throws IOException {
+            super(out);
+            this.json = jsonFactory.createGenerator(this.out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeRow(OrderExportRow row, boolean newOrder) throws IOException {
+            if (newOrder) {
+                json.writeStartObject();
+                json.writeNumberField("id", row.orderId);
+                json.writeStringField("createdAt", row.createdAt != null ? row.createdAt.toString() : null);
+                json.writeStringField("tableNumber", row.tableNumber);
+                json.writeStringField("customerName", row.customerName);
+                json.writeStringField("status", row.status);
+                json.writeStringField("paymentMethod", row.paymentMethod);
+                json.writeStringField("waiterName", row.waiterName);
+                writeDecimal("subtotal", row.subtotal);
+                writeDecimal("taxAmount", row.taxAmount);
+                writeDecimal("tip", row.tip);
+                writeDecimal("totalAmount", row.totalAmount);
+                json.writeArrayFieldStart("items");
+            }
+
+            if (row.itemId != null) {
+                json.writeStartObject();
+                json.writeNumberField("id", row.itemId);
+                json.writeStringField("recipeName", row.recipeName);
+                if (row.quantity != null) {
+                    json.writeNumberField("quantity", row.quantity);
+                }
+                writeDecimal("unitPrice", row.unitPrice);
+                json.writeStringField("notes", row.itemNotes);
+                json.writeEndObject();
+            }
+        }
+
+        @Override
+        protected void endOrder() throws IOException {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.flush();
+            out.write('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            super.finish();
+            json.close();
+        }
+
+        private void writeDecimal(String field, BigDecimal value) throws IOException {
+            if (value != null) {
+                json.writeNumberField(field, value);
+            } else {
+                json.writeNullField(field);
+            }
+        }
+    }
+
+    private static class Csv extends OrderExportWriter {
+
+        private static final String HEADER = "order_id,created_at,table_number,customer_name,status," +
+                "payment_method,waiter,subtotal,tax_amount,tip,total_amount," +
+                "item_id,recipe_name,quantity,unit_price,item_notes\n";
+
+        Csv(OutputStream out) throws IOException {
+            super(out);
+            this.out.write(HEADER);
+        }
+
+        @Override
+        protected void writeRow(OrderExportRow row, boolean newOrder) throws IOException {
+            out.write(Long.toString(row.orderId));
+            field(row.createdAt != null ? row.createdAt.toString() : null);
+            field(row.tableNumber);
+            field(row.customerName);
+            field(row.status);
+            field(row.paymentMethod);
+            field(row.waiterName);
+            field(row.subtotal);
+            field(row.taxAmount);
+            field(row.tip);
+            field(row.totalAmount);
+            field(row.itemId);
+            field(row.recipeName);
+            field(row.quantity);
+            field(row.unitPrice);
+            field(row.itemNotes);
+            out.write('\n');
+        }
+
+        private void field(Object value) throws IOException {
+            out.write(',');
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+                    && text.indexOf('\r') < 0) {
+                out.write(text);
+                return;
+            }
+            out.write('"');
+            out.write(text.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
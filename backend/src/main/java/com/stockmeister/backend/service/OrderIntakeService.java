@@ -0,0 +1,234 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.BatchOrderResultDTO;
+import com.stockmeister.backend.dto.OrderRequestDTO;
+import com.stockmeister.backend.dto.OrderTicketDTO;
+import com.stockmeister.backend.dto.OrderTicketDTO.Status;
+import com.stockmeister.backend.exception.IntakeQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous order intake. Submitted orders go into a bounded ring buffer
+ * and get a ticket right away; one writer thread drains the buffer in
+ * micro-batches and places each batch with
+ * {@link OrderService#placeOrders}, so many orders share one transaction
+ * (group commit). If a batch fails as a whole, its orders are retried one
+ * by one so a single bad order does not fail the others.
+ *
+ * Tickets are kept for {@code app.orders.async.ticket-ttl} after completion.
+ * A ticket's id doubles as the client order id when the terminal did not
+ * send one.
+ */
+@Service
+@ConditionalOnProperty(name = "app.orders.async.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIntakeService {
+
+    private final OrderService orderService;
+
+    @Value("${app.orders.async.capacity:4096}")
+    private int capacity;
+
+    @Value("${app.orders.async.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${app.orders.async.ticket-ttl:PT15M}")
+    private Duration ticketTtl;
+
+    private BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    // Orders per second of the last batches, for the Retry-After hint
+    private volatile double drainRate;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::drain, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Async order intake started (capacity {}, batches of up to {})", capacity, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        log.info("Async order intake stopped, {} order(s) left in queue", queue.size());
+    }
+
+    /**
+     * Queues the order and returns its ticket. Throws
+     * {@link IntakeQueueFullException} if the queue is full.
+     */
+    public OrderTicketDTO submit(OrderRequestDTO orderRequest) {
+        String ticketId = UUID.randomUUID().toString();
+        if (orderRequest.getClientOrderId() == null || orderRequest.getClientOrderId().isBlank()) {
+            orderRequest.setClientOrderId(ticketId);
+        }
+
+        Ticket ticket = new Ticket(ticketId, orderRequest);
+        tickets.put(ticketId, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticketId);
+            throw new IntakeQueueFullException(capacity, retryAfterSeconds());
+        }
+        return ticket.snapshot();
+    }
+
+    public OrderTicketDTO getTicket(String ticketId) {
+        return findTicket(ticketId).snapshot();
+    }
+
+    /**
+     * Completes with the ticket once its order has been processed. Each
+     * caller gets its own future, so timing one out does not affect others.
+     */
+    public CompletableFuture<OrderTicketDTO> awaitTicket(String ticketId) {
+        return findTicket(ticketId).done.copy();
+    }
+
+    private Ticket findTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new RuntimeException("Order ticket not found with id: " + ticketId);
+        }
+        return ticket;
+    }
+
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+
+                long started = System.nanoTime();
+                place(batch);
+                drainRate = batch.size() / Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void place(List<Ticket> batch) {
+        List<OrderRequestDTO> requests = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            requests.add(ticket.request);
+        }
+
+        try {
+            List<BatchOrderResultDTO> results = orderService.placeOrders(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+            log.debug("Placed {} queued order(s) in one transaction", batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.warn("Queued order {} failed: {}", batch.get(0).id, e.getMessage());
+                batch.get(0).fail(e.getMessage());
+                return;
+            }
+            log.warn("Batch of {} queued order(s) failed ({}), placing them one by one",
+                    batch.size(), e.getMessage());
+            for (Ticket ticket : batch) {
+                place(List.of(ticket));
+            }
+        }
+    }
+
+    private long retryAfterSeconds() {
+        double rate = drainRate;
+        if (rate <= 0) {
+            return 1;
+        }
+        return Math.max(1, (long) Math.ceil(queue.size() / rate));
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.async.ticket-cleanup-ms:60000}")
+    public void evictCompletedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.isBefore(cutoff));
+    }
+
+    private static class Ticket {
+        private final String id;
+        private final OrderRequestDTO request;
+        private final LocalDateTime queuedAt = LocalDateTime.now();
+        private final CompletableFuture<OrderTicketDTO> done = new CompletableFuture<>();
+
+        private volatile Status status = Status.QUEUED;
+        private volatile BatchOrderResultDTO result;
+        private volatile String message;
+        private volatile LocalDateTime completedAt;
+
+        private Ticket(String id, OrderRequestDTO request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private void complete(BatchOrderResultDTO result) {
+            this.result = result;
+            this.message = result.getMessage();
+            finish(Status.valueOf(result.getOutcome().name()));
+        }
+
+        private void fail(String message) {
+            this.message = message;
+            finish(Status.FAILED);
+        }
+
+        private void finish(Status status) {
+            this.completedAt = LocalDateTime.now();
+            this.status = status;
+            done.complete(snapshot());
+        }
+
+        private OrderTicketDTO snapshot() {
+            BatchOrderResultDTO current = result;
+            return OrderTicketDTO.builder()
+                    .ticketId(id)
+                    .status(status)
+                    .orderId(current != null ? current.getOrderId() : null)
+                    .shortages(current != null ? current.getShortages() : null)
+                    .message(message)
+                    .queuedAt(queuedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.stockmeister.backend.service;
 
+import com.stockmeister.backend.dto.BatchOrderResultDTO;
+import com.stockmeister.backend.dto.BatchOrderResultDTO.Outcome;
+import com.stockmeister.backend.dto.KeysetPage;
+import com.stockmeister.backend.dto.OrderFilter;
 import com.stockmeister.backend.dto.OrderItemRequestDTO;
 import com.stockmeister.backend.dto.OrderRequestDTO;
 import com.stockmeister.backend.dto.OrderResponseDTO;
 import com.stockmeister.backend.exception.InsufficientStockException;
-import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
 import com.stockmeister.backend.model.*;
 import com.stockmeister.backend.repository.*;
+import com.stockmeister.backend.util.StockAmountMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,11 +18,17 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,30 +40,186 @@ public class OrderService {
     private final OrderRepository orderRepository;
 
     private final RecipeRepository recipeRepository;
-    private final IngredientRepository ingredientRepository;
     private final UserRepository userRepository;
+    private final StockEngine stockEngine;
+    private final StockUpdateService stockUpdateService;
+    private final StockReservationService stockReservationService;
+    private final RecipeBomCache recipeBomCache;
+    private final OrderDocumentService orderDocumentService;
+    private final ActiveOrderBoard activeOrderBoard;
+    private final KitchenTicketService kitchenTicketService;
 
     private static final String DEFAULT_WAITER_USERNAME = "DemoWaiter";
     private static final BigDecimal DEFAULT_TAX_RATE = new BigDecimal("0.05");
+    private static final int MAX_PAGE_SIZE = 200;
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public OrderResponseDTO placeOrder(OrderRequestDTO orderRequest) {
         log.info("Placing order for table: {}", orderRequest.getTableNumber());
 
+        if (orderRequest.getClientOrderId() != null
+                && orderRepository.existsByClientOrderId(orderRequest.getClientOrderId())) {
+            throw new RuntimeException("Order already exists with client order id: "
+                    + orderRequest.getClientOrderId());
+        }
+
         User waiter = getOrCreateWaiter();
         log.info("Order assigned to waiter: {}", waiter.getUsername());
 
-        Map<Long, Recipe> recipeMap = new HashMap<>();
-        for (OrderItemRequestDTO item : orderRequest.getItems()) {
-            Recipe recipe = recipeRepository.findByIdWithIngredients(item.getRecipeId())
-                    .orElseThrow(() -> new RuntimeException(
-                            "Recipe not found with id: " + item.getRecipeId()));
-            recipeMap.put(item.getRecipeId(), recipe);
+        Map<Long, RecipeBom> bomMap = loadBoms(orderRequest.getItems());
+
+        StockAmountMap requiredAmounts = calculateRequiredAmounts(orderRequest.getItems(), bomMap);
+
+        Order order = buildOrder(orderRequest, waiter, bomMap, requiredAmounts);
+        log.info("Order totals calculated - Subtotal: {}, Tax: {}, Total: {}",
+                order.getSubtotal(), order.getTaxAmount(), order.getTotalAmount());
+
+        Order savedOrder = orderRepository.save(order);
+
+        stockReservationService.reserveForOrder(savedOrder.getId(), requiredAmounts);
+        log.info("Order {} created successfully for table {}",
+                savedOrder.getId(), savedOrder.getTableNumber());
+
+        OrderResponseDTO response = OrderResponseDTO.fromEntityWithItems(savedOrder);
+        activeOrderBoard.orderChanged(response);
+        kitchenTicketService.orderPlaced(response);
+        return response;
+    }
+
+    /**
+     * Places orders queued by an offline POS terminal in one transaction.
+     * Recipes are loaded once for the whole batch and stock is held order by
+     * order in client creation order, so earlier orders win when stock runs
+     * out. Accepted orders, their items and reservations are then inserted
+     * with JDBC batching. Results are returned in request order.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<BatchOrderResultDTO> placeOrders(List<OrderRequestDTO> orderRequests) {
+        log.info("Placing batch of {} order(s)", orderRequests.size());
+
+        User waiter = getOrCreateWaiter();
+        Map<String, Long> existingIds = findExistingOrderIds(orderRequests);
+        Map<Long, RecipeBom> bomMap = recipeBomCache.getAll(orderRequests.stream()
+                .flatMap(request -> request.getItems().stream())
+                .map(OrderItemRequestDTO::getRecipeId)
+                .collect(Collectors.toSet()));
+
+        BatchOrderResultDTO[] results = new BatchOrderResultDTO[orderRequests.size()];
+        Map<String, Integer> firstIndexByClientId = new HashMap<>();
+        Map<Integer, StockAmountMap> accepted = new LinkedHashMap<>();
+
+        for (int index : inClientOrder(orderRequests)) {
+            OrderRequestDTO request = orderRequests.get(index);
+            String clientOrderId = request.getClientOrderId();
+
+            if (clientOrderId == null || clientOrderId.isBlank()) {
+                results[index] = result(clientOrderId, Outcome.INVALID, "Client order id is required");
+                continue;
+            }
+            if (existingIds.containsKey(clientOrderId)
+                    || firstIndexByClientId.putIfAbsent(clientOrderId, index) != null) {
+                results[index] = result(clientOrderId, Outcome.DUPLICATE, null);
+                continue;
+            }
+
+            Long missingRecipeId = findMissingRecipe(request.getItems(), bomMap);
+            if (missingRecipeId != null) {
+                results[index] = result(clientOrderId, Outcome.INVALID,
+                        "Recipe not found with id: " + missingRecipeId);
+                continue;
+            }
+
+            StockAmountMap requiredAmounts = calculateRequiredAmounts(request.getItems(), bomMap);
+            try {
+                stockEngine.hold(requiredAmounts);
+                accepted.put(index, requiredAmounts);
+            } catch (InsufficientStockException e) {
+                results[index] = result(clientOrderId, Outcome.SHORTAGE, e.getMessage());
+                results[index].setShortages(e.getShortages());
+            }
+        }
+
+        List<Order> orders = new ArrayList<>(accepted.size());
+        accepted.forEach((index, requiredAmounts) ->
+                orders.add(buildOrder(orderRequests.get(index), waiter, bomMap, requiredAmounts)));
+        orderRepository.insertBatch(orders);
+
+        Map<Long, StockAmountMap> amountsByOrder = new LinkedHashMap<>();
+        Map<String, Long> createdIds = new HashMap<>();
+        int position = 0;
+        for (Map.Entry<Integer, StockAmountMap> entry : accepted.entrySet()) {
+            Order order = orders.get(position++);
+            if (!entry.getValue().isEmpty()) {
+                amountsByOrder.put(order.getId(), entry.getValue());
+            }
+            createdIds.put(order.getClientOrderId(), order.getId());
+            results[entry.getKey()] = result(order.getClientOrderId(), Outcome.CREATED, null);
+            results[entry.getKey()].setOrderId(order.getId());
+            OrderResponseDTO created = OrderResponseDTO.fromEntityWithItems(order);
+            activeOrderBoard.orderChanged(created);
+            kitchenTicketService.orderPlaced(created);
+        }
+        stockReservationService.recordHeldForOrders(amountsByOrder);
+
+        for (BatchOrderResultDTO result : results) {
+            if (result.getOutcome() == Outcome.DUPLICATE) {
+                Long orderId = existingIds.getOrDefault(result.getClientOrderId(),
+                        createdIds.get(result.getClientOrderId()));
+                result.setOrderId(orderId);
+            }
+        }
+
+        log.info("Batch placed: {} of {} order(s) created", orders.size(), orderRequests.size());
+        return List.of(results);
+    }
+
+    private Map<String, Long> findExistingOrderIds(List<OrderRequestDTO> orderRequests) {
+        Set<String> clientOrderIds = orderRequests.stream()
+                .map(OrderRequestDTO::getClientOrderId)
+                .filter(id -> id != null && !id.isBlank())
+                .collect(Collectors.toSet());
+        if (clientOrderIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Long> existingIds = new HashMap<>();
+        for (Object[] row : orderRepository.findIdsByClientOrderIds(clientOrderIds)) {
+            existingIds.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return existingIds;
+    }
+
+    // Request indexes sorted by client creation time; orders without one
+    // keep their position after all timed ones.
+    private static int[] inClientOrder(List<OrderRequestDTO> orderRequests) {
+        return IntStream.range(0, orderRequests.size())
+                .boxed()
+                .sorted(Comparator.comparing(
+                        (Integer index) -> orderRequests.get(index).getClientCreatedAt(),
+                        Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static Long findMissingRecipe(List<OrderItemRequestDTO> items, Map<Long, RecipeBom> bomMap) {
+        for (OrderItemRequestDTO item : items) {
+            if (!bomMap.containsKey(item.getRecipeId())) {
+                return item.getRecipeId();
+            }
         }
+        return null;
+    }
 
-        validateStockForOrder(orderRequest.getItems(), recipeMap);
-        log.info("Stock validation passed for {} item(s)", orderRequest.getItems().size());
+    private static BatchOrderResultDTO result(String clientOrderId, Outcome outcome, String message) {
+        return BatchOrderResultDTO.builder()
+                .clientOrderId(clientOrderId)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
 
+    private Order buildOrder(OrderRequestDTO orderRequest, User waiter, Map<Long, RecipeBom> bomMap,
+            StockAmountMap requiredAmounts) {
         Order order = Order.builder()
                 .tableNumber(orderRequest.getTableNumber())
                 .customerName(orderRequest.getCustomerName())
@@ -65,118 +231,55 @@ public class OrderService {
                 .paymentMethod(orderRequest.getPaymentMethod() != null
                         ? orderRequest.getPaymentMethod()
                         : PaymentMethod.UNPAID)
+                .stockConsumption(requiredAmounts.toBytes())
+                .clientOrderId(orderRequest.getClientOrderId())
+                .clientCreatedAt(orderRequest.getClientCreatedAt())
                 .build();
 
         for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
-            Recipe recipe = recipeMap.get(itemRequest.getRecipeId());
-            OrderItem orderItem = OrderItem.fromRecipe(
-                    recipe,
-                    itemRequest.getQuantity(),
-                    itemRequest.getNotes());
+            RecipeBom bom = bomMap.get(itemRequest.getRecipeId());
+            OrderItem orderItem = OrderItem.builder()
+                    .recipe(recipeRepository.getReferenceById(bom.getRecipeId()))
+                    .recipeName(bom.getName())
+                    .quantity(itemRequest.getQuantity())
+                    .unitPrice(bom.getSellingPrice())
+                    .itemNotes(itemRequest.getNotes())
+                    .build();
             order.addOrderItem(orderItem);
         }
 
         order.calculateTotals();
-        log.info("Order totals calculated - Subtotal: {}, Tax: {}, Total: {}",
-                order.getSubtotal(), order.getTaxAmount(), order.getTotalAmount());
 
         if (orderRequest.getAmountReceived() != null) {
             order.setAmountReceived(orderRequest.getAmountReceived());
             order.calculateChange();
         }
-
-        deductStockForOrder(orderRequest.getItems(), recipeMap);
-        log.info("Stock deducted for all order items");
-
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order {} created successfully for table {}",
-                savedOrder.getId(), savedOrder.getTableNumber());
-
-        return OrderResponseDTO.fromEntityWithItems(savedOrder);
+        return order;
     }
 
-    private void validateStockForOrder(List<OrderItemRequestDTO> items, Map<Long, Recipe> recipeMap) {
-        Map<Long, BigDecimal> requiredAmounts = new HashMap<>();
-        Map<Long, Ingredient> ingredientMap = new HashMap<>();
-
-        for (OrderItemRequestDTO item : items) {
-            Recipe recipe = recipeMap.get(item.getRecipeId());
-            if (recipe.getIngredients() == null)
-                continue;
-
-            for (RecipeIngredient ri : recipe.getIngredients()) {
-                Ingredient ingredient = ri.getIngredient();
-                Long ingredientId = ingredient.getId();
-
-                BigDecimal amountForItem = ri.getAmount()
-                        .multiply(BigDecimal.valueOf(item.getQuantity()));
-
-                requiredAmounts.merge(ingredientId, amountForItem, BigDecimal::add);
-                ingredientMap.put(ingredientId, ingredient);
-            }
-        }
-
-        List<StockShortage> shortages = new ArrayList<>();
-
-        for (Map.Entry<Long, BigDecimal> entry : requiredAmounts.entrySet()) {
-            Long ingredientId = entry.getKey();
-            BigDecimal required = entry.getValue();
-            Ingredient ingredient = ingredientMap.get(ingredientId);
-
-            BigDecimal available = ingredient.getCurrentStock() != null
-                    ? ingredient.getCurrentStock()
-                    : BigDecimal.ZERO;
+    private Map<Long, RecipeBom> loadBoms(List<OrderItemRequestDTO> items) {
+        List<Long> recipeIds = items.stream()
+                .map(OrderItemRequestDTO::getRecipeId)
+                .collect(Collectors.toList());
+        Map<Long, RecipeBom> bomMap = recipeBomCache.getAll(recipeIds);
 
-            if (available.compareTo(required) < 0) {
-                shortages.add(new StockShortage(
-                        ingredientId,
-                        ingredient.getName(),
-                        ingredient.getUnit(),
-                        required.setScale(3, RoundingMode.HALF_UP),
-                        available.setScale(3, RoundingMode.HALF_UP)));
+        for (Long recipeId : recipeIds) {
+            if (!bomMap.containsKey(recipeId)) {
+                throw new RuntimeException("Recipe not found with id: " + recipeId);
             }
         }
-
-        if (!shortages.isEmpty()) {
-            log.warn("Stock validation failed: {} ingredient(s) have insufficient stock",
-                    shortages.size());
-            throw new InsufficientStockException(shortages);
-        }
+        return bomMap;
     }
 
-    private void deductStockForOrder(List<OrderItemRequestDTO> items, Map<Long, Recipe> recipeMap) {
-        Map<Long, BigDecimal> deductAmounts = new HashMap<>();
-        Map<Long, Ingredient> ingredientMap = new HashMap<>();
+    private StockAmountMap calculateRequiredAmounts(List<OrderItemRequestDTO> items,
+            Map<Long, RecipeBom> bomMap) {
+        StockAmountMap requiredAmounts = new StockAmountMap();
 
         for (OrderItemRequestDTO item : items) {
-            Recipe recipe = recipeMap.get(item.getRecipeId());
-            if (recipe.getIngredients() == null)
-                continue;
-
-            for (RecipeIngredient ri : recipe.getIngredients()) {
-                Ingredient ingredient = ri.getIngredient();
-                Long ingredientId = ingredient.getId();
-
-                BigDecimal amountForItem = ri.getAmount()
-                        .multiply(BigDecimal.valueOf(item.getQuantity()));
-
-                deductAmounts.merge(ingredientId, amountForItem, BigDecimal::add);
-                ingredientMap.put(ingredientId, ingredient);
-            }
+            bomMap.get(item.getRecipeId()).addRequirements(item.getQuantity(), requiredAmounts);
         }
 
-        for (Map.Entry<Long, BigDecimal> entry : deductAmounts.entrySet()) {
-            Long ingredientId = entry.getKey();
-            BigDecimal deductAmount = entry.getValue();
-            Ingredient ingredient = ingredientMap.get(ingredientId);
-
-            BigDecimal newStock = ingredient.getCurrentStock().subtract(deductAmount);
-            ingredient.setCurrentStock(newStock);
-            ingredientRepository.save(ingredient);
-
-            log.debug("Deducted {} {} from '{}'. New stock: {}",
-                    deductAmount, ingredient.getUnit(), ingredient.getName(), newStock);
-        }
+        return requiredAmounts;
     }
 
     private User getOrCreateWaiter() {
@@ -194,6 +297,66 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Orders matching the filter, newest first, one page at a time. Loads
+     * the page's ids first and then fetches only those orders with their
+     * items. {@code cursor} is the {@code nextCursor} of the previous page.
+     */
+    public KeysetPage<OrderResponseDTO, String> getOrderHistory(OrderFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            beforeCreatedAt = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+
+        List<Long> ids = orderRepository.findPageIds(filter, beforeCreatedAt, beforeId, pageSize);
+        if (ids.isEmpty()) {
+            return new KeysetPage<>(List.of(), null);
+        }
+
+        // Finalized orders come from their documents; only the rest are
+        // loaded with their items.
+        Map<Long, OrderResponseDTO> orders = new HashMap<>();
+        orderDocumentService.findAll(ids)
+                .forEach((id, document) -> orders.put(id, orderDocumentService.read(document)));
+        List<Long> missing = ids.stream().filter(id -> !orders.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            orderRepository.findAllByIdInWithItems(missing)
+                    .forEach(order -> orders.put(order.getId(), OrderResponseDTO.fromEntityWithItems(order)));
+        }
+        List<OrderResponseDTO> items = ids.stream()
+                .map(orders::get)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (ids.size() == pageSize) {
+            OrderResponseDTO last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String position = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("_", 2);
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+
     public OrderResponseDTO getOrderById(Long id) {
         log.info("Fetching order with id: {}", id);
         Order order = orderRepository.findByIdWithItems(id)
@@ -201,31 +364,53 @@ public class OrderService {
         return OrderResponseDTO.fromEntityWithItems(order);
     }
 
+    @SingleFlight
     public List<OrderResponseDTO> getOrdersByStatus(OrderStatus status) {
         log.info("Fetching orders with status: {}", status);
         return orderRepository.findByStatusWithItems(status).stream()
                 .map(OrderResponseDTO::fromEntityWithItems)
-                .collect(Collectors.toList());
+                .toList();
     }
 
+    @SingleFlight
     public List<OrderResponseDTO> getActiveOrders() {
         log.info("Fetching active orders");
         return orderRepository.findActiveOrdersWithItems().stream()
                 .map(OrderResponseDTO::fromEntityWithItems)
-                .collect(Collectors.toList());
+                .toList();
     }
 
     @Transactional
     public OrderResponseDTO updateOrderStatus(Long id, OrderStatus newStatus) {
         log.info("Updating order {} status to {}", id, newStatus);
 
-        Order order = orderRepository.findByIdWithItems(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        Order order = lockOrder(id);
+
+        if (order.getStatus() == OrderStatus.CANCELLED && newStatus != OrderStatus.CANCELLED) {
+            throw new RuntimeException("Cannot change the status of a cancelled order");
+        }
+
+        if (newStatus == OrderStatus.COMPLETED && order.getStatus() != OrderStatus.COMPLETED) {
+            consumeStockForOrder(order);
+        } else if (newStatus == OrderStatus.CANCELLED && order.getStatus() != OrderStatus.CANCELLED) {
+            if (order.getStatus() == OrderStatus.COMPLETED) {
+                throw new RuntimeException("Cannot cancel a completed order");
+            }
+            releaseStockForOrder(order);
+            kitchenTicketService.orderCancelled(id);
+        }
 
         order.setStatus(newStatus);
-        Order savedOrder = orderRepository.save(order);
+        Order savedOrder = orderRepository.saveAndFlush(order);
 
-        return OrderResponseDTO.fromEntityWithItems(savedOrder);
+        OrderResponseDTO response = OrderResponseDTO.fromEntityWithItems(savedOrder);
+        if (OrderDocumentService.isFinal(newStatus)) {
+            orderDocumentService.store(response);
+        } else {
+            orderDocumentService.remove(id);
+        }
+        activeOrderBoard.orderChanged(response);
+        return response;
     }
 
     @Transactional
@@ -233,8 +418,11 @@ public class OrderService {
             BigDecimal amountReceived, BigDecimal tip) {
         log.info("Completing payment for order {}", id);
 
-        Order order = orderRepository.findByIdWithItems(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        Order order = lockOrder(id);
+
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new RuntimeException("Cannot complete payment of a cancelled order");
+        }
 
         order.setPaymentMethod(paymentMethod);
 
@@ -248,22 +436,28 @@ public class OrderService {
             order.calculateChange();
         }
 
+        if (order.getStatus() != OrderStatus.COMPLETED) {
+            consumeStockForOrder(order);
+        }
+
         order.setStatus(OrderStatus.COMPLETED);
-        Order savedOrder = orderRepository.save(order);
+        Order savedOrder = orderRepository.saveAndFlush(order);
 
         log.info("Payment completed for order {}. Total: {}, Received: {}, Change: {}",
                 id, savedOrder.getTotalAmount(), savedOrder.getAmountReceived(),
                 savedOrder.getChangeAmount());
 
-        return OrderResponseDTO.fromEntityWithItems(savedOrder);
+        OrderResponseDTO response = OrderResponseDTO.fromEntityWithItems(savedOrder);
+        orderDocumentService.store(response);
+        activeOrderBoard.orderChanged(response);
+        return response;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public OrderResponseDTO cancelOrder(Long id) {
         log.info("Cancelling order {}", id);
 
-        Order order = orderRepository.findByIdWithItems(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        Order order = lockOrder(id);
 
         if (order.getStatus() == OrderStatus.COMPLETED) {
             throw new RuntimeException("Cannot cancel a completed order");
@@ -273,48 +467,78 @@ public class OrderService {
             throw new RuntimeException("Order is already cancelled");
         }
 
-        restoreStockForOrder(order);
+        releaseStockForOrder(order);
 
         order.setStatus(OrderStatus.CANCELLED);
-        Order savedOrder = orderRepository.save(order);
+        Order savedOrder = orderRepository.saveAndFlush(order);
 
-        log.info("Order {} cancelled and stock restored", id);
+        kitchenTicketService.orderCancelled(id);
+        log.info("Order {} cancelled and stock released", id);
 
-        return OrderResponseDTO.fromEntityWithItems(savedOrder);
+        OrderResponseDTO response = OrderResponseDTO.fromEntityWithItems(savedOrder);
+        orderDocumentService.store(response);
+        activeOrderBoard.orderChanged(response);
+        return response;
     }
 
-    private void restoreStockForOrder(Order order) {
-        for (OrderItem item : order.getOrderItems()) {
-            Recipe recipe = recipeRepository.findByIdWithIngredients(item.getRecipe().getId())
-                    .orElse(null);
-
-            if (recipe == null || recipe.getIngredients() == null)
-                continue;
+    // Takes the order row lock before loading the order with its items, so
+    // the status read here stays current until the transaction ends. Expiry
+    // and the other status changes take the same lock.
+    private Order lockOrder(Long id) {
+        orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        return orderRepository.findByIdWithItems(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+    }
 
-            for (RecipeIngredient ri : recipe.getIngredients()) {
-                Ingredient ingredient = ri.getIngredient();
-                BigDecimal restoreAmount = ri.getAmount()
-                        .multiply(BigDecimal.valueOf(item.getQuantity()));
+    // Expiry and cancellation both leave the order CANCELLED, which callers
+    // rule out under the row lock. A non-cancelled order without reservations
+    // therefore had its stock deducted already: it was placed before
+    // reservations existed, or completed and then reopened.
+    private void consumeStockForOrder(Order order) {
+        if (!stockReservationService.consumeForOrder(order.getId())) {
+            log.info("Order {} has no stock reservation, its stock was deducted before", order.getId());
+        }
+    }
 
-                BigDecimal newStock = ingredient.getCurrentStock().add(restoreAmount);
-                ingredient.setCurrentStock(newStock);
-                ingredientRepository.save(ingredient);
+    // Without a reservation the stock has already been deducted (see
+    // consumeStockForOrder) and is given back.
+    private void releaseStockForOrder(Order order) {
+        if (!stockReservationService.releaseForOrder(order.getId())) {
+            restoreStockForOrder(order);
+        }
+    }
 
-                log.debug("Restored {} {} to '{}'. New stock: {}",
-                        restoreAmount, ingredient.getUnit(), ingredient.getName(), newStock);
+    private void restoreStockForOrder(Order order) {
+        StockAmountMap restoreAmounts;
+
+        if (order.getStockConsumption() != null) {
+            restoreAmounts = StockAmountMap.fromBytes(order.getStockConsumption());
+        } else {
+            // Older orders have no snapshot; their recipes may have changed since.
+            restoreAmounts = new StockAmountMap();
+            for (OrderItem item : order.getOrderItems()) {
+                recipeBomCache.get(item.getRecipe().getId())
+                        .addRequirements(item.getQuantity(), restoreAmounts);
             }
         }
+
+        stockUpdateService.restore(restoreAmounts, StockMovementCause.ORDER_CANCELLED, order.getId());
+        stockEngine.restore(restoreAmounts);
     }
 
     @Transactional
     public void deleteOrder(Long id) {
         log.info("Deleting order {}", id);
 
-        if (!orderRepository.existsById(id)) {
-            throw new RuntimeException("Order not found with id: " + id);
-        }
+        orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
+        stockReservationService.releaseForOrder(id);
+        orderDocumentService.remove(id);
         orderRepository.deleteById(id);
+        activeOrderBoard.orderRemoved(id);
+        kitchenTicketService.orderCancelled(id);
         log.info("Order {} deleted", id);
     }
 }
@@ -0,0 +1,156 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmeister.backend.dto.PosBootstrapDTO;
+import com.stockmeister.backend.dto.ProductAvailabilityDTO;
+import com.stockmeister.backend.dto.RecipeDTO;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.repository.RecipeRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Startup bundle for POS terminals: settings, categories, the menu and
+ * which products are out of stock. The bundle is rendered once per
+ * version and kept as JSON and gzip bytes. The version is the highest
+ * change sequence of the recipes and settings, read from the database on
+ * every request, so a change committed on another node is picked up as
+ * well; a {@link MenuChangedEvent} (e.g. availability) makes the next
+ * request render again. The ETag is built from the version and the
+ * unavailable products only, so every node hands out the same ETag for
+ * the same menu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PosBootstrapService {
+
+    private final RecipeRepository recipeRepository;
+    private final RestaurantSettingsService restaurantSettingsService;
+    private final MenuAvailabilityIndex menuAvailabilityIndex;
+    private final ObjectMapper objectMapper;
+
+    // Node-local, only decides whether the cached bundle is rendered again
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Bundle current;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void menuChanged(MenuChangedEvent event) {
+        generation.incrementAndGet();
+        log.debug("Bootstrap bundle outdated ({})", event.getReason());
+    }
+
+    public Bundle getBundle() {
+        long version = catalogueVersion();
+        Bundle bundle = current;
+        if (bundle != null && bundle.version == version && bundle.generation == generation.get()) {
+            return bundle;
+        }
+        return render();
+    }
+
+    private long catalogueVersion() {
+        Long recipes = recipeRepository.findMaxChangeSeq();
+        return Math.max(recipes != null ? recipes : 0L, restaurantSettingsService.getChangeSeq());
+    }
+
+    // One rendering at a time; terminals asking meanwhile get its result
+    private synchronized Bundle render() {
+        long renderGeneration = generation.get();
+        // Read before the menu, so the content is never older than the version
+        long renderVersion = catalogueVersion();
+        Bundle bundle = current;
+        if (bundle != null && bundle.version == renderVersion && bundle.generation == renderGeneration) {
+            return bundle;
+        }
+
+        List<Recipe> recipes = new ArrayList<>(recipeRepository.findAllByIsActiveTrue());
+        recipes.sort(Comparator.comparing(Recipe::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Long> unavailable = menuAvailabilityIndex.getAll().stream()
+                .filter(product -> !product.isAvailable())
+                .map(ProductAvailabilityDTO::getRecipeId)
+                .sorted()
+                .toList();
+
+        PosBootstrapDTO dto = PosBootstrapDTO.builder()
+                .version(renderVersion)
+                .generatedAt(LocalDateTime.now())
+                .settings(restaurantSettingsService.getSettings())
+                .categories(recipes.stream()
+                        .map(Recipe::getCategory)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .sorted()
+                        .toList())
+                .products(recipes.stream().map(RecipeDTO::fromEntity).toList())
+                .unavailableProductIds(unavailable)
+                .build();
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render bootstrap bundle: " + e.getMessage(), e);
+        }
+
+        String tag = renderVersion + "-" + Integer.toHexString(unavailable.hashCode());
+        bundle = new Bundle(renderVersion, renderGeneration, tag, json, gzip(json));
+        // Kept only if nothing changed locally while rendering; otherwise the
+        // next request renders again
+        if (generation.get() == renderGeneration) {
+            current = bundle;
+        }
+        log.info("Rendered bootstrap bundle version {}: {} product(s), {} bytes, {} gzipped",
+                renderVersion, recipes.size(), json.length, bundle.gzipped.length);
+        return bundle;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * One rendered version of the bundle. The gzip bytes are a different
+     * representation and get their own ETag.
+     */
+    @Getter
+    public static final class Bundle {
+        private final long version;
+        private final long generation;
+        private final byte[] json;
+        private final byte[] gzipped;
+        private final String etag;
+        private final String gzipEtag;
+
+        private Bundle(long version, long generation, String tag, byte[] json, byte[] gzipped) {
+            this.version = version;
+            this.generation = generation;
+            this.json = json;
+            this.gzipped = gzipped;
+            this.etag = "\"" + tag + "\"";
+            this.gzipEtag = "\"" + tag + "-gzip\"";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Immutable bill of materials of one recipe, compiled from its
+ * {@link RecipeIngredient} lines. Amounts are stored as fixed-point
+ * milli-units (see {@link StockAmount}).
+ */
+@Getter
+public final class RecipeBom {
+
+    private final Long recipeId;
+    private final String name;
+    private final BigDecimal sellingPrice;
+    private final long[] ingredientIds;
+    private final long[] amounts;
+
+    private RecipeBom(Long recipeId, String name, BigDecimal sellingPrice,
+            long[] ingredientIds, long[] amounts) {
+        this.recipeId = recipeId;
+        this.name = name;
+        this.sellingPrice = sellingPrice;
+        this.ingredientIds = ingredientIds;
+        this.amounts = amounts;
+    }
+
+    public static RecipeBom compile(Recipe recipe) {
+        List<RecipeIngredient> lines = recipe.getIngredients() != null
+                ? recipe.getIngredients()
+                : List.of();
+
+        long[] ingredientIds = new long[lines.size()];
+        long[] amounts = new long[lines.size()];
+
+        for (int i = 0; i < lines.size(); i++) {
+            RecipeIngredient ri = lines.get(i);
+            ingredientIds[i] = ri.getIngredient().getId();
+            amounts[i] = StockAmount.toMillis(ri.getAmount());
+        }
+
+        return new RecipeBom(recipe.getId(), recipe.getName(), recipe.getSellingPrice(),
+                ingredientIds, amounts);
+    }
+
+    public int size() {
+        return ingredientIds.length;
+    }
+
+    public boolean isEmpty() {
+        return ingredientIds.length == 0;
+    }
+
+    public long[] getIngredientIds() {
+        return ingredientIds.clone();
+    }
+
+    public long[] getAmounts() {
+        return amounts.clone();
+    }
+
+    public long ingredientIdAt(int index) {
+        return ingredientIds[index];
+    }
+
+    public long amountAt(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Whole portions that can be made from the available amounts (in
+     * milli-units, by ingredient id). {@code Integer.MAX_VALUE} for recipes
+     * without ingredients.
+     */
+    public int maxPortions(LongUnaryOperator availableMillis) {
+        if (ingredientIds.length == 0) {
+            return Integer.MAX_VALUE;
+        }
+
+        long maxQuantity = Integer.MAX_VALUE;
+        for (int i = 0; i < ingredientIds.length; i++) {
+            if (amounts[i] > 0) {
+                maxQuantity = Math.min(maxQuantity, availableMillis.applyAsLong(ingredientIds[i]) / amounts[i]);
+            }
+        }
+        return maxQuantity == Integer.MAX_VALUE ? 0 : (int) maxQuantity;
+    }
+
+    /**
+     * Adds the ingredient amounts needed for {@code quantity} portions.
+     */
+    public void addRequirements(int quantity, StockAmountMap requiredAmounts) {
+        for (int i = 0; i < ingredientIds.length; i++) {
+            requiredAmounts.add(ingredientIds[i], StockAmount.multiply(amounts[i], quantity));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled bills of materials keyed by recipe id, so the order hot path does
+ * not need the recipe/ingredient fetch join for every cart line. In cluster
+ * mode, recipes changed on other nodes are evicted through
+ * {@link ClusterEntityChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecipeBomCache {
+
+    private final RecipeRepository recipeRepository;
+
+    private final Map<Long, RecipeBom> boms = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load that raced with one is not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    public RecipeBom get(Long recipeId) {
+        RecipeBom bom = boms.get(recipeId);
+        if (bom != null) {
+            return bom;
+        }
+
+        long loadGeneration = generation.get();
+        Recipe recipe = recipeRepository.findByIdWithIngredients(recipeId)
+                .orElseThrow(() -> new RuntimeException("Recipe not found with id: " + recipeId));
+
+        return store(RecipeBom.compile(recipe), loadGeneration);
+    }
+
+    public Map<Long, RecipeBom> getAll(Collection<Long> recipeIds) {
+        Map<Long, RecipeBom> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long recipeId : recipeIds) {
+            RecipeBom bom = boms.get(recipeId);
+            if (bom != null) {
+                result.put(recipeId, bom);
+            } else if (!missing.contains(recipeId)) {
+                missing.add(recipeId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadGeneration = generation.get();
+            for (Recipe recipe : recipeRepository.findAllByIdWithIngredients(missing)) {
+                result.put(recipe.getId(), store(RecipeBom.compile(recipe), loadGeneration));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Drops the compiled BOM now and again after the surrounding transaction
+     * completes, so readers never keep a BOM built from uncommitted or
+     * outdated recipe lines.
+     */
+    public void invalidate(Long recipeId) {
+        evict(recipeId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(recipeId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onClusterEntityChanged(ClusterEntityChangedEvent event) {
+        if (event.isOf(Recipe.class)) {
+            evict(event.getId());
+        } else if (event.isResync() || event.isOf(RecipeIngredient.class)) {
+            // The recipe of a changed line is not known here
+            generation.incrementAndGet();
+            boms.clear();
+            log.debug("Evicted all compiled BOMs after a change on another node");
+        }
+    }
+
+    private void evict(Long recipeId) {
+        generation.incrementAndGet();
+        boms.remove(recipeId);
+        log.debug("Evicted compiled BOM for recipe {}", recipeId);
+    }
+
+    private RecipeBom store(RecipeBom bom, long loadGeneration) {
+        if (generation.get() == loadGeneration) {
+            boms.putIfAbsent(bom.getRecipeId(), bom);
+            if (generation.get() != loadGeneration) {
+                boms.remove(bom.getRecipeId(), bom);
+            }
+        }
+        return bom;
+    }
+}
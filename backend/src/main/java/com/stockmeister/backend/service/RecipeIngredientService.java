@@ -24,6 +24,8 @@ public class RecipeIngredientService {
     private final RecipeRepository recipeRepository;
     private final IngredientRepository ingredientRepository;
     private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeBomCache recipeBomCache;
+    private final MenuAvailabilityIndex menuAvailabilityIndex;
 
     @Transactional(readOnly = true)
     public List<RecipeIngredient> getByRecipeId(Long recipeId) {
@@ -45,6 +47,8 @@ public class RecipeIngredientService {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new RuntimeException("Recipe not found with id: " + recipeId));
 
+        // Before the bulk delete, which flushes and then clears the context
+        recipe.markChanged();
         recipeIngredientRepository.deleteByRecipeId(recipeId);
         log.info("Deleted existing ingredients for recipe {}", recipeId);
 
@@ -85,6 +89,9 @@ public class RecipeIngredientService {
             }
         }
 
+        recipeBomCache.invalidate(recipeId);
+        menuAvailabilityIndex.recipeChanged(recipeId);
+
         Recipe updatedRecipe = recipeRepository.findByIdWithIngredients(recipeId)
                 .orElse(recipe);
 
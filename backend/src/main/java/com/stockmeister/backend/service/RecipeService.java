@@ -1,12 +1,15 @@
 package com.stockmeister.backend.service;
 
-import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.dto.RecipeDTO;
 import com.stockmeister.backend.model.Recipe;
 import com.stockmeister.backend.model.RecipeIngredient;
-import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.model.StockMovementCause;
 import com.stockmeister.backend.repository.RecipeRepository;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -28,7 +31,11 @@ import java.util.UUID;
 public class RecipeService {
 
     private final RecipeRepository recipeRepository;
-    private final IngredientRepository ingredientRepository;
+    private final StockEngine stockEngine;
+    private final StockUpdateService stockUpdateService;
+    private final RecipeBomCache recipeBomCache;
+    private final MenuAvailabilityIndex menuAvailabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String UPLOAD_DIR = "uploads/recipes/";
 
@@ -42,6 +49,18 @@ public class RecipeService {
         return recipeRepository.findAllWithIngredients();
     }
 
+    /**
+     * All active recipes with their ingredients, mapped inside the shared
+     * execution so concurrent callers never share managed entities.
+     */
+    @SingleFlight
+    public List<RecipeDTO> getMenuProducts() {
+        log.info("Fetching menu products");
+        return recipeRepository.findAllWithIngredients().stream()
+                .map(RecipeDTO::fromEntityWithIngredients)
+                .toList();
+    }
+
     public List<Recipe> searchRecipesByName(String name) {
         log.info("Searching recipes with name containing: {}", name);
         return recipeRepository.findByNameContainingIgnoreCase(name);
@@ -74,6 +93,8 @@ public class RecipeService {
         }
 
         Recipe savedRecipe = recipeRepository.save(recipe);
+        menuAvailabilityIndex.recipeChanged(savedRecipe.getId());
+        eventPublisher.publishEvent(new MenuChangedEvent("recipe " + savedRecipe.getId() + " created"));
         log.info("Successfully created recipe with id: {}", savedRecipe.getId());
         return savedRecipe;
     }
@@ -99,10 +120,14 @@ public class RecipeService {
         if (updatedRecipe.getSellingPrice() != null) {
             existingRecipe.setSellingPrice(updatedRecipe.getSellingPrice());
         }
+        if (updatedRecipe.getStation() != null) {
+            existingRecipe.setStation(updatedRecipe.getStation());
+        }
 
         if (updatedRecipe.getIngredients() != null) {
             existingRecipe.getIngredients().clear();
             updatedRecipe.getIngredients().forEach(existingRecipe::addIngredient);
+            existingRecipe.markChanged();
         }
 
         if (image != null && !image.isEmpty()) {
@@ -116,6 +141,9 @@ public class RecipeService {
             existingRecipe.setImagePath(null);
         }
 
+        recipeBomCache.invalidate(id);
+        menuAvailabilityIndex.recipeChanged(id);
+        eventPublisher.publishEvent(new MenuChangedEvent("recipe " + id + " updated"));
         return recipeRepository.save(existingRecipe);
     }
 
@@ -134,6 +162,9 @@ public class RecipeService {
         recipe.setActive(false);
         recipe.setDeletedAt(java.time.LocalDateTime.now());
         recipeRepository.save(recipe);
+        recipeBomCache.invalidate(id);
+        menuAvailabilityIndex.recipeChanged(id);
+        eventPublisher.publishEvent(new MenuChangedEvent("recipe " + id + " deleted"));
 
         log.info("Recipe {} soft deleted successfully", recipe.getName());
     }
@@ -169,43 +200,21 @@ public class RecipeService {
             throw new RuntimeException("Quantity must be positive");
         }
 
-        Recipe recipe = getRecipeByIdWithIngredients(recipeId);
+        RecipeBom bom = recipeBomCache.get(recipeId);
 
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
+        if (bom.isEmpty()) {
             log.warn("Recipe {} has no ingredients defined", recipeId);
             return;
         }
 
-        for (RecipeIngredient ri : recipe.getIngredients()) {
-            Ingredient ingredient = ri.getIngredient();
-            BigDecimal requiredAmount = ri.getAmount().multiply(BigDecimal.valueOf(quantity));
-            BigDecimal currentStock = ingredient.getCurrentStock() != null
-                    ? ingredient.getCurrentStock()
-                    : BigDecimal.ZERO;
+        StockAmountMap requiredAmounts = new StockAmountMap(bom.size());
+        bom.addRequirements(quantity, requiredAmounts);
 
-            if (currentStock.compareTo(requiredAmount) < 0) {
-                throw new RuntimeException(String.format(
-                        "Insufficient stock for ingredient '%s'. Required: %s, Available: %s",
-                        ingredient.getName(),
-                        requiredAmount.setScale(3, RoundingMode.HALF_UP),
-                        currentStock.setScale(3, RoundingMode.HALF_UP)));
-            }
-        }
-
-        for (RecipeIngredient ri : recipe.getIngredients()) {
-            Ingredient ingredient = ri.getIngredient();
-            BigDecimal requiredAmount = ri.getAmount().multiply(BigDecimal.valueOf(quantity));
-            BigDecimal newStock = ingredient.getCurrentStock().subtract(requiredAmount);
-
-            log.info("Deducting {} {} from ingredient '{}'. New stock: {}",
-                    requiredAmount, ingredient.getUnit(), ingredient.getName(), newStock);
-
-            ingredient.setCurrentStock(newStock);
-            ingredientRepository.save(ingredient);
-        }
+        stockEngine.reserve(requiredAmounts);
+        stockUpdateService.deduct(requiredAmounts, StockMovementCause.RECIPE_SALE, recipeId);
 
         log.info("Successfully deducted stock for {} unit(s) of recipe '{}'",
-                quantity, recipe.getName());
+                quantity, bom.getName());
     }
 
     @Transactional
@@ -219,20 +228,13 @@ public class RecipeService {
     }
 
     public boolean canSellRecipe(Long recipeId, int quantity) {
-        Recipe recipe = getRecipeByIdWithIngredients(recipeId);
+        RecipeBom bom = recipeBomCache.get(recipeId);
 
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
-            return true;
-        }
+        for (int i = 0; i < bom.size(); i++) {
+            long required = StockAmount.multiply(bom.amountAt(i), quantity);
+            long available = stockEngine.getAvailableMillis(bom.ingredientIdAt(i));
 
-        for (RecipeIngredient ri : recipe.getIngredients()) {
-            Ingredient ingredient = ri.getIngredient();
-            BigDecimal requiredAmount = ri.getAmount().multiply(BigDecimal.valueOf(quantity));
-            BigDecimal currentStock = ingredient.getCurrentStock() != null
-                    ? ingredient.getCurrentStock()
-                    : BigDecimal.ZERO;
-
-            if (currentStock.compareTo(requiredAmount) < 0) {
+            if (available < required) {
                 return false;
             }
         }
@@ -240,28 +242,7 @@ public class RecipeService {
     }
 
     public int getMaxSellableQuantity(Long recipeId) {
-        Recipe recipe = getRecipeByIdWithIngredients(recipeId);
-
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
-            return Integer.MAX_VALUE;
-        }
-
-        int maxQuantity = Integer.MAX_VALUE;
-
-        for (RecipeIngredient ri : recipe.getIngredients()) {
-            Ingredient ingredient = ri.getIngredient();
-            BigDecimal currentStock = ingredient.getCurrentStock() != null
-                    ? ingredient.getCurrentStock()
-                    : BigDecimal.ZERO;
-            BigDecimal amountPerUnit = ri.getAmount();
-
-            if (amountPerUnit.compareTo(BigDecimal.ZERO) > 0) {
-                int possibleUnits = currentStock.divide(amountPerUnit, 0, RoundingMode.DOWN).intValue();
-                maxQuantity = Math.min(maxQuantity, possibleUnits);
-            }
-        }
-
-        return maxQuantity == Integer.MAX_VALUE ? 0 : maxQuantity;
+        return recipeBomCache.get(recipeId).maxPortions(stockEngine::getAvailableMillis);
     }
 
     @Transactional
@@ -0,0 +1,41 @@
+package com.stockmeister.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Advances {@link ReservationTimerWheel} once per tick and expires the
+ * reservations of every order whose deadline has passed, each in its own
+ * transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryScheduler {
+
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final ReservationTimerWheel timerWheel;
+    private final StockReservationService stockReservationService;
+
+    @Scheduled(fixedDelayString = "${app.stock.reservation-tick-ms:1000}")
+    public void expireDueReservations() {
+        Instant now = Instant.now();
+        List<Long> expired = timerWheel.advance(now);
+
+        for (Long orderId : expired) {
+            try {
+                stockReservationService.expire(orderId);
+            } catch (RuntimeException e) {
+                log.error("Failed to expire stock reservations of order {}: {}", orderId, e.getMessage());
+                timerWheel.schedule(orderId, now.plus(RETRY_DELAY));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.stockmeister.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel holding the expiry deadline of every order with
+ * outstanding stock reservations. Scheduling and cancelling are O(1); each
+ * {@link #advance} call only visits the buckets of the ticks that passed
+ * since the previous call instead of scanning all reservations.
+ */
+@Component
+public class ReservationTimerWheel {
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long tickMillis;
+    private final List<List<Timeout>> buckets = new ArrayList<>(WHEEL_SIZE);
+    private final Map<Long, Timeout> timeouts = new HashMap<>();
+    private long lastTick;
+
+    public ReservationTimerWheel(@Value("${app.stock.reservation-tick-ms:1000}") long tickMillis) {
+        this.tickMillis = tickMillis;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.lastTick = Instant.now().toEpochMilli() / tickMillis;
+    }
+
+    /**
+     * Schedules (or reschedules) the expiry of an order's reservations.
+     */
+    public synchronized void schedule(Long orderId, Instant deadline) {
+        cancel(orderId);
+
+        long tick = Math.max(Math.floorDiv(deadline.toEpochMilli() + tickMillis - 1, tickMillis), lastTick + 1);
+        Timeout timeout = new Timeout(orderId, tick);
+        buckets.get((int) (tick & MASK)).add(timeout);
+        timeouts.put(orderId, timeout);
+    }
+
+    public synchronized void cancel(Long orderId) {
+        Timeout timeout = timeouts.remove(orderId);
+        if (timeout != null) {
+            buckets.get((int) (timeout.deadlineTick & MASK)).remove(timeout);
+        }
+    }
+
+    /**
+     * Moves the wheel forward to {@code now} and returns the ids of orders
+     * whose deadline has passed. Returned orders are no longer scheduled.
+     */
+    public synchronized List<Long> advance(Instant now) {
+        long nowTick = now.toEpochMilli() / tickMillis;
+        if (nowTick <= lastTick) {
+            return List.of();
+        }
+
+        // After a long pause every bucket is visited once; entries whose
+        // deadline lies further ahead stay where they are.
+        long lastVisited = Math.min(nowTick, lastTick + WHEEL_SIZE);
+        List<Long> expired = new ArrayList<>();
+
+        for (long tick = lastTick + 1; tick <= lastVisited; tick++) {
+            List<Timeout> bucket = buckets.get((int) (tick & MASK));
+            bucket.removeIf(timeout -> {
+                if (timeout.deadlineTick > nowTick) {
+                    return false;
+                }
+                timeouts.remove(timeout.orderId);
+                expired.add(timeout.orderId);
+                return true;
+            });
+        }
+
+        lastTick = nowTick;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return timeouts.size();
+    }
+
+    private static final class Timeout {
+        private final Long orderId;
+        private final long deadlineTick;
+
+        private Timeout(Long orderId, long deadlineTick) {
+            this.orderId = orderId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.stockmeister.backend.model.RestaurantSettings;
 import com.stockmeister.backend.repository.RestaurantSettingsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,13 +14,21 @@ import org.springframework.transaction.annotation.Transactional;
 public class RestaurantSettingsService {
 
     private final RestaurantSettingsRepository settingsRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RestaurantSettings getSettings() {
-        return settingsRepository.findAll().stream()
-                .findFirst()
+        return settingsRepository.findFirstByOrderByIdAsc()
                 .orElseGet(this::createDefaultSettings);
     }
 
+    /**
+     * Change sequence of the settings row, 0 if there is none yet.
+     */
+    public long getChangeSeq() {
+        Long changeSeq = settingsRepository.findMaxChangeSeq();
+        return changeSeq != null ? changeSeq : 0L;
+    }
+
     @Transactional
     public RestaurantSettings updateSettings(RestaurantSettings updated) {
         RestaurantSettings existing = getSettings();
@@ -31,6 +40,7 @@ public class RestaurantSettingsService {
         if (updated.getCurrency() != null) existing.setCurrency(updated.getCurrency());
         if (updated.getTimezone() != null) existing.setTimezone(updated.getTimezone());
 
+        eventPublisher.publishEvent(new MenuChangedEvent("settings updated"));
         return settingsRepository.save(existing);
     }
 
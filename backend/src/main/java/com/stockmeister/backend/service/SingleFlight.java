@@ -0,0 +1,27 @@
+package com.stockmeister.backend.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the annotated method with equal arguments share one
+ * execution; callers arriving while it runs wait for its result (see
+ * {@link SingleFlightAspect}). Only for read methods whose result depends
+ * on the arguments alone, not on the caller, and which return DTOs: the
+ * same result object goes to every waiting caller, so managed entities
+ * must never be returned.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * How long a finished result is still handed out, in milliseconds.
+     * 0 shares only executions that are still running.
+     */
+    long ttlMillis() default 0;
+}
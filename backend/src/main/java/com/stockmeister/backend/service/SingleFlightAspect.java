@@ -0,0 +1,120 @@
+package com.stockmeister.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link SingleFlight} methods once per distinct argument list at a
+ * time. The first caller executes the method, callers with equal arguments
+ * arriving meanwhile get its result or its exception.
+ *
+ * Ordered before the transaction interceptor, so waiting callers hold no
+ * connection. Calls made inside a caller's transaction always execute on
+ * their own: they may need to see that transaction's uncommitted writes,
+ * and must not hand them to anyone else.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class SingleFlightAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.single-flight.enabled:true}")
+    private boolean enabled = true;
+
+    private final Map<Key, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+    private final Map<Key, Result> results = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.stockmeister.backend.service.SingleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        SingleFlight singleFlight = AnnotationUtils.findAnnotation(method, SingleFlight.class);
+        Key key = new Key(method, Arrays.asList(joinPoint.getArgs().clone()));
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(singleFlight.ttlMillis());
+
+        if (ttlNanos > 0) {
+            Result result = results.get(key);
+            if (result != null && result.expiresAt - System.nanoTime() > 0) {
+                calls(method, "cached").increment();
+                return result.value;
+            }
+        }
+
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inflight.putIfAbsent(key, own);
+        if (running != null) {
+            calls(method, "joined").increment();
+            return await(running);
+        }
+
+        calls(method, "executed").increment();
+        try {
+            Object value = joinPoint.proceed();
+            if (ttlNanos > 0) {
+                long now = System.nanoTime();
+                results.values().removeIf(result -> result.expiresAt - now <= 0);
+                results.put(key, new Result(value, now + ttlNanos));
+            }
+            own.complete(value);
+            return value;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, own);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) throws Throwable {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a shared result", e);
+        }
+    }
+
+    private Counter calls(Method method, String result) {
+        return Counter.builder("single_flight.calls")
+                .description("Calls of @SingleFlight methods; joined and cached calls did not execute")
+                .tag("method", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Key(Method method, List<Object> args) {
+    }
+
+    private record Result(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,756 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.StockReservationRepository;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of ingredient stock used by every code path that changes it.
+ *
+ * Each ingredient has a slot holding the committed level (what the database
+ * has after the last commit), the amount reserved by transactions that are
+ * still in flight and the amount held for unpaid orders, all as milli-units.
+ * Reservations are checked and taken under striped locks, so concurrent
+ * orders no longer need SERIALIZABLE transactions to avoid overselling.
+ * Stripes are always locked in ascending index order.
+ *
+ * In cluster mode each node only keeps slots for the ingredients it owns.
+ * Operations on other ingredients are forwarded to their owner through
+ * {@link ClusterStockRouter}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockEngine {
+
+    private static final int STRIPE_COUNT = 64;
+    private static final long PEER_TAKE_TIMEOUT_MS = 60_000L;
+
+    private final IngredientRepository ingredientRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final ObjectProvider<ClusterStockRouter> clusterStockRouter;
+
+    private final ReentrantLock[] stripes = createStripes();
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final Map<String, PeerTake> peerTakes = new ConcurrentHashMap<>();
+    private final List<LongConsumer> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Bumped after every change; starts at the boot time, so a version from
+    // an earlier run never matches
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        List<Ingredient> ingredients = ingredientRepository.findAll();
+        if (router != null) {
+            ingredients = ingredients.stream()
+                    .filter(ingredient -> router.isLocalOwner(ingredient.getId()))
+                    .collect(Collectors.toList());
+        }
+        Map<Long, Long> held = toHeldMap(stockReservationRepository.sumAmountsByIngredient());
+        Map<Long, BigDecimal> sharded = findShardedStock(ingredients);
+        ingredients.forEach(ingredient -> loadSlot(ingredient, sharded, held.getOrDefault(ingredient.getId(), 0L)));
+        log.info("Stock engine loaded {} ingredient(s), {} with held reservations",
+                ingredients.size(), held.size());
+    }
+
+    /**
+     * Registers a callback that gets the id of every ingredient whose
+     * available amount on this node may have changed. It runs after the
+     * change, outside the stripe locks, on the thread that made it, so it
+     * must be quick.
+     */
+    public void addChangeListener(LongConsumer listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Reserves all amounts or none of them. Inside a transaction the
+     * reservation becomes a committed deduction on commit and is released on
+     * rollback; outside a transaction it is applied immediately.
+     */
+    public void reserve(StockAmountMap amounts) {
+        take(amounts, Settlement.DEDUCT);
+    }
+
+    /**
+     * Sets stock aside for an unpaid order, with the same all-or-nothing check
+     * as {@link #reserve}. After commit the amounts stay held until
+     * {@link #consume} or {@link #release} is called for them.
+     */
+    public void hold(StockAmountMap amounts) {
+        take(amounts, Settlement.HOLD);
+    }
+
+    /**
+     * Returns held stock (cancelled or expired orders) once the transaction
+     * commits.
+     */
+    public void release(StockAmountMap amounts) {
+        applyAfterCommit(amounts, Settlement.RELEASE);
+    }
+
+    /**
+     * Turns held stock into a deduction (paid orders) once the transaction
+     * commits. Like the database update, the level does not go below zero.
+     */
+    public void consume(StockAmountMap amounts) {
+        applyAfterCommit(amounts, Settlement.CONSUME);
+    }
+
+    private void take(StockAmountMap amounts, Settlement onCommit) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        if (router == null) {
+            takeLocal(amounts, onCommit);
+            return;
+        }
+
+        for (Map.Entry<String, StockAmountMap> part : router.partition(amounts).entrySet()) {
+            String nodeId = part.getKey();
+            if (router.isLocal(nodeId)) {
+                takeLocal(part.getValue(), onCommit);
+            } else {
+                String txId = router.reserve(nodeId, part.getValue(), onCommit == Settlement.HOLD);
+                afterCompletion(
+                        () -> router.settle(nodeId, txId, true),
+                        () -> router.settle(nodeId, txId, false));
+            }
+        }
+    }
+
+    private void takeLocal(StockAmountMap amounts, Settlement onCommit) {
+        long[] ids = amounts.sortedKeys();
+        long[] required = valuesOf(ids, amounts);
+        reserveLocked(ids, required);
+
+        afterCompletion(
+                () -> settle(ids, required, onCommit),
+                () -> settle(ids, required, Settlement.ROLLBACK));
+    }
+
+    private void reserveLocked(long[] ids, long[] required) {
+        int[] lockOrder = stripesFor(ids);
+        // A slot can be evicted between loading and locking; it is then
+        // loaded again before anything is taken.
+        Slot[] locked;
+        do {
+            locked = lockLoaded(ids, lockOrder);
+        } while (locked == null);
+        try {
+            List<StockShortage> shortages = null;
+            for (int i = 0; i < ids.length; i++) {
+                Slot slot = locked[i];
+                long available = slot.available();
+
+                if (available < required[i]) {
+                    if (shortages == null) {
+                        shortages = new ArrayList<>();
+                    }
+                    shortages.add(new StockShortage(
+                            ids[i],
+                            slot.name,
+                            slot.unit,
+                            StockAmount.toDecimal(required[i]),
+                            StockAmount.toDecimal(available)));
+                }
+            }
+
+            if (shortages != null) {
+                log.warn("Stock reservation rejected: {} ingredient(s) have insufficient stock",
+                        shortages.size());
+                throw new InsufficientStockException(shortages);
+            }
+
+            for (int i = 0; i < ids.length; i++) {
+                locked[i].reserved += required[i];
+            }
+        } finally {
+            unlock(lockOrder);
+        }
+        notifyChanged(ids);
+    }
+
+    /**
+     * Adds stock back (cancellations, deleted waste records). The amounts only
+     * become available once the surrounding transaction has committed.
+     */
+    public void restore(StockAmountMap amounts) {
+        applyAfterCommit(amounts, Settlement.RESTORE);
+    }
+
+    /**
+     * Replaces the committed level with the ingredient's current stock (manual
+     * corrections, stock counts, new ingredients) once the transaction commits.
+     * Reservations of in-flight orders are kept.
+     */
+    public void overwrite(Ingredient ingredient) {
+        Long id = ingredient.getId();
+        long level = StockAmount.toMillis(ingredient.getCurrentStock());
+        String name = ingredient.getName();
+        String unit = ingredient.getUnit();
+        if (evictRemote(id)) {
+            return;
+        }
+
+        afterCompletion(() -> {
+            ReentrantLock lock = stripes[stripeOf(id)];
+            lock.lock();
+            try {
+                Slot slot = slots.computeIfAbsent(id, key -> new Slot(level, name, unit));
+                slot.committed = level;
+                slot.name = name;
+                slot.unit = unit;
+                slot.draining = false;
+            } finally {
+                lock.unlock();
+            }
+            notifyChanged(new long[] { id });
+        }, () -> {
+        });
+    }
+
+    /**
+     * Refreshes the name and unit reported in shortages without touching the level.
+     */
+    public void describe(Ingredient ingredient) {
+        Long id = ingredient.getId();
+        String name = ingredient.getName();
+        String unit = ingredient.getUnit();
+        if (evictRemote(id)) {
+            return;
+        }
+
+        afterCompletion(() -> {
+            Slot slot = slots.get(id);
+            if (slot == null) {
+                return;
+            }
+            ReentrantLock lock = stripes[stripeOf(id)];
+            lock.lock();
+            try {
+                slot.name = name;
+                slot.unit = unit;
+            } finally {
+                lock.unlock();
+            }
+        }, () -> {
+        });
+    }
+
+    public BigDecimal getAvailable(Long ingredientId) {
+        return StockAmount.toDecimal(getAvailableMillis(ingredientId));
+    }
+
+    public long getAvailableMillis(long ingredientId) {
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        if (router != null) {
+            String owner = router.ownerOf(ingredientId);
+            if (!router.isLocal(owner)) {
+                return router.getAvailableMillis(owner, ingredientId);
+            }
+        }
+        return getLocalAvailableMillis(ingredientId);
+    }
+
+    /**
+     * Version of the stock levels on this node. It changes whenever an
+     * available amount here may have changed; ingredients owned by other
+     * cluster nodes are not covered.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Copies the available amounts of the given ingredients without taking
+     * anything. Each slot is read under its stripe lock on its own, so no
+     * stripe waits for another. The version is read first: the copy may
+     * already include later changes, but none from before its version.
+     */
+    public AvailableStock snapshot(long[] ingredientIds) {
+        long[] ids = ingredientIds.clone();
+        Arrays.sort(ids);
+        long[] available = new long[ids.length];
+        String[] names = new String[ids.length];
+        String[] units = new String[ids.length];
+
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        List<Long> remote = new ArrayList<>();
+        long snapshotVersion = version.get();
+
+        for (int i = 0; i < ids.length; i++) {
+            if (router != null && !router.isLocalOwner(ids[i])) {
+                available[i] = router.getAvailableMillis(router.ownerOf(ids[i]), ids[i]);
+                remote.add(ids[i]);
+                continue;
+            }
+
+            Slot slot = lockLoaded(ids[i]);
+            try {
+                available[i] = slot.available();
+                names[i] = slot.name;
+                units[i] = slot.unit;
+            } finally {
+                stripes[stripeOf(ids[i])].unlock();
+            }
+        }
+
+        if (!remote.isEmpty()) {
+            for (Ingredient ingredient : ingredientRepository.findAllById(remote)) {
+                int index = Arrays.binarySearch(ids, ingredient.getId());
+                names[index] = ingredient.getName();
+                units[index] = ingredient.getUnit();
+            }
+        }
+        return new AvailableStock(snapshotVersion, ids, available, names, units);
+    }
+
+    /**
+     * Available amount from this node's slot, without routing to the owner.
+     */
+    public long getLocalAvailableMillis(long ingredientId) {
+        Slot slot = lockLoaded(ingredientId);
+        try {
+            return slot.available();
+        } finally {
+            stripes[stripeOf(ingredientId)].unlock();
+        }
+    }
+
+    /**
+     * Reservation taken on behalf of another node; kept until that node
+     * settles it or {@link #expirePeerTakes} rolls it back.
+     */
+    public void takeForPeer(String txId, boolean hold, StockAmountMap amounts) {
+        long[] ids = amounts.sortedKeys();
+        long[] required = valuesOf(ids, amounts);
+        reserveLocked(ids, required);
+        peerTakes.put(txId, new PeerTake(ids, required, hold ? Settlement.HOLD : Settlement.DEDUCT,
+                System.currentTimeMillis()));
+    }
+
+    public void settleForPeer(String txId, boolean committed) {
+        PeerTake take = peerTakes.remove(txId);
+        if (take == null) {
+            log.warn("Stock transaction {} from peer is unknown or already expired", txId);
+            return;
+        }
+        settle(take.ids, take.amounts, committed ? take.onCommit : Settlement.ROLLBACK);
+    }
+
+    public void applyForPeer(String settlementName, StockAmountMap amounts) {
+        Settlement settlement = Settlement.valueOf(settlementName);
+        if (settlement != Settlement.RESTORE && settlement != Settlement.RELEASE
+                && settlement != Settlement.CONSUME) {
+            throw new IllegalArgumentException("Invalid peer settlement: " + settlementName);
+        }
+        long[] ids = amounts.sortedKeys();
+        settle(ids, valuesOf(ids, amounts), settlement);
+    }
+
+    /**
+     * Drops the slot so it is reloaded from the database on next use. A slot
+     * with reservations still in flight is dropped once they are settled.
+     */
+    public void evict(long ingredientId) {
+        ReentrantLock lock = stripes[stripeOf(ingredientId)];
+        lock.lock();
+        try {
+            drop(ingredientId);
+        } finally {
+            lock.unlock();
+        }
+        notifyChanged(new long[] { ingredientId });
+    }
+
+    @Scheduled(fixedDelay = PEER_TAKE_TIMEOUT_MS / 4)
+    public void expirePeerTakes() {
+        expirePeerTakes(System.currentTimeMillis());
+    }
+
+    void expirePeerTakes(long now) {
+        if (peerTakes.isEmpty()) {
+            return;
+        }
+        long cutoff = now - PEER_TAKE_TIMEOUT_MS;
+        peerTakes.entrySet().removeIf(entry -> {
+            PeerTake take = entry.getValue();
+            if (take.takenAt >= cutoff) {
+                return false;
+            }
+            log.warn("Rolling back unsettled stock transaction {} from peer", entry.getKey());
+            settle(take.ids, take.amounts, Settlement.ROLLBACK);
+            return true;
+        });
+    }
+
+    @EventListener
+    public void onTopologyChanged(ClusterTopologyChangedEvent event) {
+        int dropped = 0;
+        for (Long id : List.copyOf(slots.keySet())) {
+            if (event.isOwnedLocally(id)) {
+                continue;
+            }
+            ReentrantLock lock = stripes[stripeOf(id)];
+            lock.lock();
+            try {
+                drop(id);
+            } finally {
+                lock.unlock();
+            }
+            dropped++;
+        }
+        log.info("Stock engine dropped {} ingredient(s) no longer owned by this node", dropped);
+    }
+
+    // Caller holds the slot's stripe lock. Reservations taken on the slot
+    // still have to be settled on it, so a slot with any in flight is only
+    // marked and removed by settle.
+    private void drop(long ingredientId) {
+        Slot slot = slots.get(ingredientId);
+        if (slot == null) {
+            return;
+        }
+        if (slot.reserved == 0) {
+            slots.remove(ingredientId);
+        } else {
+            slot.draining = true;
+        }
+    }
+
+    // Remote owners reload the ingredient from the database after commit.
+    private boolean evictRemote(long ingredientId) {
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        if (router == null) {
+            return false;
+        }
+        String owner = router.ownerOf(ingredientId);
+        if (router.isLocal(owner)) {
+            return false;
+        }
+        afterCompletion(() -> router.evict(owner, ingredientId), () -> {
+        });
+        return true;
+    }
+
+    private void applyAfterCommit(StockAmountMap amounts, Settlement settlement) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+
+        ClusterStockRouter router = clusterStockRouter.getIfAvailable();
+        if (router == null) {
+            applyLocalAfterCommit(amounts, settlement);
+            return;
+        }
+
+        for (Map.Entry<String, StockAmountMap> part : router.partition(amounts).entrySet()) {
+            String nodeId = part.getKey();
+            if (router.isLocal(nodeId)) {
+                applyLocalAfterCommit(part.getValue(), settlement);
+            } else {
+                StockAmountMap remote = part.getValue();
+                afterCompletion(() -> router.apply(nodeId, settlement.name(), remote), () -> {
+                });
+            }
+        }
+    }
+
+    private void applyLocalAfterCommit(StockAmountMap amounts, Settlement settlement) {
+        long[] ids = amounts.sortedKeys();
+        long[] values = valuesOf(ids, amounts);
+        afterCompletion(() -> settle(ids, values, settlement), () -> {
+        });
+    }
+
+    private void settle(long[] ids, long[] amounts, Settlement settlement) {
+        int[] lockOrder = stripesFor(ids);
+        lock(lockOrder);
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                Slot slot = slots.get(ids[i]);
+                if (slot != null) {
+                    settlement.apply(slot, amounts[i]);
+                    if (slot.draining && slot.reserved == 0) {
+                        slots.remove(ids[i]);
+                    }
+                }
+            }
+        } finally {
+            unlock(lockOrder);
+        }
+        notifyChanged(ids);
+    }
+
+    private void notifyChanged(long[] ids) {
+        version.incrementAndGet();
+        for (LongConsumer listener : changeListeners) {
+            for (long id : ids) {
+                listener.accept(id);
+            }
+        }
+    }
+
+    private void ensureLoaded(long[] ids) {
+        List<Long> missing = null;
+        for (long id : ids) {
+            if (!slots.containsKey(id)) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(id);
+            }
+        }
+        if (missing == null) {
+            return;
+        }
+
+        List<Ingredient> loaded = ingredientRepository.findAllById(missing);
+        if (loaded.size() < missing.size()) {
+            Long absent = missing.stream()
+                    .filter(id -> loaded.stream().noneMatch(i -> id.equals(i.getId())))
+                    .findFirst()
+                    .orElse(null);
+            throw new RuntimeException("Ingredient not found with id: " + absent);
+        }
+        Map<Long, Long> held = toHeldMap(stockReservationRepository.sumAmountsByIngredient(missing));
+        Map<Long, BigDecimal> sharded = findShardedStock(loaded);
+        loaded.forEach(ingredient -> loadSlot(ingredient, sharded, held.getOrDefault(ingredient.getId(), 0L)));
+    }
+
+    // current_stock of a sharded ingredient is only folded periodically, so
+    // its slot starts from the shard sum instead
+    private Map<Long, BigDecimal> findShardedStock(List<Ingredient> ingredients) {
+        List<Long> ids = ingredients.stream()
+                .filter(ingredient -> ingredient.getStockShards() != null)
+                .map(Ingredient::getId)
+                .collect(Collectors.toList());
+        return ids.isEmpty() ? Map.of() : ingredientRepository.findCurrentStock(ids);
+    }
+
+    // Loads the slots if needed and locks their stripes. Returns null with
+    // no stripe locked if a slot was evicted before its stripe was locked.
+    private Slot[] lockLoaded(long[] ids, int[] lockOrder) {
+        ensureLoaded(ids);
+        lock(lockOrder);
+        Slot[] locked = new Slot[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            locked[i] = slots.get(ids[i]);
+            if (locked[i] == null) {
+                unlock(lockOrder);
+                return null;
+            }
+        }
+        return locked;
+    }
+
+    // Single-slot variant; returns with the slot's stripe locked.
+    private Slot lockLoaded(long id) {
+        long[] ids = { id };
+        int[] lockOrder = { stripeOf(id) };
+        Slot[] locked;
+        do {
+            locked = lockLoaded(ids, lockOrder);
+        } while (locked == null);
+        return locked[0];
+    }
+
+    private void loadSlot(Ingredient ingredient, Map<Long, BigDecimal> sharded, long held) {
+        Long id = ingredient.getId();
+        ReentrantLock lock = stripes[stripeOf(id)];
+        lock.lock();
+        try {
+            Slot slot = new Slot(
+                    StockAmount.toMillis(sharded.getOrDefault(id, ingredient.getCurrentStock())),
+                    ingredient.getName(),
+                    ingredient.getUnit());
+            slot.held = held;
+            slots.putIfAbsent(id, slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private void lock(int[] lockOrder) {
+        for (int stripe : lockOrder) {
+            stripes[stripe].lock();
+        }
+    }
+
+    private void unlock(int[] lockOrder) {
+        for (int i = lockOrder.length - 1; i >= 0; i--) {
+            stripes[lockOrder[i]].unlock();
+        }
+    }
+
+    private static Map<Long, Long> toHeldMap(List<Object[]> sums) {
+        Map<Long, Long> held = new HashMap<>();
+        for (Object[] row : sums) {
+            held.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return held;
+    }
+
+    private static long[] valuesOf(long[] ids, StockAmountMap amounts) {
+        long[] values = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = amounts.get(ids[i]);
+        }
+        return values;
+    }
+
+    // Distinct stripe indexes in ascending order, the global lock order.
+    private static int[] stripesFor(long[] sortedIds) {
+        int[] stripeIndexes = new int[sortedIds.length];
+        for (int i = 0; i < sortedIds.length; i++) {
+            stripeIndexes[i] = stripeOf(sortedIds[i]);
+        }
+        Arrays.sort(stripeIndexes);
+
+        int distinct = 0;
+        for (int i = 0; i < stripeIndexes.length; i++) {
+            if (distinct == 0 || stripeIndexes[distinct - 1] != stripeIndexes[i]) {
+                stripeIndexes[distinct++] = stripeIndexes[i];
+            }
+        }
+        return Arrays.copyOf(stripeIndexes, distinct);
+    }
+
+    private static int stripeOf(long ingredientId) {
+        return (int) Math.floorMod(ingredientId, (long) STRIPE_COUNT);
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static final class PeerTake {
+        private final long[] ids;
+        private final long[] amounts;
+        private final Settlement onCommit;
+        private final long takenAt;
+
+        private PeerTake(long[] ids, long[] amounts, Settlement onCommit, long takenAt) {
+            this.ids = ids;
+            this.amounts = amounts;
+            this.onCommit = onCommit;
+            this.takenAt = takenAt;
+        }
+    }
+
+    private static final class Slot {
+        private long committed;
+        private long reserved;
+        private long held;
+        private String name;
+        private String unit;
+        private boolean draining;
+
+        private Slot(long committed, String name, String unit) {
+            this.committed = committed;
+            this.name = name;
+            this.unit = unit;
+        }
+
+        private long available() {
+            return committed - reserved - held;
+        }
+    }
+
+    private enum Settlement {
+        DEDUCT {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.reserved -= amount;
+                slot.committed -= amount;
+            }
+        },
+        HOLD {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.reserved -= amount;
+                slot.held += amount;
+            }
+        },
+        ROLLBACK {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.reserved -= amount;
+            }
+        },
+        RESTORE {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.committed += amount;
+            }
+        },
+        RELEASE {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.held = Math.max(slot.held - amount, 0L);
+            }
+        },
+        CONSUME {
+            @Override
+            void apply(Slot slot, long amount) {
+                slot.held = Math.max(slot.held - amount, 0L);
+                slot.committed = Math.max(slot.committed - amount, 0L);
+            }
+        };
+
+        abstract void apply(Slot slot, long amount);
+    }
+}
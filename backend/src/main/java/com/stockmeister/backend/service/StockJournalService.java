@@ -0,0 +1,228 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.journal.StockJournal;
+import com.stockmeister.backend.model.StockJournalCheckpoint;
+import com.stockmeister.backend.repository.StockJournalCheckpointRepository;
+import com.stockmeister.backend.repository.StockMovementRepository;
+import com.stockmeister.backend.util.StockAmountMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Write-behind persistence of stock counters through a local journal.
+ *
+ * With the journal enabled, {@link StockUpdateService} no longer updates the
+ * ingredients rows inside the business transaction. Each change gets a
+ * transaction sequence number and its deltas are appended to the journal;
+ * the journal is synced (group commit) before the database commit and a
+ * COMMIT or ABORT marker is appended afterwards. {@link #flush()} writes the
+ * net changes of all settled transactions to the ingredients table together
+ * with the checkpoint, then drops journal segments that are fully covered.
+ *
+ * On startup everything after the checkpoint is replayed into the table.
+ * Transactions without a marker (crash between database commit and marker)
+ * count as committed if the stock ledger has rows with their sequence.
+ *
+ * The database no longer rejects deductions, so {@link StockEngine} is the
+ * only stock guard, and it runs on a single node only: in cluster mode a
+ * node taking over an ingredient would load a level that other nodes'
+ * journals have not flushed yet. Startup fails if both are enabled.
+ */
+@Service
+@ConditionalOnProperty(name = "app.stock.journal.enabled", havingValue = "true")
+@Slf4j
+public class StockJournalService {
+
+    private final StockUpdateService stockUpdateService;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockJournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.stock.journal.id:default}")
+    private String journalId;
+
+    @Value("${app.stock.journal.dir:./data/stock-journal}")
+    private String journalDir;
+
+    @Value("${app.stock.journal.segment-entries:1048576}")
+    private int segmentEntries;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    private StockJournal journal;
+
+    private final Object seqLock = new Object();
+    private long nextSeq;
+    private final ConcurrentSkipListSet<Long> inflight = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListMap<Long, StockAmountMap> committed = new ConcurrentSkipListMap<>();
+    private volatile long appliedSeq;
+
+    public StockJournalService(StockUpdateService stockUpdateService,
+            StockMovementRepository stockMovementRepository,
+            StockJournalCheckpointRepository checkpointRepository,
+            PlatformTransactionManager transactionManager) {
+        this.stockUpdateService = stockUpdateService;
+        this.stockMovementRepository = stockMovementRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (clusterEnabled) {
+            throw new IllegalStateException("app.stock.journal.enabled cannot be combined with app.cluster.enabled");
+        }
+        journal = new StockJournal(Path.of(journalDir), segmentEntries);
+        recover();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Journals signed changes ({@code sign} times each amount) and returns
+     * their sequence number. They reach the ingredients table after the
+     * surrounding transaction has committed and the next flush has run.
+     */
+    public long record(StockAmountMap amounts, int sign) {
+        long seq;
+        synchronized (seqLock) {
+            seq = nextSeq++;
+            inflight.add(seq);
+        }
+
+        StockAmountMap changes = new StockAmountMap(amounts.size());
+        long[] position = { 0L };
+        amounts.forEach((ingredientId, millis) -> {
+            long delta = sign * millis;
+            changes.add(ingredientId, delta);
+            position[0] = journal.append(StockJournal.DELTA, seq, ingredientId, delta);
+        });
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journal.sync(position[0]);
+            settle(seq, changes, true);
+            return seq;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                journal.sync(position[0]);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                settle(seq, changes, status == STATUS_COMMITTED);
+            }
+        });
+        return seq;
+    }
+
+    /**
+     * Writes the net changes of all settled transactions to the database.
+     * Transactions are only applied up to the oldest one still in flight, so
+     * the checkpoint never skips one.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.journal.flush-ms:200}")
+    public synchronized void flush() {
+        long upTo;
+        synchronized (seqLock) {
+            upTo = inflight.isEmpty() ? nextSeq - 1 : inflight.first() - 1;
+        }
+        if (upTo <= appliedSeq) {
+            return;
+        }
+
+        NavigableMap<Long, StockAmountMap> batch = committed.headMap(upTo, true);
+        StockAmountMap net = new StockAmountMap();
+        batch.values().forEach(changes -> changes.forEach(net::add));
+
+        long checkpoint = upTo;
+        transactionTemplate.executeWithoutResult(status -> {
+            stockUpdateService.applyJournaled(net);
+            saveCheckpoint(checkpoint);
+        });
+
+        batch.clear();
+        appliedSeq = upTo;
+        int deleted = journal.deleteSegmentsUpTo(upTo);
+        log.debug("Stock journal flushed up to {} ({} ingredient(s), {} segment(s) compacted)",
+                upTo, net.size(), deleted);
+    }
+
+    /**
+     * Flushes settled changes before a manual stock overwrite, so they are
+     * not applied on top of the new level afterwards.
+     */
+    public void drain() {
+        flush();
+    }
+
+    private void settle(long seq, StockAmountMap changes, boolean commit) {
+        journal.append(commit ? StockJournal.COMMIT : StockJournal.ABORT, seq, 0L, 0L);
+        if (commit) {
+            committed.put(seq, changes);
+        }
+        inflight.remove(seq);
+    }
+
+    private void recover() {
+        long started = System.nanoTime();
+        long checkpoint = checkpointRepository.findById(journalId)
+                .map(StockJournalCheckpoint::getAppliedSeq)
+                .orElse(0L);
+
+        StockJournal.Recovery recovery = journal.recover(checkpoint);
+        StockAmountMap net = recovery.getCommitted();
+        Map<Long, StockAmountMap> inDoubt = recovery.getInDoubt();
+
+        if (!inDoubt.isEmpty()) {
+            for (Long seq : stockMovementRepository.findJournalSeqsIn(inDoubt.keySet())) {
+                inDoubt.get(seq).forEach(net::add);
+            }
+        }
+
+        long maxSeq = recovery.getMaxSeq();
+        transactionTemplate.executeWithoutResult(status -> {
+            stockUpdateService.applyJournaled(net);
+            saveCheckpoint(maxSeq);
+        });
+        journal.reset();
+
+        appliedSeq = maxSeq;
+        nextSeq = maxSeq + 1;
+        log.info("Stock journal recovered {} change(s) for {} ingredient(s) ({} in doubt) in {} ms",
+                recovery.getReplayed(), net.size(), inDoubt.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void saveCheckpoint(long seq) {
+        checkpointRepository.save(StockJournalCheckpoint.builder()
+                .journalId(journalId)
+                .appliedSeq(seq)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,155 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.KeysetPage;
+import com.stockmeister.backend.dto.StockLevelDTO;
+import com.stockmeister.backend.dto.StockMovementDTO;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovement;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.StockMovementRepository;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only ledger of stock movements. Movements are written in the same
+ * transaction as the stock change they describe, with the amount actually
+ * applied, so the ledger sums up to the stored level. With the stock journal
+ * enabled they are written when the change is journaled, and a journaled
+ * deduction that the flush floors at zero is not corrected here. Periodic
+ * snapshots keep point-in-time queries short.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockLedgerService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final IngredientRepository ingredientRepository;
+
+    // Movements younger than this may still belong to open transactions and
+    // are left for the next snapshot run.
+    @Value("${app.stock.snapshot-lag:PT1M}")
+    private Duration snapshotLag;
+
+    /**
+     * Records one movement per ingredient; {@code sign} is -1 for outgoing
+     * and 1 for incoming stock.
+     */
+    @Transactional
+    public void record(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId) {
+        stockMovementRepository.appendMovements(amounts, sign, cause, causeId);
+    }
+
+    /**
+     * Like {@link #record}, for changes that were written to the stock
+     * journal under {@code journalSeq}.
+     */
+    @Transactional
+    public void record(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId,
+            long journalSeq) {
+        stockMovementRepository.appendMovements(amounts, sign, cause, causeId, journalSeq);
+    }
+
+    /**
+     * Records a manual overwrite as the difference between the previous and
+     * the new level. Nothing is written if the level did not change.
+     */
+    @Transactional
+    public void recordOverwrite(Long ingredientId, BigDecimal previous, BigDecimal current,
+            StockMovementCause cause) {
+        long delta = StockAmount.toMillis(current) - StockAmount.toMillis(previous);
+        if (delta != 0) {
+            stockMovementRepository.appendMovements(
+                    StockAmountMap.of(ingredientId, delta), 1, cause, null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void insertOpeningBalances() {
+        int inserted = stockMovementRepository.insertOpeningBalances();
+        if (inserted > 0) {
+            log.info("Stock ledger opened for {} ingredient(s)", inserted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.snapshot-ms:3600000}")
+    @Transactional
+    public void takeSnapshots() {
+        int taken = stockMovementRepository.takeSnapshots(LocalDateTime.now().minus(snapshotLag));
+        if (taken > 0) {
+            log.info("Took stock snapshots for {} ingredient(s)", taken);
+        }
+    }
+
+    /**
+     * Movements of one ingredient, newest first. {@code before} is the cursor
+     * from the previous page.
+     */
+    public KeysetPage<StockMovementDTO, Long> getHistory(Long ingredientId, Long before, int limit) {
+        if (!ingredientRepository.existsById(ingredientId)) {
+            throw new RuntimeException("Ingredient not found with id: " + ingredientId);
+        }
+
+        PageRequest page = PageRequest.of(0, clampLimit(limit));
+        List<StockMovement> movements = before == null
+                ? stockMovementRepository.findByIngredientIdOrderByIdDesc(ingredientId, page)
+                : stockMovementRepository.findByIngredientIdAndIdLessThanOrderByIdDesc(ingredientId, before, page);
+
+        Long nextCursor = movements.size() == page.getPageSize()
+                ? movements.get(movements.size() - 1).getId()
+                : null;
+        return new KeysetPage<>(movements.stream()
+                .map(StockMovementDTO::fromEntity)
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Stock of every ingredient as of {@code timestamp}, in ingredient id
+     * order. {@code after} is the cursor from the previous page.
+     */
+    public KeysetPage<StockLevelDTO, Long> getStockAt(LocalDateTime timestamp, Long after, int limit) {
+        PageRequest page = PageRequest.of(0, clampLimit(limit));
+        List<Ingredient> ingredients = ingredientRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? after : 0L, page);
+
+        List<StockLevelDTO> levels = ingredients.stream()
+                .map(ingredient -> StockLevelDTO.builder()
+                        .ingredientId(ingredient.getId())
+                        .name(ingredient.getName())
+                        .unit(ingredient.getUnit())
+                        .stock(StockAmount.toDecimal(
+                                stockMovementRepository.findLevelAt(ingredient.getId(), timestamp)))
+                        .asOf(timestamp)
+                        .build())
+                .collect(Collectors.toList());
+
+        Long nextCursor = ingredients.size() == page.getPageSize()
+                ? ingredients.get(ingredients.size() - 1).getId()
+                : null;
+        return new KeysetPage<>(levels, nextCursor);
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+}
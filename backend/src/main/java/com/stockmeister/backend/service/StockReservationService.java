@@ -0,0 +1,202 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.model.Order;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.model.StockReservation;
+import com.stockmeister.backend.repository.OrderRepository;
+import com.stockmeister.backend.repository.StockReservationRepository;
+import com.stockmeister.backend.util.AfterCommit;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock reservations of unpaid orders. Placing an order holds its stock in
+ * {@link StockEngine} and records it in {@code stock_reservations}; the
+ * database level is only reduced when the order is paid. Orders that stay
+ * PENDING longer than the configured TTL are cancelled by
+ * {@link ReservationExpiryScheduler} and their stock is released.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final OrderRepository orderRepository;
+    private final StockEngine stockEngine;
+    private final StockUpdateService stockUpdateService;
+    private final ReservationTimerWheel timerWheel;
+    private final OrderDocumentService orderDocumentService;
+    private final ActiveOrderBoard activeOrderBoard;
+    private final KitchenTicketService kitchenTicketService;
+
+    @Value("${app.stock.reservation-ttl:PT2H}")
+    private Duration reservationTtl;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOutstanding() {
+        List<Object[]> expiries = stockReservationRepository.findExpiryPerOrder();
+        for (Object[] row : expiries) {
+            timerWheel.schedule(((Number) row[0]).longValue(), toInstant((LocalDateTime) row[1]));
+        }
+        log.info("Scheduled expiry for {} order(s) with outstanding stock reservations", expiries.size());
+    }
+
+    /**
+     * Holds the stock for an order, all or nothing. Throws
+     * {@link com.stockmeister.backend.exception.InsufficientStockException}
+     * if any ingredient cannot cover its amount.
+     */
+    @Transactional
+    public void reserveForOrder(Long orderId, StockAmountMap amounts) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+
+        stockEngine.hold(amounts);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl);
+        List<StockReservation> reservations = new ArrayList<>(amounts.size());
+        amounts.forEach((ingredientId, millis) -> reservations.add(StockReservation.builder()
+                .orderId(orderId)
+                .ingredientId(ingredientId)
+                .amount(millis)
+                .expiresAt(expiresAt)
+                .build()));
+        stockReservationRepository.saveAll(reservations);
+
+        AfterCommit.run(() -> timerWheel.schedule(orderId, toInstant(expiresAt)));
+        log.info("Reserved stock for order {} ({} ingredient(s), expires at {})",
+                orderId, amounts.size(), expiresAt);
+    }
+
+    /**
+     * Records reservations for several orders whose stock the caller has
+     * already held in {@link StockEngine}, with one batched insert.
+     */
+    @Transactional
+    public void recordHeldForOrders(Map<Long, StockAmountMap> amountsByOrder) {
+        if (amountsByOrder.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl);
+        stockReservationRepository.insertBatch(amountsByOrder, expiresAt);
+
+        AfterCommit.run(() -> amountsByOrder.keySet()
+                .forEach(orderId -> timerWheel.schedule(orderId, toInstant(expiresAt))));
+        log.info("Reserved stock for {} order(s) (expires at {})", amountsByOrder.size(), expiresAt);
+    }
+
+    /**
+     * Turns the order's reservations into a stock deduction. Returns false if
+     * the order has no reservations. Callers hold the order row lock, see
+     * {@link OrderRepository#findByIdForUpdate}.
+     */
+    @Transactional
+    public boolean consumeForOrder(Long orderId) {
+        StockAmountMap amounts = claim(orderId);
+        if (amounts == null) {
+            return false;
+        }
+
+        stockUpdateService.consume(amounts, StockMovementCause.ORDER_PAYMENT, orderId);
+        stockEngine.consume(amounts);
+        log.info("Converted stock reservations of order {} into deductions", orderId);
+        return true;
+    }
+
+    /**
+     * Drops the order's reservations and makes the stock available again.
+     * Returns false if the order had none. Callers hold the order row lock.
+     */
+    @Transactional
+    public boolean releaseForOrder(Long orderId) {
+        StockAmountMap amounts = claim(orderId);
+        if (amounts == null) {
+            return false;
+        }
+
+        stockEngine.release(amounts);
+        log.info("Released stock reservations of order {}", orderId);
+        return true;
+    }
+
+    /**
+     * Called when an order's reservations reach their TTL. Abandoned PENDING
+     * orders are cancelled; orders already in the kitchen keep their stock
+     * and are checked again after another TTL.
+     */
+    @Transactional
+    public void expire(Long orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+
+        if (order != null && (order.getStatus() == OrderStatus.IN_PROCESS
+                || order.getStatus() == OrderStatus.READY)) {
+            LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl);
+            if (stockReservationRepository.updateExpiresAt(orderId, expiresAt) > 0) {
+                AfterCommit.run(() -> timerWheel.schedule(orderId, toInstant(expiresAt)));
+            }
+            log.debug("Order {} is {}, reservation extended to {}", orderId, order.getStatus(), expiresAt);
+            return;
+        }
+
+        if (!releaseForOrder(orderId)) {
+            return;
+        }
+
+        if (order != null && order.getStatus() == OrderStatus.PENDING) {
+            order.setStatus(OrderStatus.CANCELLED);
+            OrderResponseDTO response = OrderResponseDTO.fromEntityWithItems(orderRepository.saveAndFlush(order));
+            orderDocumentService.store(response);
+            activeOrderBoard.orderChanged(response);
+            kitchenTicketService.orderCancelled(orderId);
+            log.info("Order {} cancelled after its stock reservation expired", orderId);
+        }
+    }
+
+    // Deleting the rows is the claim. The order row lock keeps two settlements
+    // of the same order apart; should one still get through, fewer rows are
+    // deleted and the transaction fails instead of reading as "no reservations",
+    // which callers would take for stock that is already deducted.
+    private StockAmountMap claim(Long orderId) {
+        List<StockReservation> reservations = stockReservationRepository.findByOrderId(orderId);
+        if (reservations.isEmpty()) {
+            return null;
+        }
+
+        int deleted = stockReservationRepository.deleteByOrderId(orderId);
+        if (deleted < reservations.size()) {
+            throw new RuntimeException("Stock reservations of order " + orderId + " were settled concurrently");
+        }
+
+        StockAmountMap amounts = new StockAmountMap(reservations.size());
+        for (StockReservation reservation : reservations) {
+            amounts.add(reservation.getIngredientId(), reservation.getAmount());
+        }
+
+        AfterCommit.run(() -> timerWheel.cancel(orderId));
+        return amounts;
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,154 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.util.AfterCommit;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in sharded stock for ingredients used by almost every recipe (oil,
+ * salt, butter). The stock of a sharded ingredient is split over N rows in
+ * ingredient_stock_shards, so concurrent orders update different rows
+ * instead of all queueing on the same ingredients row. A deduction starts
+ * at the shard picked for the calling thread and borrows from its siblings
+ * when that shard runs dry. current_stock is refreshed from the shard sums
+ * by {@link #foldShardedStock()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockShardService {
+
+    public static final int MAX_SHARDS = 64;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void loadShardCounts() {
+        shardCounts.putAll(ingredientRepository.findShardCounts());
+        if (!shardCounts.isEmpty()) {
+            ingredientRepository.foldShardedStock();
+            log.info("Stock sharding enabled for {} ingredient(s)", shardCounts.size());
+        }
+    }
+
+    public boolean hasShardedIngredients() {
+        return !shardCounts.isEmpty();
+    }
+
+    public boolean isSharded(long ingredientId) {
+        return shardCounts.containsKey(ingredientId);
+    }
+
+    public int getShardCount(long ingredientId) {
+        return shardCounts.getOrDefault(ingredientId, 1);
+    }
+
+    /**
+     * Turns sharding on (shards &gt; 1) or off (shards = 1) for an ingredient.
+     * The current level is carried over.
+     */
+    @Transactional
+    public void configureShards(Long ingredientId, int shards) {
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new RuntimeException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+        if (!ingredientRepository.existsById(ingredientId)) {
+            throw new RuntimeException("Ingredient not found with id: " + ingredientId);
+        }
+
+        if (shards == 1) {
+            ingredientRepository.mergeShards(ingredientId);
+            AfterCommit.run(() -> shardCounts.remove(ingredientId));
+            log.info("Stock sharding disabled for ingredient {}", ingredientId);
+        } else {
+            ingredientRepository.splitIntoShards(ingredientId, shards, null);
+            AfterCommit.run(() -> shardCounts.put(ingredientId, shards));
+            log.info("Stock of ingredient {} split into {} shard(s)", ingredientId, shards);
+        }
+    }
+
+    /**
+     * Re-splits a sharded ingredient after its level was set manually.
+     */
+    @Transactional
+    public void resplit(Ingredient ingredient) {
+        Integer shards = shardCounts.get(ingredient.getId());
+        if (shards != null) {
+            ingredientRepository.splitIntoShards(ingredient.getId(), shards,
+                    StockAmount.toMillis(ingredient.getCurrentStock()));
+        }
+    }
+
+    @Transactional
+    public List<Long> deduct(StockAmountMap amounts) {
+        List<Long> failed = new ArrayList<>();
+        for (long ingredientId : amounts.sortedKeys()) {
+            long amount = amounts.get(ingredientId);
+            int preferred = preferredShard(ingredientId);
+
+            if (!ingredientRepository.deductFromShard(ingredientId, preferred, amount)
+                    && !ingredientRepository.deductAcrossShards(ingredientId, preferred, amount, false)) {
+                failed.add(ingredientId);
+            }
+        }
+        return failed;
+    }
+
+    @Transactional
+    public List<Long> consume(StockAmountMap amounts) {
+        List<Long> failed = new ArrayList<>();
+        for (long ingredientId : amounts.sortedKeys()) {
+            long amount = amounts.get(ingredientId);
+            int preferred = preferredShard(ingredientId);
+
+            if (!ingredientRepository.deductFromShard(ingredientId, preferred, amount)
+                    && !ingredientRepository.deductAcrossShards(ingredientId, preferred, amount, true)) {
+                failed.add(ingredientId);
+            }
+        }
+        return failed;
+    }
+
+    @Transactional
+    public List<Long> restore(StockAmountMap amounts) {
+        List<Long> failed = new ArrayList<>();
+        for (long ingredientId : amounts.sortedKeys()) {
+            if (!ingredientRepository.addToShard(ingredientId, preferredShard(ingredientId),
+                    amounts.get(ingredientId))) {
+                failed.add(ingredientId);
+            }
+        }
+        return failed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.shard-fold-ms:5000}")
+    @Transactional
+    public void foldShardedStock() {
+        if (hasShardedIngredients()) {
+            int folded = ingredientRepository.foldShardedStock();
+            log.debug("Folded shard sums into current_stock for {} ingredient(s)", folded);
+        }
+    }
+
+    // Each request thread sticks to one shard, so concurrent terminals are
+    // spread over the shards without coordinating.
+    private int preferredShard(long ingredientId) {
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) getShardCount(ingredientId));
+    }
+}
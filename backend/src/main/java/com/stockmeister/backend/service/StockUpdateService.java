@@ -0,0 +1,237 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.exception.InsufficientStockException.StockShortage;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes stock changes to the database as batched relative updates. The
+ * deduction statement only succeeds for rows that still hold enough stock,
+ * so the database stays a final guard behind {@link StockEngine}. Sharded
+ * ingredients are updated through {@link StockShardService}. Every applied
+ * change is also written to the stock ledger with its cause. With the stock
+ * journal enabled the rows are written behind by {@link StockJournalService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockUpdateService {
+
+    private final IngredientRepository ingredientRepository;
+    private final StockShardService stockShardService;
+    private final StockLedgerService stockLedgerService;
+    private final ObjectProvider<StockJournalService> stockJournalService;
+
+    @Transactional
+    public void deduct(StockAmountMap amounts, StockMovementCause cause, Long causeId) {
+        if (journal(amounts, -1, cause, causeId)) {
+            return;
+        }
+
+        List<Long> failed = apply(amounts, Operation.DEDUCT);
+        if (failed.isEmpty()) {
+            stockLedgerService.record(amounts, -1, cause, causeId);
+            log.debug("Deducted stock for {} ingredient(s)", amounts.size());
+            return;
+        }
+
+        Map<Long, BigDecimal> currentStock = ingredientRepository.findCurrentStock(failed);
+        List<StockShortage> shortages = new ArrayList<>();
+
+        for (Ingredient ingredient : ingredientRepository.findAllById(failed)) {
+            BigDecimal available = currentStock.getOrDefault(ingredient.getId(), BigDecimal.ZERO);
+            shortages.add(new StockShortage(
+                    ingredient.getId(),
+                    ingredient.getName(),
+                    ingredient.getUnit(),
+                    StockAmount.toDecimal(amounts.get(ingredient.getId())),
+                    available.setScale(StockAmount.SCALE, RoundingMode.HALF_UP)));
+        }
+
+        log.warn("Stock deduction rejected by database for {} ingredient(s)", failed.size());
+        throw new InsufficientStockException(shortages);
+    }
+
+    @Transactional
+    public void restore(StockAmountMap amounts, StockMovementCause cause, Long causeId) {
+        if (journal(amounts, 1, cause, causeId)) {
+            return;
+        }
+
+        List<Long> failed = apply(amounts, Operation.RESTORE);
+        warnIfFailed(failed, "restore");
+        stockLedgerService.record(without(amounts, failed), 1, cause, causeId);
+        log.debug("Restored stock for {} ingredient(s)", amounts.size());
+    }
+
+    @Transactional
+    public void consume(StockAmountMap amounts, StockMovementCause cause, Long causeId) {
+        if (journal(amounts, -1, cause, causeId)) {
+            return;
+        }
+
+        // Deducted exactly wherever the level still covers the amount; only
+        // the rest is floored at zero, and recorded with what was removed
+        List<Long> shortfall = apply(amounts, Operation.DEDUCT);
+        StockAmountMap consumed = new StockAmountMap(amounts.size());
+        without(amounts, shortfall).forEach(consumed::add);
+
+        if (!shortfall.isEmpty()) {
+            StockAmountMap floored = floorToCurrentStock(subset(amounts, shortfall));
+            List<Long> failed = apply(floored, Operation.CONSUME);
+            warnIfFailed(failed, "consume");
+            without(floored, failed).forEach(consumed::add);
+            log.warn("Consumed stock of ingredient(s) {} exceeded the stored level and was floored at zero",
+                    shortfall);
+        }
+
+        stockLedgerService.record(consumed, -1, cause, causeId);
+        log.debug("Consumed reserved stock for {} ingredient(s)", amounts.size());
+    }
+
+    // The amounts capped at the current level, which is locked for plain
+    // rows so it cannot drop before the update. Empty levels are left out.
+    private StockAmountMap floorToCurrentStock(StockAmountMap amounts) {
+        StockAmountMap floored = new StockAmountMap(amounts.size());
+        for (long ingredientId : amounts.sortedKeys()) {
+            long level = StockAmount.toMillis(ingredientRepository.lockCurrentStock(ingredientId));
+            long amount = Math.min(amounts.get(ingredientId), level);
+            if (amount > 0) {
+                floored.add(ingredientId, amount);
+            }
+        }
+        return floored;
+    }
+
+    /**
+     * Writes net changes flushed from the stock journal: positive amounts are
+     * added, negative ones deducted with the level floored at zero.
+     */
+    @Transactional
+    public void applyJournaled(StockAmountMap netChanges) {
+        StockAmountMap incoming = new StockAmountMap();
+        StockAmountMap outgoing = new StockAmountMap();
+        netChanges.forEach((ingredientId, millis) -> {
+            if (millis > 0) {
+                incoming.add(ingredientId, millis);
+            } else if (millis < 0) {
+                outgoing.add(ingredientId, -millis);
+            }
+        });
+
+        warnIfFailed(apply(incoming, Operation.RESTORE), "journal restore");
+        warnIfFailed(apply(outgoing, Operation.CONSUME), "journal consume");
+    }
+
+    private boolean journal(StockAmountMap amounts, int sign, StockMovementCause cause, Long causeId) {
+        StockJournalService journal = stockJournalService.getIfAvailable();
+        if (journal == null || amounts.isEmpty()) {
+            return false;
+        }
+
+        long seq = journal.record(amounts, sign);
+        stockLedgerService.record(amounts, sign, cause, causeId, seq);
+        return true;
+    }
+
+    // Plain rows first, then shards, both in ascending id order. A row that
+    // was switched between modes since the split is retried the other way.
+    private List<Long> apply(StockAmountMap amounts, Operation operation) {
+        StockAmountMap plain = amounts;
+        StockAmountMap sharded = new StockAmountMap(1);
+
+        if (stockShardService.hasShardedIngredients()) {
+            plain = new StockAmountMap(amounts.size());
+            StockAmountMap plainPart = plain;
+            amounts.forEach((ingredientId, millis) -> {
+                if (stockShardService.isSharded(ingredientId)) {
+                    sharded.add(ingredientId, millis);
+                } else {
+                    plainPart.add(ingredientId, millis);
+                }
+            });
+        }
+
+        List<Long> plainFailed = applyPlain(plain, operation);
+        List<Long> shardedFailed = applySharded(sharded, operation);
+        if (plainFailed.isEmpty() && shardedFailed.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> failed = new ArrayList<>();
+        failed.addAll(applySharded(subset(amounts, plainFailed), operation));
+        failed.addAll(applyPlain(subset(amounts, shardedFailed), operation));
+        return failed;
+    }
+
+    private List<Long> applyPlain(StockAmountMap amounts, Operation operation) {
+        if (amounts.isEmpty()) {
+            return List.of();
+        }
+        return switch (operation) {
+            case DEDUCT -> ingredientRepository.deductStock(amounts);
+            case RESTORE -> ingredientRepository.restoreStock(amounts);
+            case CONSUME -> ingredientRepository.consumeStock(amounts);
+        };
+    }
+
+    private List<Long> applySharded(StockAmountMap amounts, Operation operation) {
+        if (amounts.isEmpty()) {
+            return List.of();
+        }
+        return switch (operation) {
+            case DEDUCT -> stockShardService.deduct(amounts);
+            case RESTORE -> stockShardService.restore(amounts);
+            case CONSUME -> stockShardService.consume(amounts);
+        };
+    }
+
+    private static StockAmountMap subset(StockAmountMap amounts, List<Long> ingredientIds) {
+        StockAmountMap subset = new StockAmountMap(ingredientIds.size());
+        for (Long ingredientId : ingredientIds) {
+            subset.add(ingredientId, amounts.get(ingredientId));
+        }
+        return subset;
+    }
+
+    private static StockAmountMap without(StockAmountMap amounts, List<Long> ingredientIds) {
+        if (ingredientIds.isEmpty()) {
+            return amounts;
+        }
+        StockAmountMap remaining = new StockAmountMap(amounts.size());
+        amounts.forEach((ingredientId, millis) -> {
+            if (!ingredientIds.contains(ingredientId)) {
+                remaining.add(ingredientId, millis);
+            }
+        });
+        return remaining;
+    }
+
+    private static void warnIfFailed(List<Long> failed, String operation) {
+        if (!failed.isEmpty()) {
+            log.warn("Stock {} did not match any row for ingredient(s) {}", operation, failed);
+        }
+    }
+
+    private enum Operation {
+        DEDUCT,
+        RESTORE,
+        CONSUME
+    }
+}
@@ -2,9 +2,12 @@ package com.stockmeister.backend.service;
 
 import com.stockmeister.backend.dto.WasteLogRequest;
 import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovementCause;
 import com.stockmeister.backend.model.WasteLog;
 import com.stockmeister.backend.repository.IngredientRepository;
 import com.stockmeister.backend.repository.WasteLogRepository;
+import com.stockmeister.backend.util.StockAmount;
+import com.stockmeister.backend.util.StockAmountMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,6 +25,8 @@ public class WasteLogService {
 
     private final WasteLogRepository wasteLogRepository;
     private final IngredientRepository ingredientRepository;
+    private final StockEngine stockEngine;
+    private final StockUpdateService stockUpdateService;
 
     public List<WasteLog> getAllWasteLogs() {
         log.info("Fetching all waste logs");
@@ -46,16 +51,8 @@ public class WasteLogService {
         Ingredient ingredient = ingredientRepository.findById(request.getIngredientId())
                 .orElseThrow(() -> new RuntimeException("Ingredient not found with id: " + request.getIngredientId()));
 
-        BigDecimal currentStock = ingredient.getCurrentStock() != null ? ingredient.getCurrentStock() : BigDecimal.ZERO;
-
-        if (currentStock.compareTo(wasteQty) < 0) {
-            throw new RuntimeException("Insufficient stock for waste operation. Ingredient '" +
-                    ingredient.getName() + "' currentStock=" + currentStock + ", requestedWaste=" + wasteQty);
-        }
-
-        BigDecimal newStock = currentStock.subtract(wasteQty);
-        ingredient.setCurrentStock(newStock);
-        ingredientRepository.save(ingredient);
+        StockAmountMap wasteAmounts = StockAmountMap.of(ingredient.getId(), StockAmount.toMillis(wasteQty));
+        stockEngine.reserve(wasteAmounts);
 
         WasteLog wasteLog = WasteLog.builder()
                 .ingredient(ingredient)
@@ -65,9 +62,10 @@ public class WasteLogService {
                 .build();
 
         WasteLog saved = wasteLogRepository.save(wasteLog);
+        stockUpdateService.deduct(wasteAmounts, StockMovementCause.WASTE, saved.getId());
 
-        log.info("Waste log created (id={}) for ingredient '{}' -> stock {} -> {}, reason='{}'",
-                saved.getId(), ingredient.getName(), currentStock, newStock, request.getReason());
+        log.info("Waste log created (id={}) for ingredient '{}' -> deducted {}, reason='{}'",
+                saved.getId(), ingredient.getName(), wasteQty, request.getReason());
 
         return saved;
     }
@@ -77,11 +75,10 @@ public class WasteLogService {
         WasteLog log = wasteLogRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Waste record not found"));
 
-        Ingredient ingredient = log.getIngredient();
-        BigDecimal currentStock = ingredient.getCurrentStock() != null ? ingredient.getCurrentStock() : BigDecimal.ZERO;
-
-        ingredient.setCurrentStock(currentStock.add(log.getQuantity()));
-        ingredientRepository.save(ingredient);
+        StockAmountMap restoreAmounts = StockAmountMap.of(
+                log.getIngredient().getId(), StockAmount.toMillis(log.getQuantity()));
+        stockUpdateService.restore(restoreAmounts, StockMovementCause.WASTE_DELETED, id);
+        stockEngine.restore(restoreAmounts);
 
         wasteLogRepository.delete(log);
     }
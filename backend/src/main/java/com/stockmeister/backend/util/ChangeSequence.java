@@ -0,0 +1,30 @@
+package com.stockmeister.backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change sequence numbers for entity writes, used as sync watermarks.
+ * A value is the wall-clock time in microseconds, bumped by one where
+ * needed so values handed out by one JVM strictly increase. Across
+ * restarts and cluster nodes they increase as far as the clocks agree;
+ * readers allow for that with a settle delay (see {@link #at}).
+ */
+public final class ChangeSequence {
+
+    private static final AtomicLong last = new AtomicLong();
+
+    private ChangeSequence() {
+    }
+
+    public static long next() {
+        long now = System.currentTimeMillis() * 1000;
+        return last.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    /**
+     * Lowest sequence value that can be handed out at the given time.
+     */
+    public static long at(long epochMillis) {
+        return epochMillis * 1000;
+    }
+}
@@ -0,0 +1,63 @@
+package com.stockmeister.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps ingredient ids to node ids. Each node is placed on the ring several
+ * times (virtual nodes) so that a join or leave only moves roughly
+ * {@code 1/n} of the ids. Immutable; a topology change builds a new ring.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("Ring must have at least one node");
+        }
+        this.nodes = Set.copyOf(new TreeSet<>(nodeIds));
+        for (String nodeId : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hashOf(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    public String ownerOf(long ingredientId) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(ingredientId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    // SplitMix64 finalizer, spreads sequential ids over the whole ring.
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long hashOf(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
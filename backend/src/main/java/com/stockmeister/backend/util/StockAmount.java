@@ -0,0 +1,34 @@
+package com.stockmeister.backend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point stock quantities. Amount and stock columns are
+ * {@code precision 10, scale 3}, so every value fits exactly into a
+ * {@code long} counting thousandths of the ingredient unit. Stock math runs
+ * on these milli-units; {@link BigDecimal} is only used at the DTO and
+ * persistence boundary.
+ */
+public final class StockAmount {
+
+    public static final int SCALE = 3;
+
+    private StockAmount() {
+    }
+
+    public static long toMillis(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long millis) {
+        return BigDecimal.valueOf(millis, SCALE);
+    }
+
+    public static long multiply(long millis, int quantity) {
+        return Math.multiplyExact(millis, (long) quantity);
+    }
+}
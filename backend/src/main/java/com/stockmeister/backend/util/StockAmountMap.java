@@ -0,0 +1,210 @@
+package com.stockmeister.backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from ingredient id to an amount in milli-units (see
+ * {@link StockAmount}). Used to aggregate the stock a cart needs without
+ * boxing ids or allocating a {@code BigDecimal} per line. Entries can only be
+ * added, never removed.
+ */
+public final class StockAmountMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    public StockAmountMap() {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    public StockAmountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    public static StockAmountMap of(long ingredientId, long millis) {
+        StockAmountMap map = new StockAmountMap(1);
+        map.add(ingredientId, millis);
+        return map;
+    }
+
+    /**
+     * Adds {@code millis} to the amount stored for the ingredient.
+     */
+    public void add(long ingredientId, long millis) {
+        int index = indexOf(ingredientId);
+        if (used[index]) {
+            values[index] = Math.addExact(values[index], millis);
+            return;
+        }
+
+        keys[index] = ingredientId;
+        values[index] = millis;
+        used[index] = true;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    public long get(long ingredientId) {
+        int index = indexOf(ingredientId);
+        return used[index] ? values[index] : 0L;
+    }
+
+    public boolean containsKey(long ingredientId) {
+        return used[indexOf(ingredientId)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Ingredient ids in ascending order, the order in which stock rows and
+     * stripes are locked.
+     */
+    public long[] sortedKeys() {
+        long[] sorted = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                sorted[n++] = keys[i];
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public void forEach(AmountConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Packs the map into a compact binary form: the entry count, then per
+     * entry in ascending id order the id as a varint delta to the previous id
+     * and the amount as a zigzag varint. A typical order takes a few bytes
+     * per ingredient.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + size * 4);
+        writeVarLong(out, size);
+        long previous = 0L;
+        for (long key : sortedKeys()) {
+            writeVarLong(out, key - previous);
+            writeVarLong(out, (get(key) << 1) ^ (get(key) >> 63));
+            previous = key;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reverses {@link #toBytes()}. Throws {@link IllegalArgumentException} if
+     * the input is truncated or malformed.
+     */
+    public static StockAmountMap fromBytes(byte[] packed) {
+        ByteBuffer in = ByteBuffer.wrap(packed);
+        long count = readVarLong(in);
+        // Every entry takes at least two bytes
+        if (count < 0 || count > in.remaining() / 2) {
+            throw new IllegalArgumentException("Malformed stock amount entry count: " + count);
+        }
+        StockAmountMap map = new StockAmountMap((int) count);
+        long key = 0L;
+        for (int i = 0; i < count; i++) {
+            key += readVarLong(in);
+            long zigzag = readVarLong(in);
+            map.add(key, (zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (long key : sortedKeys()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(StockAmount.toDecimal(get(key)));
+        }
+        return sb.append('}').toString();
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                used[index] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IllegalArgumentException("Truncated stock amount data");
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed stock amount varint");
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface AmountConsumer {
+        void accept(long ingredientId, long millis);
+    }
+}
@@ -0,0 +1,141 @@
+package com.stockmeister.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load driver for comparing order throughput of one backend node against a
+ * cluster. Places POS orders as fast as possible from a number of client
+ * threads, spread round-robin over the given nodes, and prints accepted,
+ * rejected (insufficient stock) and failed orders per second.
+ *
+ * Start the nodes as described in the README ("Running a Cluster Locally"),
+ * then run for example:
+ *
+ * <pre>
+ * nodes=http://localhost:8080,http://localhost:8081,http://localhost:8082
+ * user=admin password=changeme recipes=1,2,3 threads=32 seconds=30
+ * </pre>
+ *
+ * once with a single node URL and once with all of them. Orders stay
+ * PENDING, so stock is held until the reservation TTL runs out; restock
+ * between runs.
+ */
+public class ClusterThroughputDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String[] nodes = options.getOrDefault("nodes", "http://localhost:8080").split(",");
+        String user = options.getOrDefault("user", "admin");
+        String password = options.getOrDefault("password", "changeme");
+        long[] recipes = parseIds(options.getOrDefault("recipes", "1"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(threads))
+                .build();
+        String token = login(client, nodes[0], user, password);
+
+        LongAdder accepted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.submit(() -> {
+                int request = worker;
+                while (System.nanoTime() < deadline) {
+                    String node = nodes[request++ % nodes.length];
+                    try {
+                        int status = placeOrder(client, node, token, recipes);
+                        if (status / 100 == 2) {
+                            accepted.increment();
+                        } else if (status == 400) {
+                            rejected.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+                return null;
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        System.out.printf("nodes=%d threads=%d seconds=%d%n", nodes.length, threads, seconds);
+        System.out.printf("accepted: %d (%.1f orders/s)%n", accepted.sum(), accepted.sum() / (double) seconds);
+        System.out.printf("rejected: %d, failed: %d%n", rejected.sum(), failed.sum());
+        System.exit(0);
+    }
+
+    private static String login(HttpClient client, String node, String user, String password) throws Exception {
+        Map<String, String> body = Map.of("username", user, "password", password);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(node + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        JsonNode json = MAPPER.readTree(response.body());
+        if (response.statusCode() != 200 || !json.hasNonNull("token")) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return json.get("token").asText();
+    }
+
+    private static int placeOrder(HttpClient client, String node, String token, long[] recipes) throws Exception {
+        List<Map<String, Object>> items = new ArrayList<>();
+        items.add(Map.of("recipeId", recipes[ThreadLocalRandom.current().nextInt(recipes.length)], "quantity", 1));
+        Map<String, Object> order = Map.of("tableNumber", "T" + ThreadLocalRandom.current().nextInt(1, 30),
+                "items", items);
+
+        return client.send(HttpRequest.newBuilder(URI.create(node + "/api/pos/orders"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(order)))
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    private static long[] parseIds(String csv) {
+        String[] parts = csv.split(",");
+        long[] ids = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = Long.parseLong(parts[i].trim());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,124 @@
+package com.stockmeister.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.stockmeister.backend.security.JwtAuthenticationFilter;
+import com.stockmeister.backend.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling per authenticated request. {@code previousFourParses} is
+ * what the filter used to do: extractUsername, validateToken (two more
+ * parses) and extractRole, each building a new key and parser.
+ * {@code parseToken} is the single verification now, uncached
+ * (claimsCacheSize 0) and from the claims cache. {@code filterChain} runs
+ * the whole filter; the user lookup is stubbed, it is served by the
+ * second-level cache in the application.
+ *
+ * The CPU saved is the difference in time per operation times the request
+ * rate: for example 20 us saved at 1,000 authenticated requests per second
+ * is 2% of one core.
+ *
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.stockmeister.backend.benchmark.JwtAuthenticationFilterBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "BenchmarkSecretKeyBenchmarkSecretKeyBenchmark2025!";
+
+    @Param({ "0", "10000" })
+    private int claimsCacheSize;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private String bearer;
+
+    @Setup
+    public void setUp() {
+        // The filter logs every request below WARN
+        ((Logger) LoggerFactory.getLogger("com.stockmeister")).setLevel(Level.WARN);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", claimsCacheSize);
+        jwtUtil.init();
+
+        UserDetailsService userDetailsService = username -> User.withUsername(username)
+                .password("unused")
+                .roles("WAITER")
+                .build();
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+
+        token = jwtUtil.generateToken("DemoWaiter", "WAITER");
+        bearer = "Bearer " + token;
+    }
+
+    @Benchmark
+    public String previousFourParses() {
+        String username = previousParse().getSubject();
+        boolean valid = username.equals(previousParse().getSubject())
+                && previousParse().getExpiration().getTime() > System.currentTimeMillis();
+        return valid ? previousParse().get("role", String.class) : null;
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public Authentication filterChain() throws Exception {
+        // OncePerRequestFilter marks the request, so every call needs a new one
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pos/products");
+        request.addHeader(HttpHeaders.AUTHORIZATION, bearer);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private Claims previousParse() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
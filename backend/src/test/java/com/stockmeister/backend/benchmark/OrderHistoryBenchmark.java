@@ -0,0 +1,142 @@
+package com.stockmeister.backend.benchmark;
+
+import com.stockmeister.backend.dto.OrderFilter;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.repository.OrderQueryRepositoryImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares deep pages of the order history: keyset pages through
+ * {@link OrderQueryRepositoryImpl} against LIMIT/OFFSET, on a PostgreSQL
+ * database with millions of orders. Missing orders are generated with one
+ * INSERT ... SELECT (three items each), so the first run takes a while.
+ *
+ * Run against a scratch database the backend has created its schema in:
+ *
+ * <pre>
+ * url=jdbc:postgresql://localhost:5432/stockmeister_bench user=postgres password=postgres
+ * orders=5000000 pages=200 limit=50
+ * </pre>
+ *
+ * Prints the average time per page for the first pages and for pages deep
+ * into the history, with and without a status filter.
+ */
+public class OrderHistoryBenchmark {
+
+    public static void main(String[] args) {
+        Map<String, String> options = parse(args);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                options.getOrDefault("url", "jdbc:postgresql://localhost:5432/stockmeister_bench"),
+                options.getOrDefault("user", "postgres"),
+                options.getOrDefault("password", "postgres"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        long orders = Long.parseLong(options.getOrDefault("orders", "5000000"));
+        int pages = Integer.parseInt(options.getOrDefault("pages", "200"));
+        int limit = Integer.parseInt(options.getOrDefault("limit", "50"));
+
+        seed(jdbcTemplate, orders);
+
+        OrderQueryRepositoryImpl repository = new OrderQueryRepositoryImpl(jdbcTemplate);
+        OrderFilter all = new OrderFilter();
+        OrderFilter completed = OrderFilter.builder().status(OrderStatus.COMPLETED).build();
+
+        for (OrderFilter filter : List.of(all, completed)) {
+            String name = filter.getStatus() == null ? "all orders" : "status " + filter.getStatus();
+            System.out.printf("%s, keyset, pages 1-%d:        %.2f ms/page%n",
+                    name, pages, keyset(jdbcTemplate, repository, filter, pages, limit));
+            System.out.printf("%s, offset, pages 1-%d:        %.2f ms/page%n",
+                    name, pages, offset(jdbcTemplate, filter, 0, pages, limit));
+            long deep = orders / limit / 2;
+            System.out.printf("%s, offset, pages %d-%d: %.2f ms/page%n",
+                    name, deep, deep + 10, offset(jdbcTemplate, filter, deep, 10, limit));
+        }
+    }
+
+    private static double keyset(JdbcTemplate jdbcTemplate, OrderQueryRepositoryImpl repository,
+            OrderFilter filter, int pages, int limit) {
+        LocalDateTime createdAt = null;
+        Long id = null;
+        long started = System.nanoTime();
+
+        for (int page = 0; page < pages; page++) {
+            List<Long> ids = repository.findPageIds(filter, createdAt, id, limit);
+            if (ids.isEmpty()) {
+                break;
+            }
+            fetchItems(jdbcTemplate, ids);
+            id = ids.get(ids.size() - 1);
+            createdAt = jdbcTemplate.queryForObject(
+                    "SELECT created_at FROM orders WHERE id = ?", LocalDateTime.class, id);
+        }
+        return (System.nanoTime() - started) / 1e6 / pages;
+    }
+
+    private static double offset(JdbcTemplate jdbcTemplate, OrderFilter filter, long firstPage, int pages,
+            int limit) {
+        String where = filter.getStatus() != null ? " WHERE status = '" + filter.getStatus() + "'" : "";
+        long started = System.nanoTime();
+
+        for (long page = firstPage; page < firstPage + pages; page++) {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders" + where
+                    + " ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?", Long.class, limit, page * limit);
+            fetchItems(jdbcTemplate, ids);
+        }
+        return (System.nanoTime() - started) / 1e6 / pages;
+    }
+
+    private static void fetchItems(JdbcTemplate jdbcTemplate, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT * FROM order_items WHERE order_id = ANY(?)",
+                (Object) ids.toArray(new Long[0]));
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, long orders) {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        long missing = orders - (existing != null ? existing : 0);
+        if (missing <= 0) {
+            return;
+        }
+
+        Long waiterId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        Long recipeId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM recipes", Long.class);
+        if (waiterId == null || recipeId == null) {
+            throw new IllegalStateException("Start the backend once so users and recipes are seeded");
+        }
+
+        System.out.printf("Generating %d orders...%n", missing);
+        jdbcTemplate.update("INSERT INTO orders (table_number, customer_name, status, subtotal, tax_rate, " +
+                "tax_amount, tip, total_amount, payment_method, waiter_id, created_at, updated_at) " +
+                "SELECT 'T' || (g % 40), 'Guest ' || (g % 5000), " +
+                "(ARRAY['PENDING','IN_PROCESS','READY','COMPLETED','CANCELLED'])[1 + g % 5], " +
+                "20, 0.05, 1, 0, 21, (ARRAY['CASH','DEBIT_CARD','UNPAID'])[1 + g % 3], ?, " +
+                "now() - (g || ' seconds')::interval, now() " +
+                "FROM generate_series(1, ?) g", waiterId, missing);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, recipe_id, recipe_name, quantity, unit_price, " +
+                "created_at, updated_at) " +
+                "SELECT o.id, ?, 'Bench', 1 + n, 10, o.created_at, o.created_at " +
+                "FROM orders o CROSS JOIN generate_series(0, 2) n " +
+                "WHERE NOT EXISTS (SELECT 1 FROM order_items i WHERE i.order_id = o.id)", recipeId);
+        jdbcTemplate.execute("ANALYZE orders");
+        jdbcTemplate.execute("ANALYZE order_items");
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,77 @@
+package com.stockmeister.backend.benchmark;
+
+import com.stockmeister.backend.journal.StockJournal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Recovery time of the stock journal: opening a journal of 10M entries and
+ * summing up the committed changes, as done on startup before the result is
+ * written to the database. Every transaction has three deltas and one
+ * marker; one in a hundred is aborted.
+ *
+ * Setup writes the journal once (about 320 MB in the temp directory), each
+ * measurement is a cold open and replay. The database update afterwards is
+ * one batch for at most the number of ingredients and is not included.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+@State(Scope.Benchmark)
+public class StockJournalRecoveryBenchmark {
+
+    private static final int ENTRIES = 10_000_000;
+    private static final int DELTAS_PER_TRANSACTION = 3;
+    private static final int SEGMENT_ENTRIES = 1 << 20;
+    private static final int INGREDIENTS = 500;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        directory = Files.createTempDirectory("stock-journal-bench");
+        StockJournal journal = new StockJournal(directory, SEGMENT_ENTRIES);
+
+        long position = 0;
+        long seq = 1;
+        while (position < ENTRIES) {
+            for (int i = 0; i < DELTAS_PER_TRANSACTION; i++) {
+                journal.append(StockJournal.DELTA, seq, (seq * 7 + i) % INGREDIENTS + 1, -250L);
+            }
+            position = journal.append(seq % 100 == 0 ? StockJournal.ABORT : StockJournal.COMMIT, seq, 0L, 0L);
+            seq++;
+        }
+        journal.sync(position);
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public StockJournal.Recovery recover() {
+        StockJournal journal = new StockJournal(directory, SEGMENT_ENTRIES);
+        return journal.recover(0L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StockJournalRecoveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
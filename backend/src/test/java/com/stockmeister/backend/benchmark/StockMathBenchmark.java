@@ -0,0 +1,107 @@
+package com.stockmeister.backend.benchmark;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.service.RecipeBom;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares aggregating the required stock of one order the old way
+ * (BigDecimal per line, boxed HashMap) with the fixed-point path
+ * (compiled {@link RecipeBom}, {@link StockAmountMap}).
+ *
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.stockmeister.backend.benchmark.StockMathBenchmark}.
+ * The GC profiler reports allocated bytes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockMathBenchmark {
+
+    @Param({ "3", "12" })
+    private int cartLines;
+
+    private static final int INGREDIENTS_PER_RECIPE = 6;
+
+    private List<Recipe> recipes;
+    private List<RecipeBom> boms;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        recipes = new ArrayList<>();
+        boms = new ArrayList<>();
+        quantities = new int[cartLines];
+
+        for (int line = 0; line < cartLines; line++) {
+            Recipe recipe = Recipe.builder()
+                    .name("Recipe " + line)
+                    .sellingPrice(new BigDecimal("9.50"))
+                    .build();
+            recipe.setId((long) line + 1);
+
+            for (int i = 0; i < INGREDIENTS_PER_RECIPE; i++) {
+                // Neighbouring recipes share ingredients, as real menus do.
+                Ingredient ingredient = Ingredient.builder().name("Ingredient " + (line + i)).unit("kg").build();
+                ingredient.setId((long) (line + i) + 1);
+                recipe.getIngredients().add(RecipeIngredient.builder()
+                        .recipe(recipe)
+                        .ingredient(ingredient)
+                        .amount(new BigDecimal("0.125").add(BigDecimal.valueOf(i, 3)))
+                        .build());
+            }
+
+            recipes.add(recipe);
+            boms.add(RecipeBom.compile(recipe));
+            quantities[line] = 1 + line % 3;
+        }
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> bigDecimalHashMap() {
+        Map<Long, BigDecimal> requiredAmounts = new HashMap<>();
+        for (int line = 0; line < recipes.size(); line++) {
+            BigDecimal quantity = BigDecimal.valueOf(quantities[line]);
+            for (RecipeIngredient ri : recipes.get(line).getIngredients()) {
+                requiredAmounts.merge(ri.getIngredient().getId(), ri.getAmount().multiply(quantity), BigDecimal::add);
+            }
+        }
+        return requiredAmounts;
+    }
+
+    @Benchmark
+    public StockAmountMap fixedPointPrimitiveMap() {
+        StockAmountMap requiredAmounts = new StockAmountMap();
+        for (int line = 0; line < boms.size(); line++) {
+            boms.get(line).addRequirements(quantities[line], requiredAmounts);
+        }
+        return requiredAmounts;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StockMathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.stockmeister.backend.benchmark;
+
+import com.stockmeister.backend.repository.IngredientShardRepositoryImpl;
+import com.stockmeister.backend.repository.IngredientStockRepositoryImpl;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order throughput when every order deducts the same three hot ingredients
+ * (oil, salt, butter), once with plain rows and once with the ingredients
+ * split into shards. Each operation is one committed transaction against an
+ * in-memory H2 database with row-level locking.
+ *
+ * Run {@link #main} to measure 1, 2, 4 and 8 threads; with plain rows the
+ * throughput stays flat as threads are added, with shards it should grow
+ * until the shard count or the core count is reached. Absolute numbers from
+ * H2 are only indicative for PostgreSQL.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockShardContentionBenchmark {
+
+    private static final long[] HOT_INGREDIENTS = { 1L, 2L, 3L };
+    private static final int SHARDS = 16;
+
+    @Param({ "false", "true" })
+    private boolean sharded;
+
+    private TransactionTemplate transactionTemplate;
+    private IngredientStockRepositoryImpl stockRepository;
+    private IngredientShardRepositoryImpl shardRepository;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shard-bench-" + sharded + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE ingredients (id BIGINT PRIMARY KEY, current_stock NUMERIC(10,3), " +
+                "stock_shards INT, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE ingredient_stock_shards (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "ingredient_id BIGINT NOT NULL, shard_index INT NOT NULL, amount NUMERIC(10,3) NOT NULL, " +
+                "UNIQUE (ingredient_id, shard_index))");
+
+        stockRepository = new IngredientStockRepositoryImpl(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate));
+        shardRepository = new IngredientShardRepositoryImpl(jdbcTemplate);
+
+        for (long id : HOT_INGREDIENTS) {
+            jdbcTemplate.update("INSERT INTO ingredients (id, current_stock) VALUES (?, 9000000)", id);
+            if (sharded) {
+                shardRepository.splitIntoShards(id, SHARDS, null);
+            }
+        }
+
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Benchmark
+    public void placeOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (sharded) {
+                int shard = (int) Math.floorMod(Thread.currentThread().getId(), (long) SHARDS);
+                for (long id : HOT_INGREDIENTS) {
+                    if (!shardRepository.deductFromShard(id, shard, 5L)) {
+                        shardRepository.deductAcrossShards(id, shard, 5L, false);
+                    }
+                }
+            } else {
+                StockAmountMap amounts = new StockAmountMap();
+                for (long id : HOT_INGREDIENTS) {
+                    amounts.add(id, 5L);
+                }
+                stockRepository.deductStock(amounts);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] { 1, 2, 4, 8 }) {
+            new Runner(new OptionsBuilder()
+                    .include(StockShardContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
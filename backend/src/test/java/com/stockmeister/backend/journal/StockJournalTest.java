@@ -0,0 +1,41 @@
+package com.stockmeister.backend.journal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Wiederherstellung - bestaetigte, abgebrochene und offene Transaktionen")
+    void shouldRecoverCommittedAndInDoubtTransactions() {
+        StockJournal journal = new StockJournal(directory, 4);
+        journal.append(StockJournal.DELTA, 1L, 10L, -500L);
+        journal.append(StockJournal.DELTA, 1L, 11L, -250L);
+        journal.append(StockJournal.COMMIT, 1L, 0L, 0L);
+        journal.append(StockJournal.DELTA, 2L, 10L, -100L);
+        journal.append(StockJournal.ABORT, 2L, 0L, 0L);
+        long position = journal.append(StockJournal.DELTA, 3L, 10L, 1_000L);
+        journal.sync(position);
+        journal.close();
+
+        StockJournal reopened = new StockJournal(directory, 4);
+        StockJournal.Recovery recovery = reopened.recover(0L);
+
+        assertEquals(2, reopened.getSegmentCount());
+        assertEquals(-500L, recovery.getCommitted().get(10L));
+        assertEquals(-250L, recovery.getCommitted().get(11L));
+        assertEquals(1, recovery.getInDoubt().size());
+        assertEquals(1_000L, recovery.getInDoubt().get(3L).get(10L));
+        assertEquals(3L, recovery.getMaxSeq());
+
+        assertTrue(reopened.recover(3L).getCommitted().isEmpty());
+    }
+}
@@ -1,6 +1,7 @@
 package com.stockmeister.backend.repository;
 
 import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.util.StockAmountMap;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -144,4 +146,63 @@ class IngredientRepositoryTest {
         List<Ingredient> result = ingredientRepository.findOutOfStockIngredients();
         assertTrue(result.stream().anyMatch(i -> i.getName().equals("EmptyTestItem")));
     }
+
+    @Test
+    @DisplayName("Bestand im Batch abbuchen - nur bei ausreichendem Bestand")
+    void shouldDeductStockOnlyWhenSufficient() {
+        Ingredient oil = Ingredient.builder()
+                .name("BatchOil")
+                .category("Test")
+                .unit("liter")
+                .currentStock(new BigDecimal("10.000"))
+                .minimumStock(BigDecimal.ZERO)
+                .unitPrice(new BigDecimal("2.00"))
+                .isActive(true)
+                .build();
+        Ingredient salt = Ingredient.builder()
+                .name("BatchSalt")
+                .category("Test")
+                .unit("kg")
+                .currentStock(new BigDecimal("1.000"))
+                .minimumStock(BigDecimal.ZERO)
+                .unitPrice(new BigDecimal("0.50"))
+                .isActive(true)
+                .build();
+        Long oilId = ingredientRepository.saveAndFlush(oil).getId();
+        Long saltId = ingredientRepository.saveAndFlush(salt).getId();
+
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(oilId, 4_000L);
+        amounts.add(saltId, 2_000L);
+
+        List<Long> failed = ingredientRepository.deductStock(amounts);
+
+        assertEquals(List.of(saltId), failed);
+        Map<Long, BigDecimal> stock = ingredientRepository.findCurrentStock(List.of(oilId, saltId));
+        assertEquals(0, new BigDecimal("6.000").compareTo(stock.get(oilId)));
+        assertEquals(0, new BigDecimal("1.000").compareTo(stock.get(saltId)));
+    }
+
+    @Test
+    @DisplayName("Aufgeteilter Bestand - leerer Shard leiht bei Nachbarn")
+    void shouldBorrowFromSiblingShards() {
+        Ingredient butter = Ingredient.builder()
+                .name("Butter")
+                .unit("kg")
+                .currentStock(new BigDecimal("3.000"))
+                .unitPrice(new BigDecimal("6.00"))
+                .isActive(true)
+                .build();
+        Long butterId = ingredientRepository.saveAndFlush(butter).getId();
+
+        ingredientRepository.splitIntoShards(butterId, 3, null);
+
+        assertFalse(ingredientRepository.deductFromShard(butterId, 0, 1_500L));
+        assertTrue(ingredientRepository.deductAcrossShards(butterId, 0, 1_500L, false));
+        assertFalse(ingredientRepository.deductAcrossShards(butterId, 1, 2_000L, false));
+
+        Map<Long, BigDecimal> stock = ingredientRepository.findCurrentStock(List.of(butterId));
+        assertEquals(0, new BigDecimal("1.500").compareTo(stock.get(butterId)));
+        assertEquals(List.of(butterId), ingredientRepository.deductStock(StockAmountMap.of(butterId, 100L)));
+    }
 }
@@ -0,0 +1,77 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.dto.OrderFilter;
+import com.stockmeister.backend.model.Order;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.model.Role;
+import com.stockmeister.backend.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Keyset-Seiten liefern jede gefilterte Bestellung genau einmal")
+    void shouldPageThroughFilteredOrdersWithoutGapsOrRepeats() {
+        User waiter = userRepository.save(User.builder()
+                .username("history-waiter")
+                .email("history-waiter@example.com")
+                .password("x")
+                .role(Role.WAITER)
+                .isActive(true)
+                .build());
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Order order = orderRepository.save(Order.builder()
+                    .tableNumber("H" + (i % 2))
+                    .customerName(i % 3 == 0 ? "Anna_Keyset" : "Bernd")
+                    .status(i % 2 == 0 ? OrderStatus.COMPLETED : OrderStatus.PENDING)
+                    .waiter(waiter)
+                    .build());
+            if (i % 2 == 0) {
+                expected.add(0, order.getId());
+            }
+        }
+        orderRepository.flush();
+
+        OrderFilter filter = OrderFilter.builder()
+                .status(OrderStatus.COMPLETED)
+                .waiterId(waiter.getId())
+                .build();
+
+        List<Long> seen = new ArrayList<>();
+        List<Long> page = orderRepository.findPageIds(filter, null, null, 3);
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            Order last = orderRepository.findById(page.get(page.size() - 1)).orElseThrow();
+            page = orderRepository.findPageIds(filter, last.getCreatedAt(), last.getId(), 3);
+        }
+
+        assertEquals(expected, seen);
+
+        OrderFilter byName = OrderFilter.builder()
+                .waiterId(waiter.getId())
+                .customerName("anna_k")
+                .build();
+        assertEquals(3, orderRepository.findPageIds(byName, null, null, 10).size());
+    }
+}
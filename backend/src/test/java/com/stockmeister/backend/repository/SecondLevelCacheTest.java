@@ -0,0 +1,63 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Role;
+import com.stockmeister.backend.model.User;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Test
+    @DisplayName("Benutzer werden im Second-Level-Cache gehalten, Zutaten wegen des Bestands nicht")
+    void shouldCacheUsersButNotIngredients() {
+        User user = userRepository.save(User.builder()
+                .username("CacheTestUser")
+                .email("cachetest@stockmeister.test")
+                .password("hash")
+                .role(Role.WAITER)
+                .isActive(true)
+                .build());
+        Ingredient ingredient = ingredientRepository.save(Ingredient.builder()
+                .name("CacheTestSalt")
+                .unit("kg")
+                .currentStock(new BigDecimal("5.000"))
+                .minimumStock(BigDecimal.ONE)
+                .unitPrice(BigDecimal.ONE)
+                .build());
+        Cache cache = entityManagerFactory.getCache();
+        cache.evictAll();
+
+        // Each repository call runs in its own committed transaction
+        userRepository.findById(user.getId());
+        ingredientRepository.findById(ingredient.getId());
+
+        try {
+            assertTrue(cache.contains(User.class, user.getId()));
+            assertFalse(cache.contains(Ingredient.class, ingredient.getId()));
+        } finally {
+            userRepository.delete(user);
+            ingredientRepository.delete(ingredient);
+        }
+    }
+}
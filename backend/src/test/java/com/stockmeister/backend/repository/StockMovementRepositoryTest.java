@@ -0,0 +1,64 @@
+package com.stockmeister.backend.repository;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovement;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class StockMovementRepositoryTest {
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Test
+    @DisplayName("Bestand zu einem Zeitpunkt aus Snapshot und Bewegungen")
+    void shouldAnswerStockAtFromSnapshotAndReplay() throws InterruptedException {
+        Ingredient ingredient = ingredientRepository.save(Ingredient.builder()
+                .name("LedgerTestFlour")
+                .unit("kg")
+                .currentStock(new BigDecimal("10.000"))
+                .unitPrice(new BigDecimal("1.00"))
+                .isActive(true)
+                .build());
+        long id = ingredient.getId();
+
+        stockMovementRepository.appendMovements(
+                StockAmountMap.of(id, 10_000L), 1, StockMovementCause.OPENING_BALANCE, null);
+        Thread.sleep(5);
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(5);
+        stockMovementRepository.appendMovements(
+                StockAmountMap.of(id, 2_500L), -1, StockMovementCause.RECIPE_SALE, 7L);
+
+        assertTrue(stockMovementRepository.takeSnapshots(cutoff) >= 1);
+
+        assertEquals(10_000L, stockMovementRepository.findLevelAt(id, cutoff));
+        assertEquals(7_500L, stockMovementRepository.findLevelAt(id, LocalDateTime.now()));
+        assertEquals(0L, stockMovementRepository.findLevelAt(id, cutoff.minusHours(1)));
+
+        List<StockMovement> history = stockMovementRepository.findByIngredientIdOrderByIdDesc(
+                id, PageRequest.of(0, 10));
+        assertEquals(2, history.size());
+        assertEquals(-2_500L, history.get(0).getDelta());
+        assertEquals(StockMovementCause.RECIPE_SALE, history.get(0).getCauseType());
+    }
+}
@@ -0,0 +1,100 @@
+package com.stockmeister.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "testSecretKeyForUnitTestsOnly12345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", 100);
+        jwtUtil.init();
+    }
+
+    @Test
+    @DisplayName("Token wird einmal geprueft und danach aus dem Cache geliefert")
+    void shouldServeVerifiedClaimsFromCache() {
+        String token = jwtUtil.generateToken("DemoWaiter", "WAITER");
+
+        Claims first = jwtUtil.parseToken(token);
+        assertSame(first, jwtUtil.parseToken(token));
+        assertEquals("DemoWaiter", jwtUtil.extractUsername(token));
+        assertEquals("WAITER", jwtUtil.extractRole(token));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Manipulierte und abgelaufene Token werden abgelehnt")
+    void shouldRejectTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateToken("DemoWaiter", "WAITER");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+        assertFalse(jwtUtil.validateToken(tampered));
+
+        ReflectionTestUtils.setField(jwtUtil, "expiration", -1_000L);
+        String expired = jwtUtil.generateToken("DemoWaiter", "WAITER");
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(expired));
+        assertFalse(jwtUtil.validateToken(expired));
+    }
+
+    @Test
+    @DisplayName("Token im Cache wird nach Ablauf nicht mehr geliefert")
+    void shouldNotServeCachedClaimsAfterExpiry() throws InterruptedException {
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 1_500L);
+        String token = jwtUtil.generateToken("DemoWaiter", "WAITER");
+        Claims claims = jwtUtil.parseToken(token);
+        assertSame(claims, jwtUtil.parseToken(token));
+
+        Thread.sleep(claims.getExpiration().getTime() - System.currentTimeMillis() + 100);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(token));
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Paralleler Zugriff auf den Claims-Cache liefert die geprueften Claims")
+    void shouldServeCachedClaimsConcurrently() throws Exception {
+        List<String> tokens = IntStream.range(0, 20)
+                .mapToObj(i -> jwtUtil.generateToken("User" + i, "WAITER"))
+                .toList();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                results.add(pool.submit(() -> {
+                    for (int round = 0; round < 500; round++) {
+                        int i = (round + offset) % tokens.size();
+                        assertEquals("User" + i, jwtUtil.extractUsername(tokens.get(i)));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
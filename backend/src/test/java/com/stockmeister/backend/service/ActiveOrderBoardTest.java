@@ -0,0 +1,142 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.OrderBoardEvent;
+import com.stockmeister.backend.dto.OrderBoardEvent.Type;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveOrderBoardTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private ActiveOrderBoard activeOrderBoard;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activeOrderBoard, "replaySize", 3);
+        ReflectionTestUtils.setField(activeOrderBoard, "subscriberQueue", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        activeOrderBoard.stop();
+    }
+
+    @Test
+    @DisplayName("Wiederverbindung liefert verpasste Aenderungen, sonst einen Snapshot")
+    void shouldReplayMissedEventsOrSendSnapshot() {
+        long start = activeOrderBoard.eventsSince(null).get(0).getSequence();
+
+        activeOrderBoard.orderChanged(order(1L, OrderStatus.PENDING));
+        activeOrderBoard.orderChanged(order(2L, OrderStatus.PENDING));
+        activeOrderBoard.orderChanged(order(1L, OrderStatus.IN_PROCESS));
+
+        List<OrderBoardEvent> missed = activeOrderBoard.eventsSince(start + 1);
+        assertEquals(List.of(Type.CREATED, Type.STATUS_CHANGED),
+                missed.stream().map(OrderBoardEvent::getType).toList());
+        assertEquals(start + 3, missed.get(1).getSequence());
+
+        activeOrderBoard.orderChanged(order(2L, OrderStatus.COMPLETED));
+        activeOrderBoard.orderChanged(order(2L, OrderStatus.COMPLETED));
+
+        List<OrderBoardEvent> tooOld = activeOrderBoard.eventsSince(start);
+        assertEquals(1, tooOld.size());
+        assertEquals(Type.SNAPSHOT, tooOld.get(0).getType());
+        assertEquals(start + 4, tooOld.get(0).getSequence());
+        assertEquals(List.of(1L), tooOld.get(0).getOrders().stream().map(OrderResponseDTO::getId).toList());
+
+        assertTrue(activeOrderBoard.eventsSince(start + 4).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Haengende Anzeige haelt andere nicht auf und wird getrennt, wenn ihre Warteschlange voll ist")
+    void shouldNotLetSlowDisplayHoldUpOthers() throws InterruptedException {
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(unblock);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        activeOrderBoard.subscribe(null, slow);
+        activeOrderBoard.subscribe(null, fast);
+        assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(fast.received(1).await(5, TimeUnit.SECONDS));
+
+        // The fast display gets every event while the slow one is still stuck
+        // in sending its snapshot; its third pending event overflows its queue
+        for (int id = 1; id <= 3; id++) {
+            activeOrderBoard.orderChanged(order((long) id, OrderStatus.PENDING));
+            assertTrue(fast.received(1 + id).await(5, TimeUnit.SECONDS), "event " + id);
+            assertEquals(id == 3, slow.completedWithError.getCount() == 0, "event " + id);
+        }
+        unblock.countDown();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch unblock;
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch completedWithError = new CountDownLatch(1);
+        private final AtomicInteger sent = new AtomicInteger();
+        private volatile CountDownLatch expected = new CountDownLatch(0);
+
+        private RecordingEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        private synchronized CountDownLatch received(int count) {
+            expected = new CountDownLatch(Math.max(0, count - sent.get()));
+            return expected;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sendStarted.countDown();
+            if (unblock != null) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                sent.incrementAndGet();
+                expected.countDown();
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWithError.countDown();
+        }
+    }
+
+    private static OrderResponseDTO order(Long id, OrderStatus status) {
+        return OrderResponseDTO.builder()
+                .id(id)
+                .tableNumber("K" + id)
+                .status(status)
+                .createdAt(LocalDateTime.of(2026, 5, 1, 18, 0).plusMinutes(id))
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.CatalogChangesDTO;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.RecipeRepository;
+import com.stockmeister.backend.util.ChangeSequence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSyncServiceTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @InjectMocks
+    private CatalogSyncService catalogSyncService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogSyncService, "settleDelay", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(catalogSyncService, "tombstoneRetention", Duration.ofDays(30));
+    }
+
+    @Test
+    @DisplayName("Delta liefert Aenderungen in Sequenz-Reihenfolge, Loeschungen als Tombstones")
+    void shouldReturnDeltaPageWithTombstones() {
+        long since = ChangeSequence.at(System.currentTimeMillis() - 60_000);
+
+        Ingredient tomato = ingredient(1L, "Tomate", since + 1, true);
+        Ingredient basil = ingredient(2L, "Basilikum", since + 3, false);
+        Recipe pizza = recipe(10L, "Pizza", since + 2);
+        Recipe pasta = recipe(11L, "Pasta", since + 4);
+        when(ingredientRepository.findChanged(eq(since), anyLong(), any())).thenReturn(List.of(tomato, basil));
+        when(recipeRepository.findChanged(eq(since), anyLong(), any())).thenReturn(List.of(pizza, pasta));
+        when(recipeRepository.findAllByIdWithIngredients(List.of(10L))).thenReturn(List.of(pizza));
+
+        CatalogChangesDTO changes = catalogSyncService.getChanges(since, 3, true, true);
+
+        assertFalse(changes.isFull());
+        assertTrue(changes.isHasMore());
+        assertEquals(since + 3, changes.getWatermark());
+        assertEquals(1, changes.getIngredients().size());
+        assertEquals("Tomate", changes.getIngredients().get(0).getName());
+        assertEquals(1, changes.getRecipes().size());
+        assertEquals("Pizza", changes.getRecipes().get(0).getName());
+        assertEquals(1, changes.getDeleted().size());
+        assertEquals(CatalogChangesDTO.EntityType.INGREDIENT, changes.getDeleted().get(0).getType());
+        assertEquals(2L, changes.getDeleted().get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Ohne oder mit zu altem Watermark wird ein vollstaendiger Stand geliefert")
+    void shouldReturnFullSnapshotWithoutUsableWatermark() {
+        when(ingredientRepository.findAllByIsActiveTrue())
+                .thenReturn(List.of(ingredient(1L, "Tomate", 1L, true)));
+
+        CatalogChangesDTO first = catalogSyncService.getChanges(null, 500, true, false);
+        long expired = ChangeSequence.at(System.currentTimeMillis() - Duration.ofDays(31).toMillis());
+        CatalogChangesDTO expiredResult = catalogSyncService.getChanges(expired, 500, true, false);
+
+        assertTrue(first.isFull());
+        assertTrue(expiredResult.isFull());
+        assertEquals(1, first.getIngredients().size());
+        assertTrue(first.getRecipes().isEmpty());
+        assertTrue(first.getWatermark() < ChangeSequence.next());
+        verify(ingredientRepository, never()).findChanged(anyLong(), anyLong(), any());
+        verifyNoInteractions(recipeRepository);
+    }
+
+    private static Ingredient ingredient(Long id, String name, long changeSeq, boolean active) {
+        Ingredient ingredient = Ingredient.builder()
+                .name(name)
+                .unit("kg")
+                .currentStock(BigDecimal.ONE)
+                .minimumStock(BigDecimal.ZERO)
+                .unitPrice(BigDecimal.ONE)
+                .isActive(active)
+                .build();
+        ingredient.setId(id);
+        ingredient.setChangeSeq(changeSeq);
+        if (!active) {
+            ingredient.setDeletedAt(LocalDateTime.now());
+        }
+        return ingredient;
+    }
+
+    private static Recipe recipe(Long id, String name, long changeSeq) {
+        Recipe recipe = Recipe.builder()
+                .name(name)
+                .category("Hauptspeisen")
+                .sellingPrice(new BigDecimal("9.90"))
+                .build();
+        recipe.setId(id);
+        recipe.setChangeSeq(changeSeq);
+        return recipe;
+    }
+}
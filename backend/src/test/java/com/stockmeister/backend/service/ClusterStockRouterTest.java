@@ -0,0 +1,128 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.util.StockAmountMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterStockRouterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private ClusterMembership clusterMembership;
+
+    private HttpServer peer;
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    private volatile int reserveStatus = 200;
+    private volatile String reserveBody = "{\"accepted\":true,\"shortages\":[]}";
+
+    private ClusterStockRouter router;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext("/internal/stock/reserve", exchange -> respond(exchange, reserveStatus, reserveBody));
+        peer.createContext("/internal/stock/settle", exchange -> respond(exchange, 200, ""));
+        peer.start();
+
+        when(clusterMembership.baseUrlOf("node-b"))
+                .thenReturn("http://localhost:" + peer.getAddress().getPort());
+        when(clusterMembership.getToken()).thenReturn("secret");
+        router = new ClusterStockRouter(clusterMembership, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        peer.stop(0);
+    }
+
+    @Test
+    @DisplayName("Reservierung geht mit Token an den Besitzer und wird mit derselben Transaktions-ID abgerechnet")
+    void shouldReserveAndSettleOnOwner() throws IOException {
+        String txId = router.reserve("node-b", StockAmountMap.of(9L, 250L), true);
+        router.settle("node-b", txId, true);
+
+        assertEquals(2, calls.size());
+        Call reserve = calls.get(0);
+        assertEquals("/internal/stock/reserve", reserve.path);
+        assertEquals("secret", reserve.token);
+        JsonNode reserveRequest = objectMapper.readTree(reserve.body);
+        assertEquals(txId, reserveRequest.get("txId").asText());
+        assertEquals("HOLD", reserveRequest.get("operation").asText());
+        assertEquals(250L, reserveRequest.get("amounts").get("9").asLong());
+
+        Call settle = calls.get(1);
+        assertEquals("/internal/stock/settle", settle.path);
+        JsonNode settleRequest = objectMapper.readTree(settle.body);
+        assertEquals(txId, settleRequest.get("txId").asText());
+        assertEquals("COMMIT", settleRequest.get("operation").asText());
+    }
+
+    @Test
+    @DisplayName("Abgelehnte Reservierung des Besitzers meldet dessen Engpaesse")
+    void shouldReportShortagesOfOwner() {
+        reserveStatus = 409;
+        reserveBody = "{\"accepted\":false,\"shortages\":[{\"ingredientId\":9,\"ingredientName\":\"Basil\","
+                + "\"unit\":\"kg\",\"required\":0.250,\"available\":0.100}]}";
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> router.reserve("node-b", StockAmountMap.of(9L, 250L), false));
+
+        assertEquals(1, exception.getShortages().size());
+        assertEquals("Basil", exception.getShortages().get(0).getIngredientName());
+        assertEquals("DEDUCT", calls.get(0).operation(objectMapper));
+    }
+
+    @Test
+    @DisplayName("Nicht erreichbarer Besitzer bricht die Reservierung ab, Abrechnung wirft nicht")
+    void shouldFailReservationWhenOwnerIsDown() {
+        peer.stop(0);
+
+        assertThrows(RuntimeException.class, () -> router.reserve("node-b", StockAmountMap.of(9L, 250L), false));
+        assertDoesNotThrow(() -> router.settle("node-b", "tx-1", false));
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        calls.add(new Call(exchange.getRequestURI().getPath(),
+                exchange.getRequestHeaders().getFirst(ClusterStockRouter.TOKEN_HEADER),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Call(String path, String token, String body) {
+
+        String operation(ObjectMapper objectMapper) {
+            try {
+                return objectMapper.readTree(body).get("operation").asText();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 100);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeout", Duration.ofSeconds(5));
+
+        lenient().when(idempotencyRecordRepository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Gleichzeitige Wiederholungen warten auf die erste Ausfuehrung")
+    void shouldExecuteConcurrentDuplicatesOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<OrderResponseDTO> first = executor.submit(() ->
+                    idempotencyService.execute("order-place", "key-1", "table-7", OrderResponseDTO.class, () -> {
+                        executions.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return OrderResponseDTO.builder().id(42L).tableNumber("7").build();
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<OrderResponseDTO> second = executor.submit(() ->
+                    idempotencyService.execute("order-place", "key-1", "table-7", OrderResponseDTO.class, () -> {
+                        executions.incrementAndGet();
+                        return OrderResponseDTO.builder().id(43L).build();
+                    }));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(42L, first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(42L, second.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        OrderResponseDTO repeat = idempotencyService.execute("order-place", "key-1", "table-7",
+                OrderResponseDTO.class, () -> OrderResponseDTO.builder().id(44L).build());
+
+        assertEquals(42L, repeat.getId());
+        assertEquals(1, executions.get());
+        assertEquals(2.0, meterRegistry.counter("idempotency.duplicates.avoided").count());
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Schluessel fuer eine andere Anfrage wird abgelehnt")
+    void shouldRejectKeyReuseForDifferentRequest() {
+        idempotencyService.execute("order-pay", "key-2", "order-1",
+                OrderResponseDTO.class, () -> OrderResponseDTO.builder().id(1L).build());
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                idempotencyService.execute("order-pay", "key-2", "order-2",
+                        OrderResponseDTO.class, () -> OrderResponseDTO.builder().id(2L).build()));
+
+        assertTrue(exception.getMessage().contains("already exists"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.stockmeister.backend.service;
 
 import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovementCause;
 import com.stockmeister.backend.repository.IngredientRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -25,6 +27,18 @@ class IngredientServiceTest {
     @Mock
     private IngredientRepository ingredientRepository;
 
+    @Mock
+    private StockEngine stockEngine;
+
+    @Mock
+    private StockShardService stockShardService;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private ObjectProvider<StockJournalService> stockJournalService;
+
     @InjectMocks
     private IngredientService ingredientService;
 
@@ -100,12 +114,16 @@ class IngredientServiceTest {
 
         when(ingredientRepository.findById(1L)).thenReturn(Optional.of(testIngredient));
         when(ingredientRepository.save(any(Ingredient.class))).thenReturn(testIngredient);
+        when(ingredientRepository.lockCurrentStock(1L)).thenReturn(new BigDecimal("20.000"));
 
         BigDecimal newStock = new BigDecimal("50.000");
         Ingredient result = ingredientService.updateStock(1L, newStock);
 
         assertEquals(newStock, result.getCurrentStock());
         verify(ingredientRepository).save(any(Ingredient.class));
+        verify(stockEngine).overwrite(testIngredient);
+        verify(stockLedgerService).recordOverwrite(1L, new BigDecimal("20.000"), newStock,
+                StockMovementCause.ADJUSTMENT);
     }
 
     @Test
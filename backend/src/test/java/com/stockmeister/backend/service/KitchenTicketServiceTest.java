@@ -0,0 +1,107 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.KitchenTicketDTO;
+import com.stockmeister.backend.dto.OrderItemResponseDTO;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.dto.StationTicketsDTO;
+import com.stockmeister.backend.model.KitchenStation;
+import com.stockmeister.backend.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class KitchenTicketServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private KitchenTicketService kitchenTicketService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        kitchenTicketService = new KitchenTicketService(orderRepository, meterRegistry);
+        ReflectionTestUtils.setField(kitchenTicketService, "defaultStation", KitchenStation.GRILL);
+        ReflectionTestUtils.setField(kitchenTicketService, "recallSize", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        kitchenTicketService.stop();
+    }
+
+    @Test
+    @DisplayName("Positionen werden nach Station aufgeteilt, Getraenke ohne Station bleiben draussen")
+    void shouldSplitOrderIntoStationTickets() throws Exception {
+        long grillVersion = kitchenTicketService.getTickets(KitchenStation.GRILL).getVersion();
+        CompletableFuture<StationTicketsDTO> grillChange =
+                kitchenTicketService.awaitChange(KitchenStation.GRILL, grillVersion);
+        assertFalse(grillChange.isDone());
+
+        kitchenTicketService.orderPlaced(OrderResponseDTO.builder()
+                .id(7L)
+                .tableNumber("T7")
+                .items(List.of(
+                        item("Schnitzel", null, true),
+                        item("Pommes", KitchenStation.FRYER, true),
+                        item("Cola", null, false),
+                        item("Spritzer", KitchenStation.BAR, false)))
+                .build());
+
+        StationTicketsDTO grill = grillChange.get(1, TimeUnit.SECONDS);
+        assertEquals(1, grill.getTickets().size());
+        assertEquals("Schnitzel", grill.getTickets().get(0).getItems().get(0).getRecipeName());
+        assertEquals(1, kitchenTicketService.getTickets(KitchenStation.FRYER).getTickets().size());
+        assertEquals(1, kitchenTicketService.getTickets(KitchenStation.BAR).getTickets().size());
+        assertTrue(kitchenTicketService.getTickets(KitchenStation.COLD).getTickets().isEmpty());
+        assertEquals(1.0, meterRegistry.get("kitchen.station.queue.depth").tag("station", "fryer").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Erledigte Tickets verschwinden und koennen zurueckgeholt werden")
+    void shouldBumpAndRecallTicket() {
+        kitchenTicketService.orderPlaced(OrderResponseDTO.builder()
+                .id(8L)
+                .tableNumber("T8")
+                .items(List.of(item("Salat", KitchenStation.COLD, true)))
+                .build());
+        Long ticketId = kitchenTicketService.getTickets(KitchenStation.COLD).getTickets().get(0).getId();
+
+        KitchenTicketDTO bumped = kitchenTicketService.bump(KitchenStation.COLD, ticketId);
+        assertNotNull(bumped.getBumpedAt());
+        assertTrue(kitchenTicketService.getTickets(KitchenStation.COLD).getTickets().isEmpty());
+        assertEquals(1, meterRegistry.get("kitchen.station.ticket.time").tag("station", "cold").timer().count());
+        assertThrows(RuntimeException.class, () -> kitchenTicketService.bump(KitchenStation.COLD, ticketId));
+
+        KitchenTicketDTO recalled = kitchenTicketService.recall(KitchenStation.COLD, ticketId);
+        assertNull(recalled.getBumpedAt());
+        assertEquals(List.of(ticketId), kitchenTicketService.getTickets(KitchenStation.COLD).getTickets().stream()
+                .map(KitchenTicketDTO::getId).toList());
+
+        kitchenTicketService.orderCancelled(8L);
+        assertTrue(kitchenTicketService.getTickets(KitchenStation.COLD).getTickets().isEmpty());
+    }
+
+    private static OrderItemResponseDTO item(String name, KitchenStation station, boolean sendToKitchen) {
+        return OrderItemResponseDTO.builder()
+                .recipeName(name)
+                .station(station)
+                .sendToKitchen(sendToKitchen)
+                .quantity(1)
+                .build();
+    }
+}
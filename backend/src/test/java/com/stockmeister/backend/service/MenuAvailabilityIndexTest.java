@@ -0,0 +1,123 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.ProductAvailabilityDTO;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.repository.RecipeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MenuAvailabilityIndexTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private StockEngine stockEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private MenuAvailabilityIndex menuAvailabilityIndex;
+
+    private final Map<Long, Long> stock = new HashMap<>();
+    private LongConsumer stockChanged;
+
+    @BeforeEach
+    void setUp() {
+        // Flushes are triggered by the test, not by the debounce timer
+        ReflectionTestUtils.setField(menuAvailabilityIndex, "debounceMs", 60_000L);
+        when(stockEngine.getAvailableMillis(anyLong())).thenAnswer(call -> stock.get(call.<Long>getArgument(0)));
+
+        menuAvailabilityIndex.register();
+        ArgumentCaptor<LongConsumer> listener = ArgumentCaptor.forClass(LongConsumer.class);
+        verify(stockEngine).addChangeListener(listener.capture());
+        stockChanged = listener.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        menuAvailabilityIndex.stop();
+    }
+
+    @Test
+    @DisplayName("Nur Rezepte mit geaenderter Zutat werden neu berechnet, Ausverkauf wird gemeldet")
+    void shouldRecomputeAffectedRecipesAndReportTransitions() throws Exception {
+        stock.put(1L, 2_000L);
+        stock.put(2L, 1_000L);
+        stock.put(3L, 4_500L);
+        when(recipeRepository.findAllWithIngredients()).thenReturn(List.of(
+                recipe(10L, "Burger", line(1L, "1"), line(2L, "0.2")),
+                recipe(20L, "Salat", line(3L, "1.5"))));
+
+        menuAvailabilityIndex.load();
+        assertEquals(List.of(2, 3), menuAvailabilityIndex.getAll().stream()
+                .map(ProductAvailabilityDTO::getMaxQuantity).toList());
+
+        SseEmitter terminal = mock(SseEmitter.class);
+        @SuppressWarnings("unchecked")
+        List<SseEmitter> emitters = (List<SseEmitter>) ReflectionTestUtils.getField(menuAvailabilityIndex, "emitters");
+        emitters.add(terminal);
+
+        stock.put(1L, 0L);
+        stockChanged.accept(1L);
+        menuAvailabilityIndex.flush();
+
+        assertEquals(0, menuAvailabilityIndex.getMaxQuantity(10L));
+        assertEquals(3, menuAvailabilityIndex.getMaxQuantity(20L));
+        verify(stockEngine, times(1)).getAvailableMillis(3L);
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> event = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(terminal).send(event.capture());
+        String sent = event.getValue().build().stream()
+                .map(part -> part.getData().toString())
+                .collect(Collectors.joining());
+        assertTrue(sent.contains("event:" + MenuAvailabilityIndex.OUT_OF_STOCK));
+
+        stock.put(1L, 1_000L);
+        stockChanged.accept(1L);
+        menuAvailabilityIndex.flush();
+        assertEquals(1, menuAvailabilityIndex.getMaxQuantity(10L));
+        verify(terminal, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(eventPublisher, times(2)).publishEvent(any(MenuChangedEvent.class));
+    }
+
+    private static Recipe recipe(Long id, String name, RecipeIngredient... lines) {
+        Recipe recipe = Recipe.builder().name(name).sellingPrice(BigDecimal.TEN).build();
+        recipe.setId(id);
+        for (RecipeIngredient line : lines) {
+            recipe.addIngredient(line);
+        }
+        return recipe;
+    }
+
+    private static RecipeIngredient line(Long ingredientId, String amount) {
+        Ingredient ingredient = Ingredient.builder().name("Zutat " + ingredientId).unit("kg").build();
+        ingredient.setId(ingredientId);
+        return RecipeIngredient.builder().ingredient(ingredient).amount(new BigDecimal(amount)).build();
+    }
+}
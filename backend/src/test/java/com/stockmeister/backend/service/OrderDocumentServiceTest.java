@@ -0,0 +1,74 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stockmeister.backend.dto.OrderResponseDTO;
+import com.stockmeister.backend.model.OrderDocument;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.repository.OrderDocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderDocumentServiceTest {
+
+    @Mock
+    private OrderDocumentRepository orderDocumentRepository;
+
+    private OrderDocumentService orderDocumentService;
+
+    @BeforeEach
+    void setUp() {
+        orderDocumentService = new OrderDocumentService(orderDocumentRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    @DisplayName("Abgeschlossene Bestellung wird als Dokument mit stabilem ETag gespeichert")
+    void shouldStoreDocumentOfCompletedOrder() {
+        OrderResponseDTO order = order(OrderStatus.COMPLETED);
+
+        orderDocumentService.store(order);
+        orderDocumentService.store(order);
+
+        ArgumentCaptor<OrderDocument> saved = ArgumentCaptor.forClass(OrderDocument.class);
+        verify(orderDocumentRepository, times(2)).save(saved.capture());
+        OrderDocument first = saved.getAllValues().get(0);
+        OrderDocument second = saved.getAllValues().get(1);
+
+        assertEquals(42L, first.getOrderId());
+        assertTrue(first.getEtag().matches("\"[0-9a-f]{32}\""));
+        assertEquals(first.getEtag(), second.getEtag());
+        assertEquals(order, orderDocumentService.read(first));
+    }
+
+    @Test
+    @DisplayName("Aktive Bestellungen bekommen kein Dokument")
+    void shouldIgnoreActiveOrders() {
+        orderDocumentService.store(order(OrderStatus.READY));
+
+        verify(orderDocumentRepository, never()).save(any());
+    }
+
+    private static OrderResponseDTO order(OrderStatus status) {
+        return OrderResponseDTO.builder()
+                .id(42L)
+                .tableNumber("T4")
+                .status(status)
+                .totalAmount(new BigDecimal("21.00"))
+                .createdAt(LocalDateTime.of(2026, 3, 1, 19, 30))
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExportWriterTest {
+
+    private static final long MILLION = 1_000_000;
+    private static final int SEED_CHUNK = 100_000;
+
+    @Test
+    @DisplayName("NDJSON - eine Zeile pro Bestellung mit verschachtelten Positionen")
+    void shouldWriteOneJsonLinePerOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportWriter writer = OrderExportWriter.create(OrderExportService.Format.NDJSON, out, new JsonFactory());
+
+        writer.write(row(1, 10L, "Pizza"));
+        writer.write(row(1, 11L, "Cola"));
+        writer.write(row(2, null, null));
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[0].contains("\"items\":[{\"id\":10,\"recipeName\":\"Pizza\""));
+        assertTrue(lines[1].endsWith("\"items\":[]}"));
+        assertEquals(2, writer.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("CSV - Felder mit Komma und Anfuehrungszeichen werden maskiert")
+    void shouldQuoteCsvFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportWriter writer = OrderExportWriter.create(OrderExportService.Format.CSV, out, new JsonFactory());
+
+        OrderExportRow row = row(7, 70L, "Pasta, \"scharf\"");
+        writer.write(row);
+        writer.finish();
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith("7,"));
+        assertTrue(lines.get(1).contains(",70,\"Pasta, \"\"scharf\"\"\",2,4.50,"));
+    }
+
+    @Test
+    @DisplayName("Eine Million Bestellungen aus der Datenbank in einer JVM mit 32 MB Heap")
+    void shouldExportMillionOrdersWithSmallHeap(@TempDir Path databaseDir) throws Exception {
+        String database = databaseDir.resolve("export").toAbsolutePath().toString();
+        seed(new JdbcTemplate(MillionOrders.dataSource(database)));
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Xmx32m",
+                "-cp", System.getProperty("java.class.path"),
+                MillionOrders.class.getName(),
+                database)
+                .redirectErrorStream(true)
+                .start();
+
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(10, TimeUnit.MINUTES), "export did not finish");
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("orders=" + MILLION), output);
+    }
+
+    // Inserted by the database itself, in chunks
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, created_at TIMESTAMP, " +
+                "table_number VARCHAR(20), customer_name VARCHAR(100), status VARCHAR(20), " +
+                "payment_method VARCHAR(20), waiter_id BIGINT, subtotal NUMERIC(10, 2), " +
+                "tax_amount NUMERIC(10, 2), tip NUMERIC(10, 2), total_amount NUMERIC(10, 2))");
+        jdbcTemplate.execute("CREATE TABLE order_items (id BIGINT PRIMARY KEY, order_id BIGINT, " +
+                "recipe_name VARCHAR(100), quantity INT, unit_price NUMERIC(10, 2), item_notes VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_created_at ON orders (created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_order_items_order_id ON order_items (order_id, id)");
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'DemoWaiter')");
+
+        for (long first = 1; first <= MILLION; first += SEED_CHUNK) {
+            long last = Math.min(first + SEED_CHUNK - 1, MILLION);
+            jdbcTemplate.update("INSERT INTO orders SELECT X, " +
+                    "DATEADD('SECOND', X, TIMESTAMP '2026-01-01 12:00:00'), 'T' || MOD(X, 40), 'Guest', " +
+                    "'COMPLETED', 'CASH', 1, 9.00, 0.45, 0, 9.45 FROM SYSTEM_RANGE(?, ?)", first, last);
+            jdbcTemplate.update("INSERT INTO order_items SELECT X, X / 3, 'Recipe ' || MOD(X, 3), 2, 4.50, " +
+                    "NULL FROM SYSTEM_RANGE(?, ?)", first * 3, last * 3 + 2);
+        }
+    }
+
+    private static OrderExportRow row(long orderId, Long itemId, String recipeName) {
+        OrderExportRow row = new OrderExportRow();
+        fill(row, orderId, itemId, recipeName);
+        return row;
+    }
+
+    private static void fill(OrderExportRow row, long orderId, Long itemId, String recipeName) {
+        row.orderId = orderId;
+        row.createdAt = LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(orderId);
+        row.tableNumber = "T" + (orderId % 40);
+        row.customerName = "Guest";
+        row.status = "COMPLETED";
+        row.paymentMethod = "CASH";
+        row.waiterName = "DemoWaiter";
+        row.subtotal = new BigDecimal("9.00");
+        row.taxAmount = new BigDecimal("0.45");
+        row.tip = BigDecimal.ZERO;
+        row.totalAmount = new BigDecimal("9.45");
+        row.itemId = itemId;
+        row.recipeName = recipeName;
+        row.quantity = itemId != null ? 2 : null;
+        row.unitPrice = itemId != null ? new BigDecimal("4.50") : null;
+        row.itemNotes = null;
+    }
+
+    /**
+     * Run in a separate JVM with a small heap: exports the million orders
+     * seeded into the file-backed H2 database through
+     * {@link OrderExportService}, as gzipped NDJSON into a stream that
+     * discards the bytes. Embedded H2 shares that heap with the export.
+     */
+    public static class MillionOrders {
+
+        public static void main(String[] args) throws IOException {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource(args[0]));
+            OrderExportService exportService = new OrderExportService(jdbcTemplate, new ObjectMapper());
+            OutputStream discard = OutputStream.nullOutputStream();
+            GZIPOutputStream compressed = new GZIPOutputStream(discard, 64 * 1024);
+            long orders = exportService.export(null, null, OrderExportService.Format.NDJSON, compressed);
+            compressed.finish();
+
+            System.out.println("orders=" + orders);
+        }
+
+        static SimpleDriverDataSource dataSource(String database) {
+            return new SimpleDriverDataSource(new org.h2.Driver(),
+                    "jdbc:h2:file:" + database + ";MODE=PostgreSQL;NON_KEYWORDS=USER", "sa", "");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.BatchOrderResultDTO;
+import com.stockmeister.backend.dto.BatchOrderResultDTO.Outcome;
+import com.stockmeister.backend.dto.OrderRequestDTO;
+import com.stockmeister.backend.dto.OrderTicketDTO;
+import com.stockmeister.backend.exception.IntakeQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderIntakeService, "capacity", 2);
+        ReflectionTestUtils.setField(orderIntakeService, "maxBatch", 10);
+        ReflectionTestUtils.setField(orderIntakeService, "ticketTtl", Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderIntakeService.stop();
+    }
+
+    @Test
+    @DisplayName("Wartende Bestellungen werden gemeinsam in einer Transaktion angelegt")
+    void shouldPlaceQueuedOrdersTogether() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.placeOrders(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            List<OrderRequestDTO> requests = invocation.getArgument(0);
+            return requests.stream()
+                    .map(request -> BatchOrderResultDTO.builder()
+                            .clientOrderId(request.getClientOrderId())
+                            .outcome(Outcome.CREATED)
+                            .orderId((long) request.getTableNumber().hashCode())
+                            .build())
+                    .toList();
+        });
+        orderIntakeService.start();
+
+        OrderTicketDTO first = orderIntakeService.submit(order("1"));
+        Thread.sleep(200);
+        OrderTicketDTO second = orderIntakeService.submit(order("2"));
+        OrderTicketDTO third = orderIntakeService.submit(order("3"));
+        assertEquals(OrderTicketDTO.Status.QUEUED, third.getStatus());
+
+        assertThrows(IntakeQueueFullException.class, () -> orderIntakeService.submit(order("4")));
+
+        release.countDown();
+        OrderTicketDTO done = orderIntakeService.awaitTicket(third.getTicketId()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(OrderTicketDTO.Status.CREATED, done.getStatus());
+        assertEquals((long) "3".hashCode(), done.getOrderId());
+        assertTrue(orderIntakeService.getTicket(first.getTicketId()).isDone());
+        assertTrue(orderIntakeService.getTicket(second.getTicketId()).isDone());
+        verify(orderService, times(2)).placeOrders(anyList());
+    }
+
+    private static OrderRequestDTO order(String table) {
+        return OrderRequestDTO.builder().tableNumber(table).items(List.of()).build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.dto.BatchOrderResultDTO;
+import com.stockmeister.backend.dto.BatchOrderResultDTO.Outcome;
+import com.stockmeister.backend.dto.OrderItemRequestDTO;
+import com.stockmeister.backend.dto.OrderRequestDTO;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.model.StockReservation;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.RecipeRepository;
+import com.stockmeister.backend.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceBatchTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long flourId;
+    private long pizzaId;
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+        Ingredient flour = ingredientRepository.saveAndFlush(Ingredient.builder()
+                .name("BatchFlour-" + prefix)
+                .unit("kg")
+                .currentStock(new BigDecimal("1.500"))
+                .minimumStock(BigDecimal.ZERO)
+                .unitPrice(new BigDecimal("1.00"))
+                .isActive(true)
+                .build());
+        flourId = flour.getId();
+
+        Recipe pizza = Recipe.builder()
+                .name("BatchPizza-" + prefix)
+                .sellingPrice(new BigDecimal("9.50"))
+                .build();
+        pizza.addIngredient(RecipeIngredient.builder()
+                .ingredient(flour)
+                .amount(new BigDecimal("0.400"))
+                .build());
+        pizzaId = recipeRepository.saveAndFlush(pizza).getId();
+    }
+
+    @Test
+    @DisplayName("Sammelbestellung - Ergebnisse je Auftrag, Reihenfolge nach Kundenzeit, IDs passen zu Auftraegen und Reservierungen")
+    void shouldPlaceBatchWithOutcomePerOrder() {
+        LocalDateTime t0 = LocalDateTime.of(2026, 3, 1, 12, 0);
+        long existingId = place(List.of(order("existing", t0.minusMinutes(5), pizzaId))).get(0).getOrderId();
+
+        // 1.500 kg flour, 0.400 per pizza: the existing order and two more fit
+        List<OrderRequestDTO> requests = new ArrayList<>();
+        requests.add(order("late", t0.plusSeconds(2), pizzaId));
+        requests.add(order("early", t0, pizzaId));
+        requests.add(order("early", t0.plusSeconds(1), pizzaId));
+        requests.add(order(null, t0, pizzaId));
+        requests.add(order("unknown-recipe", t0, 999_999L));
+        requests.add(order("mid", t0.plusSeconds(1), pizzaId));
+        requests.add(order("existing", t0, pizzaId));
+
+        List<BatchOrderResultDTO> results = place(requests);
+
+        assertEquals(List.of(Outcome.SHORTAGE, Outcome.CREATED, Outcome.DUPLICATE, Outcome.INVALID,
+                        Outcome.INVALID, Outcome.CREATED, Outcome.DUPLICATE),
+                results.stream().map(BatchOrderResultDTO::getOutcome).toList());
+        assertEquals(1, results.get(0).getShortages().size());
+        assertNull(results.get(0).getOrderId());
+
+        long earlyId = results.get(1).getOrderId();
+        long midId = results.get(5).getOrderId();
+        assertNotEquals(earlyId, midId);
+        assertEquals(earlyId, results.get(2).getOrderId());
+        assertEquals(existingId, results.get(6).getOrderId());
+
+        for (Map.Entry<String, Long> created : Map.of("early", earlyId, "mid", midId).entrySet()) {
+            long orderId = created.getValue();
+            assertEquals(prefix + created.getKey(), jdbcTemplate.queryForObject(
+                    "SELECT client_order_id FROM orders WHERE id = ?", String.class, orderId));
+            assertEquals(0, new BigDecimal("9.50").compareTo(jdbcTemplate.queryForObject(
+                    "SELECT unit_price FROM order_items WHERE order_id = ? AND recipe_id = ?",
+                    BigDecimal.class, orderId, pizzaId)));
+
+            List<StockReservation> reservations = stockReservationRepository.findByOrderId(orderId);
+            assertEquals(1, reservations.size());
+            assertEquals(flourId, reservations.get(0).getIngredientId());
+            assertEquals(400L, reservations.get(0).getAmount());
+        }
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE client_order_id = ?", Integer.class, prefix + "late"));
+
+        assertEquals(300L, stockEngine.getAvailableMillis(flourId));
+    }
+
+    @Test
+    @DisplayName("Rollback der Sammelbestellung gibt die gehaltenen Mengen wieder frei")
+    void shouldReleaseHoldsWhenBatchRollsBack() {
+        assertEquals(1_500L, stockEngine.getAvailableMillis(flourId));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            List<BatchOrderResultDTO> results = orderService.placeOrders(List.of(
+                    order("first", null, pizzaId),
+                    order("second", null, pizzaId)));
+            assertTrue(results.stream().allMatch(result -> result.getOutcome() == Outcome.CREATED));
+            assertEquals(700L, stockEngine.getAvailableMillis(flourId));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1_500L, stockEngine.getAvailableMillis(flourId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE client_order_id LIKE ?", Integer.class, prefix + "%"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservations WHERE ingredient_id = ?", Integer.class, flourId));
+    }
+
+    private List<BatchOrderResultDTO> place(List<OrderRequestDTO> requests) {
+        return new TransactionTemplate(transactionManager).execute(status -> orderService.placeOrders(requests));
+    }
+
+    private OrderRequestDTO order(String clientOrderId, LocalDateTime clientCreatedAt, long recipeId) {
+        return OrderRequestDTO.builder()
+                .tableNumber("7")
+                .items(List.of(OrderItemRequestDTO.builder().recipeId(recipeId).quantity(1).build()))
+                .clientOrderId(clientOrderId != null ? prefix + clientOrderId : null)
+                .clientCreatedAt(clientCreatedAt)
+                .build();
+    }
+}
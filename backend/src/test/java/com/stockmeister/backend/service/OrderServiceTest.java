@@ -0,0 +1,123 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Order;
+import com.stockmeister.backend.model.OrderStatus;
+import com.stockmeister.backend.model.PaymentMethod;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.repository.OrderRepository;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private StockEngine stockEngine;
+
+    @Mock
+    private StockUpdateService stockUpdateService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private OrderDocumentService orderDocumentService;
+
+    @Mock
+    private ActiveOrderBoard activeOrderBoard;
+
+    @Mock
+    private KitchenTicketService kitchenTicketService;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = Order.builder()
+                .tableNumber("5")
+                .status(OrderStatus.PENDING)
+                .stockConsumption(StockAmountMap.of(7L, 2_000L).toBytes())
+                .build();
+        order.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Abgelaufene (stornierte) Bestellung kann nicht bezahlt werden")
+    void shouldRejectPaymentOfCancelledOrder() {
+        order.setStatus(OrderStatus.CANCELLED);
+        lockable(order);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderService.completePayment(1L, PaymentMethod.CASH, BigDecimal.TEN, null));
+
+        assertTrue(exception.getMessage().contains("cancelled"));
+        verify(stockReservationService, never()).consumeForOrder(anyLong());
+        verify(orderRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Stornierte Bestellung kann nicht wieder geoeffnet oder abgeschlossen werden")
+    void shouldRejectLeavingCancelledStatus() {
+        order.setStatus(OrderStatus.CANCELLED);
+        lockable(order);
+
+        assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(1L, OrderStatus.COMPLETED));
+        assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(1L, OrderStatus.PENDING));
+        verify(stockReservationService, never()).consumeForOrder(anyLong());
+    }
+
+    @Test
+    @DisplayName("Statuswechsel auf CANCELLED gibt Bestand ohne Reservierung zurueck wie cancelOrder")
+    void shouldRestoreStockWhenCancelledThroughStatusUpdate() {
+        lockable(order);
+        when(orderRepository.saveAndFlush(order)).thenReturn(order);
+        when(stockReservationService.releaseForOrder(1L)).thenReturn(false);
+
+        orderService.updateOrderStatus(1L, OrderStatus.CANCELLED);
+
+        verify(stockUpdateService).restore(argThat(amounts -> amounts.size() == 1 && amounts.get(7L) == 2_000L),
+                eq(StockMovementCause.ORDER_CANCELLED), eq(1L));
+        verify(stockEngine).restore(argThat(amounts -> amounts.get(7L) == 2_000L));
+        verify(kitchenTicketService).orderCancelled(1L);
+    }
+
+    @Test
+    @DisplayName("Reservierter Bestand wird beim Storno freigegeben, nicht zusaetzlich zurueckgebucht")
+    void shouldReleaseReservationWithoutRestoring() {
+        lockable(order);
+        when(orderRepository.saveAndFlush(order)).thenReturn(order);
+        when(stockReservationService.releaseForOrder(1L)).thenReturn(true);
+
+        orderService.cancelOrder(1L);
+
+        verifyNoInteractions(stockUpdateService, stockEngine);
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+    }
+
+    private void lockable(Order order) {
+        when(orderRepository.findByIdForUpdate(order.getId())).thenReturn(Optional.of(order));
+        when(orderRepository.findByIdWithItems(order.getId())).thenReturn(Optional.of(order));
+    }
+}
@@ -0,0 +1,126 @@
+package com.stockmeister.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmeister.backend.dto.ProductAvailabilityDTO;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RestaurantSettings;
+import com.stockmeister.backend.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PosBootstrapServiceTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private RestaurantSettingsService restaurantSettingsService;
+
+    @Mock
+    private MenuAvailabilityIndex menuAvailabilityIndex;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private PosBootstrapService posBootstrapService;
+
+    @BeforeEach
+    void setUp() {
+        posBootstrapService = new PosBootstrapService(
+                recipeRepository, restaurantSettingsService, menuAvailabilityIndex, objectMapper);
+
+        when(recipeRepository.findAllByIsActiveTrue()).thenReturn(List.of(
+                recipe(2L, "Schnitzel", "Hauptspeisen"),
+                recipe(1L, "Apfelstrudel", "Desserts")));
+        when(restaurantSettingsService.getSettings()).thenReturn(RestaurantSettings.builder()
+                .name("Testlokal")
+                .build());
+        when(menuAvailabilityIndex.getAll()).thenReturn(List.of(
+                ProductAvailabilityDTO.builder().recipeId(1L).maxQuantity(4).build(),
+                ProductAvailabilityDTO.builder().recipeId(2L).maxQuantity(0).build()));
+        when(recipeRepository.findMaxChangeSeq()).thenReturn(100L);
+        when(restaurantSettingsService.getChangeSeq()).thenReturn(50L);
+    }
+
+    @Test
+    @DisplayName("Bundle wird nur nach einer Menue-Aenderung neu erstellt")
+    void shouldRenderOncePerVersion() throws Exception {
+        PosBootstrapService.Bundle first = posBootstrapService.getBundle();
+        assertSame(first, posBootstrapService.getBundle());
+        verify(recipeRepository, times(1)).findAllByIsActiveTrue();
+
+        JsonNode json = objectMapper.readTree(first.getJson());
+        assertEquals("Testlokal", json.path("settings").path("name").asText());
+        assertEquals("[\"Desserts\",\"Hauptspeisen\"]", json.path("categories").toString());
+        assertEquals("Apfelstrudel", json.path("products").get(0).path("name").asText());
+        assertEquals("[2]", json.path("unavailableProductIds").toString());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.getGzipped()))) {
+            assertArrayEquals(first.getJson(), gzip.readAllBytes());
+        }
+
+        when(menuAvailabilityIndex.getAll()).thenReturn(List.of(
+                ProductAvailabilityDTO.builder().recipeId(1L).maxQuantity(0).build(),
+                ProductAvailabilityDTO.builder().recipeId(2L).maxQuantity(0).build()));
+        posBootstrapService.menuChanged(new MenuChangedEvent("test"));
+
+        PosBootstrapService.Bundle second = posBootstrapService.getBundle();
+        assertNotSame(first, second);
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertEquals(100L, second.getVersion());
+        verify(recipeRepository, times(2)).findAllByIsActiveTrue();
+    }
+
+    @Test
+    @DisplayName("Aenderung auf einem anderen Knoten wird ueber die Aenderungssequenz erkannt")
+    void shouldRenderAgainWhenSharedVersionChanges() {
+        PosBootstrapService.Bundle first = posBootstrapService.getBundle();
+
+        // No event on this node, only the settings row has a newer sequence
+        when(restaurantSettingsService.getChangeSeq()).thenReturn(120L);
+
+        PosBootstrapService.Bundle second = posBootstrapService.getBundle();
+        assertNotSame(first, second);
+        assertEquals(120L, second.getVersion());
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertSame(second, posBootstrapService.getBundle());
+    }
+
+    @Test
+    @DisplayName("Gleiche Menue-Daten ergeben auf jedem Knoten das gleiche ETag")
+    void shouldHandOutSameEtagOnEveryNode() {
+        PosBootstrapService otherNode = new PosBootstrapService(
+                recipeRepository, restaurantSettingsService, menuAvailabilityIndex, objectMapper);
+        // The other node has seen more local events, which must not matter
+        otherNode.menuChanged(new MenuChangedEvent("availability changed"));
+        otherNode.menuChanged(new MenuChangedEvent("availability changed"));
+
+        PosBootstrapService.Bundle bundle = posBootstrapService.getBundle();
+        PosBootstrapService.Bundle other = otherNode.getBundle();
+
+        assertEquals(bundle.getEtag(), other.getEtag());
+        assertEquals(bundle.getGzipEtag(), other.getGzipEtag());
+        assertNotEquals(bundle.getEtag(), bundle.getGzipEtag());
+    }
+
+    private static Recipe recipe(Long id, String name, String category) {
+        Recipe recipe = Recipe.builder()
+                .name(name)
+                .category(category)
+                .sellingPrice(new BigDecimal("9.90"))
+                .build();
+        recipe.setId(id);
+        return recipe;
+    }
+}
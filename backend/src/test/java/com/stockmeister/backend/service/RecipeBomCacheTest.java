@@ -0,0 +1,111 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.Recipe;
+import com.stockmeister.backend.model.RecipeIngredient;
+import com.stockmeister.backend.repository.RecipeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeBomCacheTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @InjectMocks
+    private RecipeBomCache recipeBomCache;
+
+    @Test
+    @DisplayName("Invalidierung waehrend des Ladens - veraltete Stueckliste wird nicht gecacht")
+    void shouldNotCacheBomLoadedBeforeInvalidation() {
+        Recipe stale = recipe("0.200");
+        Recipe current = recipe("0.350");
+        when(recipeRepository.findByIdWithIngredients(1L))
+                .thenAnswer(invocation -> {
+                    // The recipe lines change after this load has read them
+                    recipeBomCache.invalidate(1L);
+                    return Optional.of(stale);
+                })
+                .thenReturn(Optional.of(current));
+
+        assertEquals(200L, recipeBomCache.get(1L).amountAt(0));
+        assertEquals(350L, recipeBomCache.get(1L).amountAt(0));
+        assertEquals(350L, recipeBomCache.get(1L).amountAt(0));
+        verify(recipeRepository, times(2)).findByIdWithIngredients(1L);
+    }
+
+    @Test
+    @DisplayName("Invalidierung waehrend des Sammelladens - veraltete Stueckliste wird nicht gecacht")
+    void shouldNotCacheBatchLoadedBeforeInvalidation() {
+        Recipe stale = recipe("0.200");
+        Recipe current = recipe("0.350");
+        when(recipeRepository.findAllByIdWithIngredients(List.of(1L)))
+                .thenAnswer(invocation -> {
+                    recipeBomCache.invalidate(1L);
+                    return List.of(stale);
+                })
+                .thenReturn(List.of(current));
+
+        assertEquals(200L, recipeBomCache.getAll(List.of(1L)).get(1L).amountAt(0));
+        assertEquals(350L, recipeBomCache.getAll(List.of(1L)).get(1L).amountAt(0));
+        assertEquals(350L, recipeBomCache.get(1L).amountAt(0));
+        verify(recipeRepository, times(2)).findAllByIdWithIngredients(List.of(1L));
+        verify(recipeRepository, never()).findByIdWithIngredients(any());
+    }
+
+    @Test
+    @DisplayName("Rezeptaenderung auf einem anderen Knoten verwirft die gecachte Stueckliste")
+    void shouldEvictBomChangedOnAnotherNode() {
+        when(recipeRepository.findByIdWithIngredients(1L))
+                .thenReturn(Optional.of(recipe("0.200")))
+                .thenReturn(Optional.of(recipe("0.350")));
+        assertEquals(200L, recipeBomCache.get(1L).amountAt(0));
+
+        recipeBomCache.onClusterEntityChanged(new ClusterEntityChangedEvent(Recipe.class.getName(), 2L));
+        assertEquals(200L, recipeBomCache.get(1L).amountAt(0));
+
+        recipeBomCache.onClusterEntityChanged(new ClusterEntityChangedEvent(Recipe.class.getName(), 1L));
+        assertEquals(350L, recipeBomCache.get(1L).amountAt(0));
+        verify(recipeRepository, times(2)).findByIdWithIngredients(1L);
+    }
+
+    @Test
+    @DisplayName("Neuverbindung des Cluster-Listeners verwirft alle Stuecklisten")
+    void shouldEvictAllBomsOnResync() {
+        when(recipeRepository.findByIdWithIngredients(1L)).thenReturn(Optional.of(recipe("0.200")));
+        recipeBomCache.get(1L);
+
+        recipeBomCache.onClusterEntityChanged(ClusterEntityChangedEvent.resync());
+        recipeBomCache.get(1L);
+
+        verify(recipeRepository, times(2)).findByIdWithIngredients(1L);
+    }
+
+    private static Recipe recipe(String flourAmount) {
+        Ingredient flour = Ingredient.builder().name("Flour").unit("kg").build();
+        flour.setId(7L);
+        Recipe recipe = Recipe.builder()
+                .name("Pizza")
+                .sellingPrice(new BigDecimal("9.50"))
+                .build();
+        recipe.setId(1L);
+        recipe.getIngredients().add(RecipeIngredient.builder()
+                .recipe(recipe)
+                .ingredient(flour)
+                .amount(new BigDecimal(flourAmount))
+                .build());
+        return recipe;
+    }
+}
@@ -0,0 +1,103 @@
+package com.stockmeister.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Menu target;
+    private Menu menu;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new Menu();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new SingleFlightAspect(meterRegistry));
+        menu = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Gleichzeitige Aufrufe mit gleichen Argumenten teilen sich eine Ausfuehrung")
+    void shouldShareRunningExecution() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = List.of(
+                    executor.submit(() -> menu.load("Hauptspeisen")),
+                    executor.submit(() -> menu.load("Hauptspeisen")),
+                    executor.submit(() -> menu.load("Hauptspeisen")));
+            assertTrue(target.started.await(5, TimeUnit.SECONDS));
+            // Give the other callers time to join before the execution ends
+            while (calls("joined") < 2) {
+                Thread.sleep(5);
+            }
+            target.release.countDown();
+
+            for (Future<List<String>> result : results) {
+                assertEquals(List.of("Hauptspeisen"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, target.executions.get());
+        assertEquals(1, calls("executed"));
+        assertEquals(2, calls("joined"));
+
+        // Finished executions are not reused without a TTL
+        menu.load("Hauptspeisen");
+        assertEquals(2, target.executions.get());
+    }
+
+    @Test
+    @DisplayName("Mit TTL wird ein fertiges Ergebnis weitergegeben")
+    void shouldReuseResultWithinTtl() {
+        target.release.countDown();
+
+        assertSame(menu.cached("Desserts"), menu.cached("Desserts"));
+        menu.cached("Vorspeisen");
+
+        assertEquals(2, target.executions.get());
+        assertEquals(1, calls("cached"));
+    }
+
+    private double calls(String result) {
+        return meterRegistry.find("single_flight.calls").tag("result", result).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    static class Menu {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @SingleFlight
+        public List<String> load(String category) throws InterruptedException {
+            executions.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(category);
+        }
+
+        @SingleFlight(ttlMillis = 60_000)
+        public List<String> cached(String category) {
+            executions.incrementAndGet();
+            return List.of(category);
+        }
+    }
+}
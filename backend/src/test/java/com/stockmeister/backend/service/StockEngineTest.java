@@ -0,0 +1,217 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.exception.InsufficientStockException;
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.StockReservationRepository;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockEngineTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private ObjectProvider<ClusterStockRouter> clusterStockRouter;
+
+    @InjectMocks
+    private StockEngine stockEngine;
+
+    private Ingredient flour;
+    private Ingredient oil;
+
+    @BeforeEach
+    void setUp() {
+        flour = Ingredient.builder().name("Flour").unit("kg")
+                .currentStock(new BigDecimal("10.000")).unitPrice(new BigDecimal("1.20")).build();
+        flour.setId(1L);
+        oil = Ingredient.builder().name("Oil").unit("liter")
+                .currentStock(new BigDecimal("2.000")).unitPrice(new BigDecimal("3.00")).build();
+        oil.setId(2L);
+
+        when(ingredientRepository.findAll()).thenReturn(List.of(flour, oil));
+        when(stockReservationRepository.sumAmountsByIngredient())
+                .thenReturn(List.<Object[]>of(new Object[] { 2L, 500L }));
+        stockEngine.preload();
+    }
+
+    @Test
+    @DisplayName("Reservierung ausserhalb einer Transaktion wird sofort abgebucht")
+    void shouldDeductImmediatelyWithoutTransaction() {
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(1L, 4_000L);
+        amounts.add(2L, 500L);
+
+        stockEngine.reserve(amounts);
+
+        assertEquals(0, new BigDecimal("6.000").compareTo(stockEngine.getAvailable(1L)));
+        assertEquals(0, new BigDecimal("1.000").compareTo(stockEngine.getAvailable(2L)));
+    }
+
+    @Test
+    @DisplayName("Fehlbestand - alle Engpaesse gemeldet, nichts reserviert")
+    void shouldRejectWholeReservationOnShortage() {
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(1L, 1_000L);
+        amounts.add(2L, 1_600L);
+
+        InsufficientStockException exception = assertThrows(
+                InsufficientStockException.class,
+                () -> stockEngine.reserve(amounts));
+
+        assertEquals(1, exception.getShortages().size());
+        assertEquals("Oil", exception.getShortages().get(0).getIngredientName());
+        assertEquals(0, new BigDecimal("1.500").compareTo(exception.getShortages().get(0).getAvailable()));
+        assertEquals(0, new BigDecimal("10.000").compareTo(stockEngine.getAvailable(1L)));
+    }
+
+    @Test
+    @DisplayName("Bestand ueberschreiben und zurueckbuchen")
+    void shouldOverwriteAndRestore() {
+
+        flour.setCurrentStock(new BigDecimal("3.000"));
+        stockEngine.overwrite(flour);
+        stockEngine.restore(StockAmountMap.of(1L, 1_500L));
+
+        assertEquals(4_500L, stockEngine.getAvailableMillis(1L));
+        verify(ingredientRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Reservierte Menge bleibt gesperrt bis zur Bezahlung oder Freigabe")
+    void shouldHoldUntilConsumedOrReleased() {
+        StockAmountMap amounts = StockAmountMap.of(1L, 2_000L);
+
+        stockEngine.hold(amounts);
+        assertEquals(8_000L, stockEngine.getAvailableMillis(1L));
+
+        stockEngine.consume(amounts);
+        assertEquals(8_000L, stockEngine.getAvailableMillis(1L));
+
+        stockEngine.hold(amounts);
+        stockEngine.release(amounts);
+        assertEquals(8_000L, stockEngine.getAvailableMillis(1L));
+    }
+
+    @Test
+    @DisplayName("Momentaufnahme meldet Engpaesse ohne zu reservieren, Version aendert sich mit dem Bestand")
+    void shouldSnapshotWithoutReserving() {
+        AvailableStock snapshot = stockEngine.snapshot(new long[] { 2L, 1L });
+
+        assertEquals(1_500L, snapshot.availableMillis(2L));
+        assertNull(snapshot.shortage(1L, 10_000L));
+        assertEquals("Oil", snapshot.shortage(2L, 1_600L).getIngredientName());
+        assertEquals(snapshot.getVersion(), stockEngine.getVersion());
+
+        stockEngine.reserve(StockAmountMap.of(1L, 1_000L));
+        assertNotEquals(snapshot.getVersion(), stockEngine.getVersion());
+        assertEquals(10_000L, snapshot.availableMillis(1L));
+    }
+
+    @Test
+    @DisplayName("Verdraengter Slot behaelt laufende Reservierungen bis zum Abschluss der Transaktion")
+    void shouldKeepEvictedSlotUntilInFlightReservationSettles() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockEngine.hold(StockAmountMap.of(1L, 2_000L));
+            stockEngine.evict(1L);
+            assertEquals(8_000L, stockEngine.getAvailableMillis(1L));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Settled, so the slot is gone and reloaded with the committed hold
+        when(ingredientRepository.findAllById(List.of(1L))).thenReturn(List.of(flour));
+        when(stockReservationRepository.sumAmountsByIngredient(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[] { 1L, 2_000L }));
+        assertEquals(8_000L, stockEngine.getAvailableMillis(1L));
+        verify(ingredientRepository).findAllById(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Geshardete Zutat wird mit der Shard-Summe statt current_stock geladen")
+    void shouldLoadShardedIngredientFromShardSum() {
+        Ingredient salt = Ingredient.builder().name("Salt").unit("kg")
+                .currentStock(new BigDecimal("5.000")).unitPrice(new BigDecimal("0.50")).stockShards(4).build();
+        salt.setId(3L);
+        when(ingredientRepository.findAllById(List.of(3L))).thenReturn(List.of(salt));
+        when(stockReservationRepository.sumAmountsByIngredient(List.of(3L))).thenReturn(List.of());
+        // current_stock is only folded periodically and still shows 5.000
+        when(ingredientRepository.findCurrentStock(List.of(3L))).thenReturn(Map.of(3L, new BigDecimal("3.250")));
+
+        assertEquals(3_250L, stockEngine.getAvailableMillis(3L));
+    }
+
+    @Test
+    @DisplayName("Zutaten fremder Knoten werden dort reserviert und beim Rollback dort zurueckgebucht")
+    void shouldReserveRemoteIngredientsOnTheirOwner() {
+        ClusterStockRouter router = mock(ClusterStockRouter.class);
+        when(clusterStockRouter.getIfAvailable()).thenReturn(router);
+        StockAmountMap local = StockAmountMap.of(1L, 1_000L);
+        StockAmountMap remote = StockAmountMap.of(9L, 250L);
+        when(router.partition(any())).thenReturn(new TreeMap<>(Map.of("node-a", local, "node-b", remote)));
+        when(router.isLocal("node-a")).thenReturn(true);
+        when(router.isLocal("node-b")).thenReturn(false);
+        when(router.reserve("node-b", remote, true)).thenReturn("tx-1");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockEngine.hold(StockAmountMap.of(1L, 1_000L));
+            assertEquals(9_000L, stockEngine.getLocalAvailableMillis(1L));
+            verify(router, never()).settle(any(), any(), anyBoolean());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(router).settle("node-b", "tx-1", false);
+        assertEquals(10_000L, stockEngine.getLocalAvailableMillis(1L));
+    }
+
+    @Test
+    @DisplayName("Nie abgerechnete Reservierung eines anderen Knotens wird nach 60 Sekunden zurueckgebucht")
+    void shouldRollBackUnsettledPeerTakeAfterTimeout() {
+        long takenAt = System.currentTimeMillis();
+        stockEngine.takeForPeer("tx-1", false, StockAmountMap.of(1L, 3_000L));
+        assertEquals(7_000L, stockEngine.getLocalAvailableMillis(1L));
+
+        stockEngine.expirePeerTakes(takenAt + 30_000L);
+        assertEquals(7_000L, stockEngine.getLocalAvailableMillis(1L));
+
+        stockEngine.expirePeerTakes(takenAt + 61_000L);
+        assertEquals(10_000L, stockEngine.getLocalAvailableMillis(1L));
+
+        // A settle arriving after the rollback must not deduct again
+        stockEngine.settleForPeer("tx-1", true);
+        assertEquals(10_000L, stockEngine.getLocalAvailableMillis(1L));
+    }
+}
@@ -0,0 +1,43 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.repository.StockJournalCheckpointRepository;
+import com.stockmeister.backend.repository.StockMovementRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockJournalServiceTest {
+
+    @Mock
+    private StockUpdateService stockUpdateService;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Journal zusammen mit Cluster-Modus verhindert den Start")
+    void shouldRefuseToStartInClusterMode() {
+        StockJournalService service = new StockJournalService(
+                stockUpdateService, stockMovementRepository, checkpointRepository, transactionManager);
+        ReflectionTestUtils.setField(service, "clusterEnabled", true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, service::open);
+
+        assertTrue(exception.getMessage().contains("app.cluster.enabled"));
+        verifyNoInteractions(checkpointRepository, stockMovementRepository, transactionManager);
+    }
+}
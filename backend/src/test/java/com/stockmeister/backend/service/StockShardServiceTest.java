@@ -0,0 +1,59 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.repository.IngredientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockShardServiceTest {
+
+    @Autowired
+    private StockShardService stockShardService;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Shard-Summen werden in einer schreibbaren Transaktion nach current_stock uebernommen")
+    void shouldFoldShardSumsIntoCurrentStock() throws NoSuchMethodException {
+        // H2 ignoriert read-only Verbindungen, PostgreSQL lehnt das UPDATE ab
+        TransactionAttribute attribute = new AnnotationTransactionAttributeSource().getTransactionAttribute(
+                StockShardService.class.getMethod("foldShardedStock"), StockShardService.class);
+        assertNotNull(attribute);
+        assertFalse(attribute.isReadOnly());
+
+        Long oilId = ingredientRepository.saveAndFlush(Ingredient.builder()
+                .name("FoldOil")
+                .unit("liter")
+                .currentStock(new BigDecimal("4.000"))
+                .minimumStock(BigDecimal.ZERO)
+                .unitPrice(new BigDecimal("2.00"))
+                .isActive(true)
+                .build()).getId();
+        stockShardService.configureShards(oilId, 2);
+
+        assertTrue(ingredientRepository.deductFromShard(oilId, 0, 1_500L));
+        stockShardService.foldShardedStock();
+
+        BigDecimal stock = jdbcTemplate.queryForObject(
+                "SELECT current_stock FROM ingredients WHERE id = ?", BigDecimal.class, oilId);
+        assertEquals(0, new BigDecimal("2.500").compareTo(stock));
+
+        stockShardService.configureShards(oilId, 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.stockmeister.backend.service;
+
+import com.stockmeister.backend.model.Ingredient;
+import com.stockmeister.backend.model.StockMovement;
+import com.stockmeister.backend.model.StockMovementCause;
+import com.stockmeister.backend.repository.IngredientRepository;
+import com.stockmeister.backend.repository.StockMovementRepository;
+import com.stockmeister.backend.util.StockAmountMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class StockUpdateServiceTest {
+
+    @Autowired
+    private StockUpdateService stockUpdateService;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Verbrauch ueber den Bestand hinaus - Ledger bucht nur die tatsaechlich abgezogene Menge")
+    void shouldRecordFlooredConsumptionInLedger() {
+        long flourId = ingredient("ConsumeFlour", "1.000");
+        long oilId = ingredient("ConsumeOil", "5.000");
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(flourId, 2_500L);
+        amounts.add(oilId, 1_000L);
+
+        stockUpdateService.consume(amounts, StockMovementCause.ORDER_PAYMENT, 42L);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(currentStock(flourId)));
+        assertEquals(0, new BigDecimal("4.000").compareTo(currentStock(oilId)));
+        assertEquals(-1_000L, onlyMovement(flourId).getDelta());
+        assertEquals(-1_000L, onlyMovement(oilId).getDelta());
+    }
+
+    @Test
+    @DisplayName("Verbrauch bei leerem Bestand schreibt keine Bewegung")
+    void shouldNotRecordConsumptionOfEmptyStock() {
+        long saltId = ingredient("ConsumeSalt", "0.000");
+
+        stockUpdateService.consume(StockAmountMap.of(saltId, 300L), StockMovementCause.ORDER_PAYMENT, 43L);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(currentStock(saltId)));
+        assertTrue(stockMovementRepository.findByIngredientIdOrderByIdDesc(saltId, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private long ingredient(String name, String stock) {
+        return ingredientRepository.saveAndFlush(Ingredient.builder()
+                .name(name)
+                .unit("kg")
+                .currentStock(new BigDecimal(stock))
+                .unitPrice(new BigDecimal("1.00"))
+                .isActive(true)
+                .build()).getId();
+    }
+
+    private BigDecimal currentStock(long ingredientId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT current_stock FROM ingredients WHERE id = ?", BigDecimal.class, ingredientId);
+    }
+
+    private StockMovement onlyMovement(long ingredientId) {
+        List<StockMovement> movements = stockMovementRepository.findByIngredientIdOrderByIdDesc(
+                ingredientId, PageRequest.of(0, 10));
+        assertEquals(1, movements.size());
+        assertEquals(StockMovementCause.ORDER_PAYMENT, movements.get(0).getCauseType());
+        return movements.get(0);
+    }
+}
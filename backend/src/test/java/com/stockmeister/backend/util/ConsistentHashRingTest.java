@@ -0,0 +1,78 @@
+package com.stockmeister.backend.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int IDS = 30_000;
+
+    @Test
+    @DisplayName("Fortlaufende Zutaten-IDs verteilen sich gleichmaessig auf die Knoten")
+    void shouldSpreadSequentialIdsEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long id = 1; id <= IDS; id++) {
+            counts.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.forEach((node, count) -> {
+            double share = count / (double) IDS;
+            assertTrue(share > 0.20 && share < 0.47, node + " owns " + share);
+        });
+    }
+
+    @Test
+    @DisplayName("Neuer Knoten uebernimmt nur IDs, alle anderen bleiben beim bisherigen Besitzer")
+    void shouldOnlyMoveIdsToJoiningNode() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 64);
+
+        int moved = 0;
+        for (long id = 1; id <= IDS; id++) {
+            String owner = after.ownerOf(id);
+            if (!owner.equals(before.ownerOf(id))) {
+                assertEquals("node-d", owner, "id " + id);
+                moved++;
+            }
+        }
+
+        double share = moved / (double) IDS;
+        assertTrue(share > 0.15 && share < 0.35, "moved " + share);
+    }
+
+    @Test
+    @DisplayName("Ausfallender Knoten gibt nur seine eigenen IDs ab")
+    void shouldOnlyMoveIdsOfLeavingNode() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-c"), 64);
+
+        for (long id = 1; id <= IDS; id++) {
+            String owner = before.ownerOf(id);
+            if (!owner.equals("node-b")) {
+                assertEquals(owner, after.ownerOf(id), "id " + id);
+            } else {
+                assertNotEquals("node-b", after.ownerOf(id));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Knotenreihenfolge aendert die Zuordnung nicht")
+    void shouldNotDependOnNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"), 64);
+
+        for (long id = 1; id <= 1_000; id++) {
+            assertEquals(ring.ownerOf(id), reordered.ownerOf(id));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockmeister.backend.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockAmountMapTest {
+
+    @Test
+    @DisplayName("Gepackte Mengen - negative Werte, Null und Extremwerte bleiben erhalten")
+    void shouldRoundTripPackedAmounts() {
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(3L, 1_500L);
+        amounts.add(7L, -2_250L);
+        amounts.add(8L, 0L);
+        amounts.add(1_000_000L, Long.MAX_VALUE);
+        amounts.add(Long.MAX_VALUE, Long.MIN_VALUE);
+
+        StockAmountMap unpacked = StockAmountMap.fromBytes(amounts.toBytes());
+
+        assertArrayEquals(amounts.sortedKeys(), unpacked.sortedKeys());
+        assertEquals(1_500L, unpacked.get(3L));
+        assertEquals(-2_250L, unpacked.get(7L));
+        assertTrue(unpacked.containsKey(8L));
+        assertEquals(0L, unpacked.get(8L));
+        assertEquals(Long.MAX_VALUE, unpacked.get(1_000_000L));
+        assertEquals(Long.MIN_VALUE, unpacked.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Leere Menge wird als ein Byte gepackt")
+    void shouldRoundTripEmptyMap() {
+        byte[] packed = new StockAmountMap().toBytes();
+
+        assertArrayEquals(new byte[] { 0 }, packed);
+        assertTrue(StockAmountMap.fromBytes(packed).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Abgeschnittene Daten werden abgelehnt")
+    void shouldRejectTruncatedInput() {
+        StockAmountMap amounts = new StockAmountMap();
+        amounts.add(3L, 1_500L);
+        amounts.add(7L, -Long.MAX_VALUE);
+        byte[] packed = amounts.toBytes();
+
+        for (int length = 0; length < packed.length; length++) {
+            byte[] truncated = Arrays.copyOf(packed, length);
+            assertThrows(IllegalArgumentException.class, () -> StockAmountMap.fromBytes(truncated),
+                    "length " + length);
+        }
+    }
+}